@@ -1,6 +1,7 @@
 package com.stockPlus.config;
 
 import com.stockPlus.domain.ErrorResponse;
+import com.stockPlus.service.kis.KisRateLimitException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -36,6 +37,27 @@ public class GlobalExceptionHandler {
                 .body(error);
     }
 
+    /**
+     * KIS REST 호출 허가를 받지 못한 경우 (대기열 초과, 대기 시간 초과) - 잠시 후 재시도 안내
+     */
+    @ExceptionHandler(KisRateLimitException.class)
+    public ResponseEntity<ErrorResponse> handleKisRateLimitException(KisRateLimitException ex, HttpServletRequest request) {
+        log.warn(">>> [KIS RATE LIMIT] Message: {}, Path: {}", ex.getMessage(), request.getRequestURI());
+
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error("Service Unavailable")
+                .message(ex.getMessage())
+                .path(request.getRequestURI())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Content-Type", "application/json;charset=UTF-8")
+                .header("Retry-After", "1")
+                .body(error);
+    }
+
     /**
      * 비즈니스 로직 중 발생하는 런타임 에러 처리
      */
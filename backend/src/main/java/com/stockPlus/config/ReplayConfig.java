@@ -0,0 +1,52 @@
+package com.stockPlus.config;
+
+import com.stockPlus.service.realtime.replay.KisStandInServer;
+import com.stockPlus.service.realtime.replay.TickSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 재생(replay) 모드 설정입니다. realtime.replay.enabled=true 일 때만 활성화됩니다.
+ *
+ * 로컬 KIS 대역 서버를 띄워 저널에 기록된 틱 또는 합성 틱을 1배/N배속으로 재생하고,
+ * KisRealtimeService는 실제 KIS 대신 이 서버에 접속합니다. (휴장일/주말/CI 부하 테스트용)
+ */
+@Configuration
+@ConditionalOnProperty(name = "realtime.replay.enabled", havingValue = "true")
+@Slf4j
+public class ReplayConfig {
+
+    @Bean(destroyMethod = "stop")
+    public KisStandInServer kisStandInServer(@Value("${realtime.replay.port:21001}") int port,
+                                             @Value("${realtime.ws.max-subscriptions-per-session:41}") int maxSubscriptions,
+                                             @Value("${realtime.replay.source:synthetic}") String source,
+                                             @Value("${realtime.replay.journal-date:}") String journalDate,
+                                             @Value("${realtime.journal.dir:./data/ticks}") String journalDir,
+                                             @Value("${realtime.replay.speed:1}") double speed,
+                                             @Value("${realtime.replay.loop:true}") boolean loop,
+                                             @Value("${realtime.replay.synthetic.ticks-per-second:1000}") int syntheticRate,
+                                             @Value("${realtime.replay.synthetic.duration-seconds:3600}") int syntheticDuration) {
+        KisStandInServer server = new KisStandInServer(port, maxSubscriptions, Duration.ofSeconds(10));
+        server.start();
+
+        TickSource tickSource;
+        if ("journal".equalsIgnoreCase(source)) {
+            LocalDate day = journalDate.isBlank() ? LocalDate.now() : LocalDate.parse(journalDate);
+            tickSource = TickSource.journal(Paths.get(journalDir).resolve("ticks-" + day.format(DateTimeFormatter.BASIC_ISO_DATE) + ".bin"));
+            log.info("Replay mode: journal {} at {}x", day, speed);
+        } else {
+            tickSource = TickSource.synthetic(server::subscribedCodes, syntheticRate, syntheticDuration);
+            log.info("Replay mode: synthetic {} ticks/s at {}x", syntheticRate, speed);
+        }
+        server.replay(tickSource, speed, loop);
+        return server;
+    }
+}
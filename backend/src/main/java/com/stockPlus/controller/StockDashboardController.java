@@ -2,11 +2,18 @@ package com.stockPlus.controller;
 
 import com.stockPlus.domain.StockChartDto;
 import com.stockPlus.domain.StockInfo;
+import com.stockPlus.domain.StockPriceResult;
 import com.stockPlus.domain.UserNote;
 import com.stockPlus.domain.Watchlist;
 import com.stockPlus.service.KisRealtimeService;
 import com.stockPlus.service.KisStockService;
 import com.stockPlus.service.StockDashboardService;
+import com.stockPlus.service.chart.ChartDownsampler;
+import com.stockPlus.service.chart.HistoryChartCache;
+import com.stockPlus.service.kis.InvestorCache;
+import com.stockPlus.service.kis.KisCallCoalescer;
+import com.stockPlus.service.kis.KisRateGovernor;
+import com.stockPlus.service.realtime.TickRingBuffer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,9 +34,17 @@ import java.util.Map;
 @lombok.extern.slf4j.Slf4j
 public class StockDashboardController {
 
+    private static final int MAX_CHART_POINTS = 5000; // width 파라미터 상한
+    private static final int MAX_BATCH_CODES = 200;   // 다중 현재가 조회 최대 종목 수
+
     private final StockDashboardService dashboardService;
     private final KisStockService kisStockService;
     private final KisRealtimeService kisRealtimeService;
+    private final TickRingBuffer tickRingBuffer;
+    private final KisRateGovernor kisRateGovernor;
+    private final KisCallCoalescer kisCallCoalescer;
+    private final InvestorCache investorCache;
+    private final HistoryChartCache historyChartCache;
 
     // --- Watchlist (관심 종목) ---
 
@@ -91,18 +106,8 @@ public class StockDashboardController {
     @PutMapping("/watchlist/{stockCode}/favorite")
     public void toggleFavorite(@PathVariable String stockCode, @RequestBody Map<String, Boolean> payload, @RequestParam(defaultValue = "1") int groupId) {
         boolean isFavorite = payload.get("isFavorite");
+        // 실시간 구독/해제는 서비스에서 즐겨찾기 상태 변경 시에만 반영
         dashboardService.toggleFavorite(stockCode, groupId, isFavorite);
-
-        // [추가] 즐겨찾기 토글 시 실시간 구독/해제 즉시 반영
-        com.stockPlus.domain.Watchlist item = new com.stockPlus.domain.Watchlist();
-        item.setStockCode(stockCode);
-        item.setExchangeCode("J"); // 기본 국내주식으로 요청 (내부에서 NX, UN 자동 처리)
-        
-        if (isFavorite) {
-            kisRealtimeService.addSubscription(item);
-        } else {
-            kisRealtimeService.removeSubscription(item);
-        }
     }
 
     /**
@@ -115,6 +120,38 @@ public class StockDashboardController {
         return ResponseEntity.ok("Reset request submitted. Check backend logs.");
     }
 
+    /**
+     * [디버그] KIS 웹소켓 세션별 구독 배정/전송 상태와 미배정 종목 수를 조회합니다.
+     */
+    @GetMapping("/debug/realtime-sessions")
+    public Map<String, Object> getRealtimeSessions() {
+        return kisRealtimeService.getSessionStatus();
+    }
+
+    /**
+     * [디버그] 실시간 틱 링 버퍼의 소비자별 진행 상황(시퀀스, 지연, 유실 수)을 조회합니다.
+     */
+    @GetMapping("/debug/tick-ring")
+    public Map<String, Object> getTickRingStatus() {
+        return tickRingBuffer.getStatus();
+    }
+
+    /**
+     * [디버그] KIS REST 호출 조절기의 우선순위별 허가/거절/대기 현황과 동일 호출 공유, 투자자 동향 캐시 현황을 조회합니다.
+     */
+    @GetMapping("/debug/kis-rest")
+    public Map<String, Object> getKisRestStatus() {
+        Map<String, Object> status = new java.util.LinkedHashMap<>(kisRateGovernor.getStatus());
+        status.put("coalescing", kisCallCoalescer.getStatus());
+        status.put("investorCache", investorCache.getStatus());
+        return status;
+    }
+
+    @GetMapping("/debug/chart-cache")
+    public Map<String, Object> getChartCacheStatus() {
+        return historyChartCache.getStatus();
+    }
+
     // --- User Keywords (사용자 키워드) ---
     
     @GetMapping("/keywords")
@@ -175,18 +212,27 @@ public class StockDashboardController {
      * @param stockCode 종목 코드
      * @param exchangeCode 거래소 코드 (J: 국내, 등)
      * @param period 기간 (D: 일, W: 주, M: 월, etc. - API 스펙에 따름)
+     * @param width 화면에 그릴 최대 봉 수 (선택, 넘으면 서버에서 다운샘플링)
+     * @param from 구간 시작 epoch seconds (선택)
+     * @param to 구간 끝 epoch seconds (선택)
+     * @param mode 다운샘플링 방식 (OHLC: 캔들 구간 합치기, LTTB: 종가 선 모양 유지)
      * @return 차트 데이터 리스트 (비동기 Mono)
      */
     @GetMapping("/stocks/{stockCode}/chart")
     public Mono<List<StockChartDto>> getStockChart(
             @PathVariable String stockCode,
             @RequestParam(defaultValue = "J") String exchangeCode,
-            @RequestParam(defaultValue = "1D") String period) {
-        return kisStockService.fetchUnifiedChart(stockCode, exchangeCode, period);
+            @RequestParam(defaultValue = "1D") String period,
+            @RequestParam(required = false) Integer width,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(defaultValue = "OHLC") ChartDownsampler.Mode mode) {
+        if (width != null) width = Math.min(width, MAX_CHART_POINTS);
+        return kisStockService.fetchUnifiedChart(stockCode, exchangeCode, period, from, to, width, mode);
     }
 
     /**
-     * 주식 현재가를 조회합니다. (한국투자증권 API 연동)
+     * 주식 현재가를 조회합니다. (실시간 캐시 우선, 없으면 한국투자증권 API 연동)
      * @param stockCode 종목 코드
      * @param exchangeCode 거래소 코드
      * @return 현재가 정보 (비동기 Mono)
@@ -195,7 +241,22 @@ public class StockDashboardController {
     public Mono<com.stockPlus.domain.StockPriceDto> getStockPrice(
             @PathVariable String stockCode,
             @RequestParam(defaultValue = "J") String exchangeCode) {
-        return kisStockService.fetchUnifiedCurrentPrice(stockCode, exchangeCode);
+        return kisStockService.fetchCurrentPrice(stockCode, exchangeCode);
+    }
+
+    /**
+     * 여러 종목의 현재가를 한 번에 조회합니다. (관심종목 초기 로드용)
+     * 실시간 캐시가 신선한 종목은 캐시에서, 나머지는 동시 호출 수를 제한해 KIS에서 조회하며
+     * 종목별 상태(OK, UNAVAILABLE, RATE_LIMITED, ERROR, SKIPPED)와 함께 요청 순서대로 반환합니다.
+     * @param codes 종목 코드 목록 (쉼표 구분)
+     * @param exchangeCode 거래소 코드
+     */
+    @GetMapping("/stocks/prices")
+    public Mono<List<StockPriceResult>> getStockPrices(
+            @RequestParam List<String> codes,
+            @RequestParam(defaultValue = "J") String exchangeCode) {
+        List<String> trimmed = codes.stream().map(String::trim).filter(code -> !code.isEmpty()).toList();
+        return kisStockService.fetchCurrentPrices(trimmed, exchangeCode, MAX_BATCH_CODES);
     }
 
     /**
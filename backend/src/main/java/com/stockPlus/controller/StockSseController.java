@@ -1,80 +1,195 @@
 package com.stockPlus.controller;
 
-import com.stockPlus.domain.StockPriceDto;
-import lombok.RequiredArgsConstructor;
+import com.stockPlus.domain.Watchlist;
+import com.stockPlus.service.StockDashboardService;
+import com.stockPlus.service.realtime.Exchange;
+import com.stockPlus.service.realtime.LastValueCache;
+import com.stockPlus.service.realtime.RealtimeTick;
+import com.stockPlus.service.realtime.SseDeltaEncoder;
+import com.stockPlus.service.realtime.StaleSymbolTracker;
+import com.stockPlus.service.realtime.TickConsolidator;
+import com.stockPlus.service.realtime.TickRouter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
-import reactor.core.publisher.Sinks;
+import reactor.core.publisher.Flux;
 
-import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 실시간 주식 시세를 SSE(Server-Sent Events) 방식으로 클라이언트에게 스트리밍하는 컨트롤러입니다.
- * Reactor Sinks를 사용하여 여러 클라이언트에게 동시에 데이터를 브로드캐스트합니다.
+ * 각 클라이언트는 구독할 종목을 선언하고, TickRouter를 통해 해당 종목의 틱만 전달받습니다.
+ * 체결은 기본적으로 통합(UN) 틱 하나만 보내며, 거래소별 화면(exchange=J/NX)을 요청한 클라이언트에게만
+ * 통합 틱 대신 그 거래소의 최신 체결을 보냅니다. (어느 경우든 체결 한 건당 최대 한 건)
  */
 @RestController
 @RequestMapping("/api/sse")
-@RequiredArgsConstructor
 @Slf4j
 @CrossOrigin(origins = "*")
 public class StockSseController {
 
-    // 애플리케이션 전역에서 공유되는 주식 시세 데이터 스트림 (Sinks)
-    private final Sinks.Many<StockPriceDto> stockPriceSink;
+    // 항상 함께 전송하는 지수 코드 (KOSPI, KOSDAQ)
+    private static final List<String> INDEX_CODES = List.of("0001", "1001");
+
+    // 종목별 구독자 인덱스 (구독 종목의 틱만 전달)
+    private final TickRouter tickRouter;
+    private final StockDashboardService dashboardService;
+    // 종목별 최신 시세 캐시 (신규 연결 시 초기 스냅샷 전송용)
+    private final LastValueCache lastValueCache;
+    // KIS 세션 유실로 시세가 끊긴 종목 (stale 이벤트용)
+    private final StaleSymbolTracker staleSymbolTracker;
+    private final Duration heartbeatInterval;
+    private final int maxSymbols; // 클라이언트당 최대 구독 종목 수
+    private final long keyframeIntervalMillis; // 델타 인코딩 시 전체 필드 재전송 주기
+
+    public StockSseController(TickRouter tickRouter, StockDashboardService dashboardService, LastValueCache lastValueCache,
+                              StaleSymbolTracker staleSymbolTracker,
+                              @Value("${realtime.sse.heartbeat-seconds:15}") long heartbeatSeconds,
+                              @Value("${realtime.sse.max-symbols:300}") int maxSymbols,
+                              @Value("${realtime.sse.keyframe-seconds:30}") long keyframeSeconds) {
+        this.tickRouter = tickRouter;
+        this.dashboardService = dashboardService;
+        this.lastValueCache = lastValueCache;
+        this.staleSymbolTracker = staleSymbolTracker;
+        this.heartbeatInterval = Duration.ofSeconds(heartbeatSeconds);
+        this.maxSymbols = maxSymbols;
+        this.keyframeIntervalMillis = keyframeSeconds * 1000;
+    }
 
     /**
      * 주식 시세 스트림에 연결합니다.
-     * GET /api/sse/stocks
+     * GET /api/sse/stocks?codes=005930,000660
+     *
+     * 서블릿 SseEmitter 대신 Flux<ServerSentEvent>를 반환하여, 클라이언트의 요청(demand)에 맞춰 전송합니다.
+     * 느린 클라이언트는 종목별 최신 틱만 받게 되며(conflation), 공유 Sink나 KIS 수신 경로를 지연시키지 않습니다.
+     *
+     * encoding=delta 를 지정하면 priceUpdate 대신 keyframe 이벤트(전체 필드)와 이름 없는 message 이벤트(변경 필드만)를 보냅니다.
+     * 구독 종목 중 KIS 세션 유실로 시세가 끊긴 종목이 바뀔 때마다 stale 이벤트(종목코드 배열, 복구되면 빈 배열)를 보냅니다.
      *
-     * @return SseEmitter 객체 (SSE 연결)
+     * @param codes 수신할 종목코드 목록 (콤마 구분, 생략 시 사용자의 관심 종목)
+     * @param encoding full(기본) 또는 delta
+     * @param exchange 체결 시세를 받을 시장 - UN(기본, 통합), J(KRX), NX(NXT)
+     * @return SSE 이벤트 스트림 (connect -> priceUpdate 또는 keyframe/delta, stale, heartbeat)
      */
-    @GetMapping(value = "/stocks", produces = org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE)
-    public org.springframework.http.ResponseEntity<SseEmitter> streamStockPrices() {
-        // 타임아웃을 무제한(Long.MAX_VALUE)으로 설정하여 연결 유지
-        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-
-        // 1. 초기 연결 확인 메시지 전송
-        try {
-            emitter.send(SseEmitter.event().name("connect").data("Connected to Stock Price Stream"));
-        } catch (IOException e) {
-            log.error("Error sending initial SSE connection event", e);
-            emitter.completeWithError(e);
-            return org.springframework.http.ResponseEntity.ok(emitter);
-        }
+    @GetMapping(value = "/stocks", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> streamStockPrices(@RequestParam(required = false) String codes,
+                                                                           @RequestParam(defaultValue = "full") String encoding,
+                                                                           @RequestParam(defaultValue = "UN") String exchange) {
+        Set<String> symbols = resolveSymbols(codes);
+        Exchange view = Exchange.of(exchange);
+
+        // 1. 초기 연결 확인 메시지
+        ServerSentEvent<Object> connect = ServerSentEvent.builder((Object) "Connected to Stock Price Stream")
+                .event("connect")
+                .build();
+
+        // 2. 구독 종목의 최신값 스냅샷 + 실시간 틱 (클라이언트별 최신값 버퍼를 거쳐 전달)
+        // JSON DTO 변환은 실제로 전송되는 틱에 대해서만 수행
+        Flux<RealtimeTick> ticks = forExchange(tickRouter.stream(symbols, lastValueCache.snapshot(symbols)), view);
+        Flux<ServerSentEvent<Object>> prices = "delta".equalsIgnoreCase(encoding)
+                ? deltaEvents(ticks)
+                : ticks.map(tick -> ServerSentEvent.builder((Object) tick.toDto()).event("priceUpdate").build());
+
+        // 3. 구독 종목의 stale 목록 변경 (처음부터 비어 있으면 보내지 않음, 요청이 없으면 최신 목록만 유지)
+        Flux<ServerSentEvent<Object>> stale = staleSymbolTracker.changes()
+                .map(staleCodes -> symbols.stream().filter(staleCodes::contains).toList())
+                .distinctUntilChanged()
+                .skipWhile(List::isEmpty)
+                .onBackpressureLatest()
+                .map(staleCodes -> ServerSentEvent.builder((Object) staleCodes).event("stale").build());
+
+        // 4. 연결 유지용 heartbeat (요청이 없으면 버림)
+        Flux<ServerSentEvent<Object>> heartbeat = Flux.interval(heartbeatInterval)
+                .onBackpressureDrop()
+                .map(i -> ServerSentEvent.builder((Object) System.currentTimeMillis()).event("heartbeat").build());
 
-        // 2. 실시간 데이터 스트림(Sink) 구독
-        // Sinks.Many<StockPriceDto> -> Flux 변환 후 subscribe
-        var disposable = stockPriceSink.asFlux()
-                .subscribe(
-                        stockPrice -> {
-                            try {
-                                // 데이터 발생 시 클라이언트에게 전송 (이벤트명: priceUpdate)
-                                emitter.send(SseEmitter.event().name("priceUpdate").data(stockPrice));
-                            } catch (IOException e) {
-                                log.warn("Error sending SSE data, client might have disconnected.", e);
-                                // 에러 처리는 아래 onError/onCompletion에서 수행됨
-                            }
-                        },
-                        error -> {
-                            log.error("Error in SSE stream.", error);
-                            emitter.completeWithError(error);
-                        },
-                        emitter::complete // 스트림 종료 시
-                );
-
-        // 3. 연결 종료 및 타임아웃 처리
-        // 클라이언트가 연결을 끊거나 타임아웃 발생 시 구독 해제(dispose)하여 리소스 누수 방지
-        emitter.onCompletion(disposable::dispose);
-        emitter.onTimeout(disposable::dispose);
-        emitter.onError(e -> disposable.dispose());
+        // prefetch 1: merge 내부 큐에 틱을 쌓지 않고 최신값 버퍼에서 필요한 만큼만 가져옴
+        Flux<ServerSentEvent<Object>> stream = Flux.concat(
+                Flux.just(connect),
+                Flux.merge(1, prices, stale, heartbeat)
+        ).doOnError(e -> log.warn("SSE stream error: {}", e.getMessage()));
 
         // Nginx 등 프록시 버퍼링 방지 헤더 설정
-        return org.springframework.http.ResponseEntity.ok()
+        return ResponseEntity.ok()
                 .header("X-Accel-Buffering", "no")
-                .body(emitter);
+                .body(stream);
+    }
+
+    // 파이프라인에는 체결당 통합(UN) 틱 하나만 흐르므로, 통합 화면은 그대로 보내고
+    // 거래소별 화면은 통합 틱 대신 그 사이 갱신된 해당 거래소의 최신 체결을 캐시에서 꺼내 보냄 (이미 보낸 틱은 다시 보내지 않음)
+    // 예상체결은 통합 화면이면 모두(거래소별 값으로 대체 표시), 거래소별 화면이면 그 거래소 것만 보냄
+    private Flux<RealtimeTick> forExchange(Flux<RealtimeTick> ticks, Exchange view) {
+        if (view == Exchange.UN || view == Exchange.IDX) {
+            return ticks.filter(tick -> tick.isExpected() || !TickConsolidator.isVenueTrade(tick));
+        }
+        return Flux.defer(() -> {
+            Map<Integer, RealtimeTick> sent = new HashMap<>();
+            // prefetch 1: 클라이언트별 최신값 버퍼의 conflation이 유지되도록 필요한 만큼만 가져옴
+            return ticks.concatMapIterable(tick -> {
+                List<RealtimeTick> out = new ArrayList<>(1);
+                if (tick.getExchange() == Exchange.IDX || (tick.isExpected() && tick.getExchange() == view)) {
+                    out.add(tick);
+                } else if (tick.getExchange() == view) {
+                    addIfUnsent(out, sent, tick); // 초기 스냅샷의 거래소별 틱도 보낸 것으로 기록
+                } else if (TickConsolidator.isConsolidated(tick)) {
+                    addIfUnsent(out, sent, lastValueCache.get(tick.getSymbolId(), view));
+                }
+                return out;
+            }, 1);
+        });
+    }
+
+    private static void addIfUnsent(List<RealtimeTick> out, Map<Integer, RealtimeTick> sent, RealtimeTick venue) {
+        if (venue == null) return;
+        int key = (venue.getSymbolId() << 2) | venue.getExchange().ordinal();
+        if (sent.put(key, venue) != venue) out.add(venue);
+    }
+
+    // 연결별 델타 인코더로 keyframe/delta 이벤트 생성 (변경 필드가 없는 틱은 생략)
+    private Flux<ServerSentEvent<Object>> deltaEvents(Flux<RealtimeTick> ticks) {
+        return Flux.defer(() -> {
+            SseDeltaEncoder encoder = new SseDeltaEncoder(keyframeIntervalMillis);
+            return ticks.handle((tick, sink) -> {
+                SseDeltaEncoder.Frame frame = encoder.encode(tick);
+                if (frame == null) return;
+                ServerSentEvent.Builder<Object> event = ServerSentEvent.builder((Object) frame.getData());
+                if (frame.getEvent() != null) event.event(frame.getEvent());
+                sink.next(event.build());
+            });
+        });
+    }
+
+    // 요청 파라미터의 종목코드, 없으면 사용자의 관심 종목 + 주요 지수 (최대 maxSymbols개)
+    private Set<String> resolveSymbols(String codes) {
+        Set<String> symbols = new LinkedHashSet<>(INDEX_CODES);
+        if (codes != null && !codes.isBlank()) {
+            for (String code : codes.split(",")) {
+                if (symbols.size() >= maxSymbols) break;
+                if (!code.isBlank()) symbols.add(code.trim());
+            }
+        } else {
+            try {
+                for (Watchlist w : dashboardService.getWatchlist(null)) {
+                    if (symbols.size() >= maxSymbols) break;
+                    symbols.add(w.getStockCode());
+                }
+            } catch (Exception e) {
+                log.warn("Failed to load watchlist for SSE subscription: {}", e.getMessage());
+            }
+        }
+        return symbols;
     }
 }
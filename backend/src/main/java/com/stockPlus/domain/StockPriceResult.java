@@ -0,0 +1,21 @@
+package com.stockPlus.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 다중 종목 현재가 조회의 종목별 결과 (일부 종목이 실패해도 나머지는 OK로 반환)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockPriceResult {
+    private String stockCode;
+    private String status;  // OK, UNAVAILABLE(시세 없음), RATE_LIMITED(호출 한도 대기 초과), ERROR, SKIPPED(요청 종목 수 초과)
+    private String source;  // CACHE(실시간 캐시), KIS(REST 조회)
+    private StockPriceDto price;
+    private String message;
+}
@@ -9,6 +9,7 @@ import java.util.List;
 public interface WatchlistMapper {
     List<Watchlist> findAll(@Param("usrId") String usrId);
     List<Watchlist> findAllGlobal();
+    List<Watchlist> findAllFavoriteEntries();
     List<Watchlist> findByGroupId(@Param("usrId") String usrId, @Param("groupId") int groupId);
     int insert(Watchlist watchlist);
     int deleteByStockCode(@Param("usrId") String usrId, @Param("stockCode") String stockCode, @Param("groupId") int groupId);
@@ -15,17 +15,17 @@ public class KisTokenScheduler {
 
     private final KisAuthService kisAuthService;
 
-    // 애플리케이션 시작 직후 1회 실행
+    // 애플리케이션 시작 직후 1회 실행 (초기화 중 이미 발급했거나 발급 중이면 건너뜀)
     @EventListener(ApplicationReadyEvent.class)
     public void initToken() {
-        log.info("[Scheduler] 애플리케이션 시작: 초기 토큰 발급 시도");
-        kisAuthService.refreshAccessToken();
+        log.info("[Scheduler] 애플리케이션 시작: 초기 토큰 발급 확인");
+        kisAuthService.refreshAccessTokenIfExpiring();
     }
 
-    // 매주 평일(월-금) 오전 11시에 실행
-    @Scheduled(cron = "0 0 11 * * MON-FRI")
+    // 1분마다 만료 시각(expires_in 기준)을 확인해 만료 여유 시간 안으로 들어온 토큰을 미리 갱신
+    // (요청이 없는 시간대에도 첫 호출이 토큰 발급을 기다리지 않도록)
+    @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
     public void scheduleTokenRefresh() {
-        log.info("[Scheduler] 토큰 정기 갱신 작업 시작 (평일 11:00)");
-        kisAuthService.refreshAccessToken();
+        kisAuthService.refreshAccessTokenIfExpiring();
     }
 }
@@ -29,7 +29,16 @@ public class KisAuthService {
     @Value("${kis.api.secret}")
     private String appSecret; // 앱 시크릿
 
-    private String accessToken; // 발급받은 Access Token (일반 API용)
+    @Value("${kis.api.token-refresh-margin-seconds:3600}")
+    private long tokenRefreshMarginSeconds; // 만료 전 미리 갱신을 시작할 여유 시간
+
+    @Value("${kis.api.token-retry-cooldown-seconds:60}")
+    private long tokenRetryCooldownSeconds; // 발급 실패 후 재발급을 시도하지 않는 시간 (KIS 접근토큰 발급은 분당 1회)
+
+    private volatile AccessToken accessToken; // 발급받은 Access Token (일반 API용)
+    private Mono<String> tokenRequest; // 진행 중인 토큰 발급 (this 잠금 안에서만 변경)
+    private Throwable tokenFailure; // 직전 발급 실패 (this 잠금 안에서만 변경)
+    private long tokenRetryAt; // 이 시각(epoch millis) 전에는 발급하지 않고 tokenFailure를 반환
     private String approvalKey; // 발급받은 Approval Key (웹소켓용)
     private WebClient webClient;
 
@@ -39,17 +48,83 @@ public class KisAuthService {
     @PostConstruct
     public void init() {
         this.webClient = WebClient.builder().baseUrl(baseUrl).build();
-        refreshAccessToken();
+        refreshAccessTokenIfExpiring();
         refreshApprovalKey();
     }
 
     // --- Access Token 관리 ---
 
     /**
-     * 비동기로 Access Token을 갱신합니다.
+     * 유효한 Access Token을 반환합니다. (블로킹 없음)
+     * 만료 여유 시간 안으로 들어온 토큰은 그대로 반환하면서 백그라운드에서 한 번만 갱신하고,
+     * 토큰이 없거나 만료되었으면 진행 중인 발급 하나를 모든 호출자가 공유합니다.
+     */
+    public Mono<String> accessToken() {
+        AccessToken current = accessToken;
+        long now = System.currentTimeMillis();
+        if (current != null && now < current.refreshAt) return Mono.just(current.value);
+        if (current != null && now < current.expiresAt) {
+            refreshAccessTokenIfExpiring();
+            return Mono.just(current.value);
+        }
+        return sharedTokenRequest();
+    }
+
+    /**
+     * KIS가 rejectedToken을 거절했을 때(만료/무효) 호출합니다.
+     * 이미 다른 호출자가 새 토큰으로 바꿨으면 그 토큰을, 아니면 강제로 새로 발급받은 토큰을 반환합니다.
      */
-    public void refreshAccessToken() {
-        requestToken().subscribe(response -> { this.accessToken = response.getAccessToken(); }, error -> log.error("Failed to refresh access token", error));
+    public Mono<String> refreshAccessToken(String rejectedToken) {
+        synchronized (this) {
+            AccessToken current = accessToken;
+            if (current != null && !current.value.equals(rejectedToken)) return Mono.just(current.value);
+            if (current != null) log.warn("Access token rejected by KIS. Forcing refresh.");
+            accessToken = null;
+        }
+        return sharedTokenRequest();
+    }
+
+    /**
+     * 토큰이 없거나 만료 여유 시간 안이면 백그라운드로 갱신합니다. (이미 발급 중이면 아무것도 하지 않음)
+     */
+    public void refreshAccessTokenIfExpiring() {
+        AccessToken current = accessToken;
+        if (current != null && System.currentTimeMillis() < current.refreshAt) return;
+        synchronized (this) {
+            if (tokenRequest != null || System.currentTimeMillis() < tokenRetryAt) return;
+        }
+        sharedTokenRequest().subscribe(token -> {}, error -> log.error("Failed to refresh access token: {}", error.getMessage()));
+    }
+
+    // 진행 중인 발급이 있으면 공유, 없으면 새로 시작 (결과는 발급이 끝날 때까지만 공유)
+    // 발급에 실패하면 대기 시간 동안은 KIS를 다시 호출하지 않고 같은 오류를 반환
+    private synchronized Mono<String> sharedTokenRequest() {
+        if (tokenRequest == null && System.currentTimeMillis() < tokenRetryAt) return Mono.error(tokenFailure);
+        if (tokenRequest == null) {
+            tokenRequest = requestToken()
+                    .filter(response -> response.getAccessToken() != null)
+                    .switchIfEmpty(Mono.error(() -> new IllegalStateException("KIS access token unavailable")))
+                    .map(response -> {
+                        AccessToken issued = new AccessToken(response.getAccessToken(), response.getExpiresIn(), tokenRefreshMarginSeconds);
+                        this.accessToken = issued;
+                        log.info("Access token valid until {}", java.time.Instant.ofEpochMilli(issued.expiresAt));
+                        return issued.value;
+                    })
+                    .doOnError(error -> {
+                        synchronized (this) {
+                            tokenFailure = error;
+                            tokenRetryAt = System.currentTimeMillis() + tokenRetryCooldownSeconds * 1000;
+                        }
+                        log.warn("Access token issuance failed. Next attempt in {}s.", tokenRetryCooldownSeconds);
+                    })
+                    .doFinally(signal -> {
+                        synchronized (this) {
+                            tokenRequest = null;
+                        }
+                    })
+                    .cache();
+        }
+        return tokenRequest;
     }
 
     // 토큰 발급 API 호출
@@ -82,22 +157,6 @@ public class KisAuthService {
                 });
     }
 
-    /**
-     * 현재 유효한 Access Token을 반환합니다.
-     * 토큰이 없을 경우 동기적으로 발급을 시도합니다.
-     */
-    public synchronized String getAccessToken() {
-        if (accessToken == null) {
-            try { 
-                KisTokenResponse response = requestToken().block(); 
-                if (response != null) this.accessToken = response.getAccessToken(); 
-            } catch (Exception e) {
-                log.error("Error fetching access token synchronously", e);
-            }
-        }
-        return accessToken;
-    }
-    
     public String getAppKey() { return appKey; }
     public String getAppSecret() { return appSecret; }
     public String getBaseUrl() { return baseUrl; }
@@ -123,13 +182,22 @@ public class KisAuthService {
         return requestApprovalKey().doOnNext(key -> this.approvalKey = key);
     }
 
+    /**
+     * 웹소켓 세션 전용 Approval Key를 새로 발급받습니다.
+     * 세션(샤드)마다 별도 키를 사용하므로 공용 키 캐시는 갱신하지 않습니다.
+     */
+    public Mono<String> issueApprovalKey() {
+        return requestApprovalKey();
+    }
+
     /**
      * 현재 접근 토큰을 폐기(Revoke)하고 모든 인증 정보를 초기화합니다.
      */
     public Mono<String> fullResetAuth() {
         log.error("!!! FULL AUTH RESET INITIATED (Revoke + TokenP + Approval) !!!");
         
-        String tokenToRevoke = this.accessToken;
+        AccessToken current = this.accessToken;
+        String tokenToRevoke = current == null ? null : current.value;
         this.accessToken = null;
         this.approvalKey = null;
 
@@ -158,8 +226,8 @@ public class KisAuthService {
                 .delayElement(java.time.Duration.ofSeconds(2))
                 .then(requestToken())
                 .doOnNext(res -> {
-                    this.accessToken = res.getAccessToken();
-                    log.info("New Access Token obtained: {}", this.accessToken);
+                    this.accessToken = new AccessToken(res.getAccessToken(), res.getExpiresIn(), tokenRefreshMarginSeconds);
+                    log.info("New Access Token obtained: {}", res.getAccessToken());
                 })
                 .delayElement(java.time.Duration.ofSeconds(1))
                 .then(requestApprovalKey())
@@ -225,4 +293,24 @@ public class KisAuthService {
         return requestApprovalKey()
                 .doOnNext(key -> this.approvalKey = key);
     }
-}
\ No newline at end of file
+
+    /**
+     * 발급받은 Access Token과 만료/갱신 시각
+     */
+    private static final class AccessToken {
+        private static final long DEFAULT_EXPIRES_SECONDS = 86400; // KIS 접근토큰 기본 유효기간 (24시간)
+        private static final long EXPIRY_SKEW_MS = 60_000; // 만료 직전 토큰은 쓰지 않음
+
+        final String value;
+        final long expiresAt; // 이 시각 이후에는 새로 발급받을 때까지 대기
+        final long refreshAt; // 이 시각 이후에는 기존 토큰을 쓰면서 백그라운드 갱신
+
+        AccessToken(String value, long expiresInSeconds, long refreshMarginSeconds) {
+            long now = System.currentTimeMillis();
+            long lifetimeMs = (expiresInSeconds > 0 ? expiresInSeconds : DEFAULT_EXPIRES_SECONDS) * 1000;
+            this.value = value;
+            this.expiresAt = now + Math.max(lifetimeMs - EXPIRY_SKEW_MS, 0);
+            this.refreshAt = now + Math.max(lifetimeMs - refreshMarginSeconds * 1000, lifetimeMs / 2);
+        }
+    }
+}
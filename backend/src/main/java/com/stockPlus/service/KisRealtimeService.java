@@ -1,45 +1,91 @@
 package com.stockPlus.service;
 
-import com.stockPlus.domain.StockPriceDto;
 import com.stockPlus.domain.Watchlist;
 import com.stockPlus.mapper.WatchlistMapper;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockPlus.service.kis.KisRateGovernor;
+import com.stockPlus.service.kis.MarketCalendar;
+import com.stockPlus.service.realtime.ConsistentHashRing;
+import com.stockPlus.service.realtime.Exchange;
+import com.stockPlus.service.realtime.KisFrameParser;
+import com.stockPlus.service.realtime.KisSessionShard;
+import com.stockPlus.service.realtime.LastValueCache;
+import com.stockPlus.service.realtime.PriceSign;
+import com.stockPlus.service.realtime.RealtimeTick;
+import com.stockPlus.service.realtime.StaleSymbolTracker;
+import com.stockPlus.service.realtime.SubscriptionRegistry;
+import com.stockPlus.service.realtime.TickConsolidator;
+import com.stockPlus.service.realtime.TickRingBuffer;
+import com.stockPlus.service.realtime.TickRouter;
+import com.stockPlus.service.realtime.replay.KisStandInServer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.socket.WebSocketMessage;
-import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
-import org.springframework.web.reactive.socket.client.WebSocketClient;
-import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
 import jakarta.annotation.PostConstruct;
 import java.net.URI;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 한국투자증권(KIS) 웹소켓 API를 통해 실시간 주가 데이터를 수신하는 서비스입니다.
  * 웹소켓 연결 관리, 구독(Subscription) 처리, 수신 메시지 파싱 및 전파를 담당합니다.
+ *
+ * 세션당 등록 가능한 구독 수 제한을 넘기 위해 여러 세션(샤드)을 두고,
+ * 종목을 consistent hash로 샤드에 배정합니다. 모든 샤드의 틱은 같은 TickRingBuffer로 공개됩니다.
+ *
+ * 세션이 끊기면 그 세션의 종목을 stale로 표시하고 다른 세션으로 옮기거나 재연결 후 재구독하며,
+ * 재구독이 전송된 뒤 REST 현재가로 끊긴 동안의 최신값을 보정(gap-fill)한 다음 stale을 해제합니다.
  */
 @Service
 @Slf4j
-public class KisRealtimeService {
+public class KisRealtimeService implements KisSessionShard.Listener {
 
     private final KisAuthService kisAuthService;
-    private final Sinks.Many<StockPriceDto> stockPriceSink; // 전역 주가 데이터 브로드캐스팅 채널
+    private final TickRingBuffer tickRing; // 전역 실시간 틱 분배 링 버퍼 (SSE 라우터, 저널, 분봉 소비자)
     private final WatchlistMapper watchlistMapper; // 초기 구독 목록 로딩용
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private Disposable webSocketSession; // 웹소켓 세션 구독 관리
-    private long lastConnectTime = 0; // [추가] 마지막 연결 시도 시간 체크용
-    
-    // 동적 구독 추가/삭제를 처리하는 Sink (멀티캐스트 지원, 자동 종료 방지 설정)
-    private final Sinks.Many<Map.Entry<Watchlist, String>> subscriptionSink = Sinks.many().multicast().onBackpressureBuffer(256, false);
+    private final LastValueCache lastValueCache; // 종목별 최신 시세 캐시
+    private final SubscriptionRegistry subscriptionRegistry; // 구독 참조 카운트 (재연결 시 재등록 기준)
+    private final TickConsolidator tickConsolidator; // KRX/NXT 체결 -> 통합(UN) 틱
+    private final KisStockService kisStockService; // 재연결 후 REST 현재가 보정용
+    private final StaleSymbolTracker staleSymbolTracker; // 세션 유실로 실시간 시세가 끊긴 종목
+
+    // 웹소켓 세션 풀
+    private final List<KisSessionShard> shards = new ArrayList<>();
+    private final ConsistentHashRing ring;
+    private final int maxSubscriptionsPerSession; // 세션당 최대 등록 수 (KIS 제한)
+    private Map<String, Integer> assignments = new HashMap<>(); // 종목코드 -> 샤드 인덱스
+    private int[] shardLoad; // 샤드별 등록 수
+    private int unassignedSymbols; // 자리가 없어 배정되지 못한 활성 종목 수
+    private final boolean replayMode; // 로컬 KIS 대역 서버 접속 여부 (휴장일 체크 생략)
+
+    // 실시간 데이터 필드 인덱스 (공통: 0 종목코드, 1 체결시간)
+    private static final int FIELD_CODE = 0, FIELD_TIME = 1;
+    // 체결(CNT0) / 업종지수(UPANC0): 2 현재가, 3 부호, 4 대비, 5 등락률, 13/8 누적거래량
+    private static final int CNT_PRICE = 2, CNT_SIGN = 3, CNT_CHANGE = 4, CNT_RATE = 5, CNT_VOLUME = 13, IDX_VOLUME = 8;
+    // 예상체결(ANC0): 47 예상체결가, 48 대비, 49 부호, 50 등락률, 51 예상거래량
+    private static final int ANC_PRICE = 47, ANC_CHANGE = 48, ANC_SIGN = 49, ANC_RATE = 50, ANC_VOLUME = 51;
+
+    // 항상 구독하는 시장 지수 (코스피, 코스닥)
+    private static final List<String> INDEX_CODES = List.of("0001", "1001");
+    // 종목 하나당 구독하는 TR: KRX 체결, 통합 예상체결, NXT 체결/예상체결
+    // 통합 체결(H0UNCNT0)은 KRX/NXT 체결로 TickConsolidator가 직접 만들므로 구독하지 않음
+    private static final List<String> STOCK_TR_IDS = List.of("H0STCNT0", "H0UNANC0", "H0NXCNT0", "H0NXANC0");
+    // 샤드당 consistent hash 링 가상 노드 수
+    private static final int VIRTUAL_NODES = 64;
+    // gap-fill: 재구독 전송 완료 대기 (확인 주기, 최대 대기), REST 동시 조회 수
+    private static final Duration GAP_FILL_POLL = Duration.ofMillis(200);
+    private static final Duration GAP_FILL_WAIT = Duration.ofSeconds(30);
+    private static final int GAP_FILL_CONCURRENCY = 4;
 
     /**
      * 애플리케이션 종료 시 호출되어 KIS 웹소켓 연결을 안전하게 닫습니다.
@@ -47,7 +93,7 @@ public class KisRealtimeService {
      */
     @jakarta.annotation.PreDestroy
     public void shutdown() {
-        log.info(">>> Graceful Shutdown: Closing KIS WebSocket session to prevent ghost sessions.");
+        log.info(">>> Graceful Shutdown: Closing KIS WebSocket sessions to prevent ghost sessions.");
         disconnect();
     }
 
@@ -63,19 +109,53 @@ public class KisRealtimeService {
         });
     }
 
-    public KisRealtimeService(KisAuthService kisAuthService, Sinks.Many<StockPriceDto> stockPriceSink, WatchlistMapper watchlistMapper) {
+    public KisRealtimeService(KisAuthService kisAuthService, TickRingBuffer tickRing, WatchlistMapper watchlistMapper,
+                              LastValueCache lastValueCache, SubscriptionRegistry subscriptionRegistry, TickRouter tickRouter,
+                              TickConsolidator tickConsolidator, KisStockService kisStockService,
+                              StaleSymbolTracker staleSymbolTracker,
+                              @Value("${realtime.ws.url:ws://ops.koreainvestment.com:21000}") String webSocketUrl,
+                              @Value("${realtime.ws.sessions:4}") int sessions,
+                              @Value("${realtime.ws.max-subscriptions-per-session:41}") int maxSubscriptionsPerSession,
+                              @Value("${realtime.ws.subscribe.rate-per-second:20}") double subscribeRate,
+                              @Value("${realtime.ws.subscribe.burst:20}") int subscribeBurst,
+                              @Value("${realtime.ws.subscribe.initial-delay-ms:2000}") long subscribeInitialDelayMs,
+                              ObjectProvider<KisStandInServer> standInServer) {
         this.kisAuthService = kisAuthService;
-        this.stockPriceSink = stockPriceSink;
+        this.tickRing = tickRing;
         this.watchlistMapper = watchlistMapper;
+        this.lastValueCache = lastValueCache;
+        this.subscriptionRegistry = subscriptionRegistry;
+        this.tickConsolidator = tickConsolidator;
+        this.kisStockService = kisStockService;
+        this.staleSymbolTracker = staleSymbolTracker;
+        this.maxSubscriptionsPerSession = maxSubscriptionsPerSession;
+
+        int shardCount = Math.max(1, sessions);
+        // 재생 모드: 실제 KIS 대신 로컬 대역 서버에 접속하고 접속키 발급도 생략
+        KisStandInServer standIn = standInServer.getIfAvailable();
+        this.replayMode = standIn != null;
+        URI uri = replayMode ? standIn.getUri() : URI.create(webSocketUrl);
+        KisSessionShard.Pacing pacing = new KisSessionShard.Pacing(subscribeRate, subscribeBurst, subscribeInitialDelayMs);
+        // 지수와 현재 클라이언트가 보고 있는 종목을 먼저 구독
+        java.util.function.Predicate<String> priority = code -> INDEX_CODES.contains(code) || tickRouter.subscriberCount(code) > 0;
+        for (int i = 0; i < shardCount; i++) {
+            String replayKey = "replay-" + i;
+            java.util.function.Supplier<Mono<String>> approvalKey = replayMode ? () -> Mono.just(replayKey) : kisAuthService::issueApprovalKey;
+            shards.add(new KisSessionShard(i, uri, approvalKey, this::handleDataFrame, this, priority, pacing));
+        }
+        this.ring = new ConsistentHashRing(shardCount, VIRTUAL_NODES);
+        this.shardLoad = new int[shardCount];
     }
 
     /**
      * 서비스 시작 시 초기화 및 웹소켓 연결 시도
+     * 구독 참조 카운트는 즐겨찾기 변경이 들어오기 전에 여기서 한 번 적재합니다.
      */
     @PostConstruct
     public void init() {
         log.error("Initializing KisRealtimeService... (Force Log)");
-        if (isMarketOpen()) {
+        loadSubscriptions();
+        if (replayMode || isMarketOpen()) {
             connect();
         } else {
             log.info("Market is closed today. Skipping initial connection.");
@@ -88,7 +168,7 @@ public class KisRealtimeService {
     @Scheduled(cron = "0 0 8 * * MON-FRI", zone = "Asia/Seoul")
     public void start() {
         log.info("Scheduled start check of KisRealtimeService");
-        if (isMarketOpen()) {
+        if (replayMode || isMarketOpen()) {
             connect();
         } else {
             log.info("Today is a holiday. Connection skipped.");
@@ -108,32 +188,13 @@ public class KisRealtimeService {
             return false;
         }
 
-        // 2. 2026년 지정된 휴장일 체크 (YYYY-MM-DD)
-        List<String> holidays = java.util.Arrays.asList(
-            "2026-02-16", "2026-02-17", "2026-02-18", // 설날 연휴
-            "2026-03-02", // 삼일절 대체공휴일
-            "2026-05-01", // 근로자의 날
-            "2026-05-05", // 어린이날
-            "2026-05-25", // 석가탄신일
-            "2026-06-03", // 지방선거
-            "2026-07-17", // 제헌절
-            "2026-08-17", // 광복절 대체공휴일
-            "2026-09-24", "2026-09-25", // 추석 연휴
-            "2026-10-05", // 개천절 대체공휴일
-            "2026-10-09", // 한글날
-            "2026-12-25", // 크리스마스
-            "2026-12-31"  // 연말 휴장일
-        );
-
-        String todayStr = today.toString();
-        for (String holiday : holidays) {
-            if (todayStr.equals(holiday)) {
-                log.info("Market Closed: Holiday ({})", holiday);
-                return false;
-            }
+        // 2. 2026년 지정된 휴장일 체크
+        if (MarketCalendar.isHoliday(today)) {
+            log.info("Market Closed: Holiday ({})", today);
+            return false;
         }
 
-        log.info("Market is OPEN today ({})", todayStr);
+        log.info("Market is OPEN today ({})", today);
         return true;
     }
 
@@ -147,351 +208,412 @@ public class KisRealtimeService {
     }
     
     /**
-     * 실시간으로 관심 종목 구독을 추가합니다.
+     * 관심 종목 실시간 구독 참조를 추가합니다.
+     * 해당 종목을 처음 구독하는 경우에만 배정된 세션으로 KIS 등록 요청을 보냅니다.
      * @param item 구독할 관심 종목 정보
      */
     public void addSubscription(Watchlist item) {
-        log.info("Adding dynamic subscription for: {}", item.getStockCode());
-        // '1'은 구독 추가(Add)를 의미하는 내부 플래그
-        subscriptionSink.tryEmitNext(Map.entry(item, "1"));
-        
-        // 코스피(J) 종목인 경우, 야간 시장(NX) 데이터도 함께 구독 시도
-        if ("J".equals(item.getExchangeCode()) || item.getExchangeCode() == null) {
-            Watchlist nxItem = new Watchlist();
-            nxItem.setStockCode(item.getStockCode());
-            nxItem.setExchangeCode("NX");
-            subscriptionSink.tryEmitNext(Map.entry(nxItem, "1"));   // NX 체결
-            subscriptionSink.tryEmitNext(Map.entry(nxItem, "ANC")); // NX 호가/예상체결
-        }
+        List<SubscriptionRegistry.Key> activated = subscriptionRegistry.acquire(stockKeys(item.getStockCode()));
+        log.info("Adding subscription reference for: {} (new TRs: {})", item.getStockCode(), activated.size());
+        if (!activated.isEmpty()) assignAndSubscribe(item.getStockCode(), activated);
     }
-    
+
     /**
-     * 실시간으로 관심 종목 구독을 해제합니다.
+     * 관심 종목 실시간 구독 참조를 해제합니다.
+     * 마지막 참조가 해제된 경우에만 배정된 세션으로 KIS 해제 요청을 보냅니다.
      * @param item 구독 해제할 관심 종목 정보
      */
     public void removeSubscription(Watchlist item) {
-        log.info("Removing subscription for: {}", item.getStockCode());
-        // '2'는 구독 삭제(Remove)를 의미하는 내부 플래그
-        subscriptionSink.tryEmitNext(Map.entry(item, "2"));
-        
-        if ("J".equals(item.getExchangeCode()) || item.getExchangeCode() == null) {
-            Watchlist nxItem = new Watchlist();
-            nxItem.setStockCode(item.getStockCode());
-            nxItem.setExchangeCode("NX");
-            subscriptionSink.tryEmitNext(Map.entry(nxItem, "2"));   // NX 체결 해제
-            
-            // ANC 해제는 tr_type=2로 직접 구성해야 함. resolveTrId와 buildSubscriptionMessageWithTrId 연동 고려
-            // 현재 buildSubscriptionMessageWithTrId는 entry.getValue()가 "2"면 tr_type=2로 설정함.
-            // "NXANC_DEL" 같은 임시 플래그를 사용하여 resolveTrId에서는 ANC를 반환하고, build...에서는 2를 반환하게 할 수 있음.
-            Watchlist nxAncDel = new Watchlist();
-            nxAncDel.setStockCode(item.getStockCode());
-            nxAncDel.setExchangeCode("NX");
-            subscriptionSink.tryEmitNext(Map.entry(nxAncDel, "NXANC_DEL"));
-        }
+        List<SubscriptionRegistry.Key> deactivated = subscriptionRegistry.release(stockKeys(item.getStockCode()));
+        log.info("Removing subscription reference for: {} (released TRs: {})", item.getStockCode(), deactivated.size());
+        if (!deactivated.isEmpty()) unsubscribeAndRelease(item.getStockCode(), deactivated);
     }
 
     /**
-     * KIS 웹소켓 서버에 연결합니다.
-     * 접속키(Approval Key)를 먼저 발급받은 후 연결을 진행합니다.
+     * 서비스 시작 시 1회 전체 사용자의 즐겨찾기로 구독 참조 카운트를 초기화합니다.
+     * 즐겨찾기 변경(DB 반영 후 add/removeSubscription 호출)보다 먼저 적재해야 같은 행이 두 번 세어지거나 빠지지 않습니다.
+     * 이후 연결/재연결은 레지스트리의 활성 구독 목록을 그대로 재전송하므로 DB를 다시 조회하지 않습니다.
      */
-    public void connect() {
-        // [보안] 연결 간격 최소 1초 보장 (한투 가이드 준수)
-        long now = System.currentTimeMillis();
-        if (now - lastConnectTime < 1000) {
-            long delay = 1000 - (now - lastConnectTime);
-            Mono.delay(Duration.ofMillis(delay)).subscribe(v -> connect());
-            return;
+    private synchronized void loadSubscriptions() {
+        List<SubscriptionRegistry.Key> keys = new ArrayList<>();
+        // 시장 지수는 항상 구독 (기존과 동일하게 체결 TR로 요청)
+        for (String code : INDEX_CODES) keys.add(new SubscriptionRegistry.Key("H0STCNT0", code));
+        subscriptionRegistry.acquire(keys);
+
+        // 즐겨찾기 행(사용자/그룹) 하나가 참조 하나
+        List<Watchlist> favorites = watchlistMapper.findAllFavoriteEntries();
+        for (Watchlist w : favorites) subscriptionRegistry.acquire(stockKeys(w.getStockCode()));
+        log.info("Subscription registry loaded: {} favorite entries, {} active TRs", favorites.size(), subscriptionRegistry.size());
+        int capacity = shards.size() * maxSubscriptionsPerSession;
+        if (subscriptionRegistry.size() > capacity) {
+            log.warn("Active TRs ({}) exceed KIS session capacity ({} sessions x {}). Set realtime.ws.sessions to at least {}.",
+                    subscriptionRegistry.size(), shards.size(), maxSubscriptionsPerSession,
+                    (subscriptionRegistry.size() + maxSubscriptionsPerSession - 1) / maxSubscriptionsPerSession);
         }
-        lastConnectTime = now;
-
-        log.error("Attempting to connect to KIS WebSocket with FRESH Approval Key...");
-        
-        kisAuthService.forceRefreshApprovalKey()
-            .doOnNext(key -> log.info("Received FRESH Approval Key: {}", key != null ? "YES" : "NO"))
-            .retryWhen(reactor.util.retry.Retry.fixedDelay(3, java.time.Duration.ofSeconds(10))) // 최대 3회 재시도
-            .subscribe(
-                this::connectWebSocket,
-                error -> log.error("Fatal error fetching approval key: ", error)
-            );
     }
 
-    // 실제 웹소켓 클라이언트 생성 및 핸들러 등록
-    private void connectWebSocket(String approvalKey) {
-        if (webSocketSession != null && !webSocketSession.isDisposed()) {
-            log.warn("WebSocket session already exists. Disconnecting previous session.");
-            disconnect();
-        }
-
-        WebSocketClient client = new ReactorNettyWebSocketClient();
-        URI uri = URI.create("ws://ops.koreainvestment.com:21000"); 
+    private static List<SubscriptionRegistry.Key> stockKeys(String stockCode) {
+        List<SubscriptionRegistry.Key> keys = new ArrayList<>(STOCK_TR_IDS.size());
+        for (String trId : STOCK_TR_IDS) keys.add(new SubscriptionRegistry.Key(trId, stockCode));
+        return keys;
+    }
 
-        log.info("Connecting to KIS WebSocket: {}", uri);
+    // --- 세션 풀 / 종목 배정 ---
+
+    // 새로 활성화된 구독을 종목의 샤드로 전송 (미배정 종목이면 링 순서대로 여유 있는 샤드에 배정)
+    private synchronized void assignAndSubscribe(String stockCode, List<SubscriptionRegistry.Key> keys) {
+        Integer shard = assignments.get(stockCode);
+        if (shard == null) {
+            shard = pickShard(stockCode, keys.size(), shardLoad);
+            if (shard < 0) {
+                log.warn("No KIS session has room for {} ({} TRs). Increase realtime.ws.sessions.", stockCode, keys.size());
+                unassignedSymbols = countUnassigned(activeKeysBySymbol());
+                return;
+            }
+            assignments.put(stockCode, shard);
+        }
+        shardLoad[shard] += keys.size();
+        for (SubscriptionRegistry.Key key : keys) shards.get(shard).send(key, "1");
+    }
 
-        webSocketSession = client.execute(uri, session -> {
-            log.info("WebSocket connected. Session id: {}", session.getId());
+    // 해제된 구독을 종목의 샤드로 전송하고, 남은 구독이 없으면 배정 해제 (여유가 생기면 미배정 종목 배정 재시도)
+    private synchronized void unsubscribeAndRelease(String stockCode, List<SubscriptionRegistry.Key> keys) {
+        Integer shard = assignments.get(stockCode);
+        if (shard != null) {
+            for (SubscriptionRegistry.Key key : keys) shards.get(shard).send(key, "2");
+            shardLoad[shard] -= keys.size();
+            if (subscriptionRegistry.keysOf(stockCode).isEmpty()) assignments.remove(stockCode);
+        }
+        if (unassignedSymbols > 0) assignUnassigned();
+    }
 
-            // 1. 구독 목록 구성 로직 (기존 동일)
-            List<Watchlist> allFavorites = watchlistMapper.findAllGlobal().stream()
-                    .filter(w -> Boolean.TRUE.equals(w.getIsFavorite()))
-                    .collect(java.util.stream.Collectors.toList());
+    /**
+     * 자리가 없어 배정되지 못한 활성 종목을 활성 구독 순서대로 다시 배정하고 등록을 전송합니다.
+     * 이미 배정된 종목은 옮기지 않으며, 새로 배정된 종목은 등록 전송 후 REST 현재가로 보정합니다.
+     */
+    private synchronized void assignUnassigned() {
+        Map<String, List<SubscriptionRegistry.Key>> bySymbol = activeKeysBySymbol();
+        Map<Integer, List<String>> assignedTo = new HashMap<>();
+        for (Map.Entry<String, List<SubscriptionRegistry.Key>> entry : bySymbol.entrySet()) {
+            if (assignments.containsKey(entry.getKey())) continue;
+            int shard = pickShard(entry.getKey(), entry.getValue().size(), shardLoad);
+            if (shard < 0) continue;
+            assignments.put(entry.getKey(), shard);
+            shardLoad[shard] += entry.getValue().size();
+            for (SubscriptionRegistry.Key key : entry.getValue()) shards.get(shard).send(key, "1");
+            assignedTo.computeIfAbsent(shard, k -> new ArrayList<>()).add(entry.getKey());
+        }
+        unassignedSymbols = countUnassigned(bySymbol);
+        if (!assignedTo.isEmpty()) {
+            log.info("Assigned previously unassigned symbols: {}, {} still unassigned", assignedTo, unassignedSymbols);
+            assignedTo.forEach((shard, codes) -> gapFill(shards.get(shard), codes));
+        }
+    }
 
-            Map<String, Watchlist> uniqueMap = new HashMap<>();
-            for (Watchlist w : allFavorites) uniqueMap.putIfAbsent(w.getStockCode(), w);
-            List<Watchlist> favoriteStocks = new ArrayList<>(uniqueMap.values());
-            
-            Watchlist kospi = new Watchlist(); kospi.setStockCode("0001"); kospi.setExchangeCode("IDX");
-            Watchlist kosdaq = new Watchlist(); kosdaq.setStockCode("1001"); kosdaq.setExchangeCode("IDX");
-            List<Watchlist> indices = java.util.Arrays.asList(kospi, kosdaq);
-            
-            Flux<Map.Entry<Watchlist, String>> initialSubs = Flux.concat(
-                Flux.fromIterable(indices).map(idx -> Map.entry(idx, "CNT")),
-                Flux.fromIterable(favoriteStocks).flatMap(item -> {
-                    Watchlist krxItem = new Watchlist(); krxItem.setStockCode(item.getStockCode()); krxItem.setExchangeCode("J");
-                    Watchlist unItem = new Watchlist(); unItem.setStockCode(item.getStockCode()); unItem.setExchangeCode("UN");
-                    Watchlist nxItem = new Watchlist(); nxItem.setStockCode(item.getStockCode()); nxItem.setExchangeCode("NX");
-                    return Flux.just(
-                        Map.entry(krxItem, "CNT"), 
-                        Map.entry(unItem, "CNT"), 
-                        Map.entry(unItem, "ANC"),
-                        Map.entry(nxItem, "CNT"),
-                        Map.entry(nxItem, "ANC")
-                    );
-                })
-            );            
-
-            // 초기 구독 + 동적 구독 병합 (간격 100ms로 확대하여 안정성 확보)
-            Flux<Map.Entry<Watchlist, String>> allSubs = Flux.concat(initialSubs, subscriptionSink.asFlux())
-                    .delayElements(java.time.Duration.ofMillis(100));
-
-            // 2. 메시지 수신 처리
-            Mono<Void> receive = session.receive()
-                    .map(WebSocketMessage::getPayloadAsText)
-                    .doOnNext(this::handleMessage)
-                    .doOnError(e -> log.error("WebSocket Receive Error: ", e))
-                    .then();
-
-            // 3. 구독 요청 전송 및 세션 유지 (Keep-Alive)
-            // [중요] Flux.never()를 merge하여 세션이 스스로 종료되지 않도록 함
-            Mono<Void> send = session.send(
-                Flux.merge(
-                    allSubs.delaySubscription(java.time.Duration.ofSeconds(2)) // 접속 확인 후 2초 대기 (가이드 준수)
-                        .map(entry -> {
-                            String trId = resolveTrId(entry.getKey().getExchangeCode(), entry.getValue().equals("1") || entry.getValue().equals("2") ? "CNT" : entry.getValue());
-                            if (trId == null) return session.textMessage("");
-                            String msg = buildSubscriptionMessageWithTrId(approvalKey, entry.getKey(), entry.getValue(), trId);
-                            log.info("Subscription Request: {} ({})", entry.getKey().getStockCode(), trId);
-                            return session.textMessage(msg);
-                        })
-                        .filter(msg -> !msg.getPayloadAsText().isEmpty()),
-                    Flux.never() // 스트림이 완료되지 않도록 무한 대기
-                )
-            ).doOnError(e -> log.error("WebSocket Send Error: ", e));
-
-            return Mono.zip(receive, send).then();
-        }).subscribe(
-                null,
-                error -> {
-                    log.error("WebSocket runtime error: {}. Reconnecting in 60s...", error.getMessage());
-                    Mono.delay(java.time.Duration.ofSeconds(60)).subscribe(v -> connect());
-                },
-                () -> {
-                    log.info("WebSocket connection closed. Reconnecting in 30s...");
-                    Mono.delay(java.time.Duration.ofSeconds(30)).subscribe(v -> connect());
-                }
-        );
+    private int countUnassigned(Map<String, List<SubscriptionRegistry.Key>> bySymbol) {
+        int count = 0;
+        for (String symbol : bySymbol.keySet()) {
+            if (!assignments.containsKey(symbol)) count++;
+        }
+        return count;
     }
-    
-    private void disconnect() {
-        if (webSocketSession != null && !webSocketSession.isDisposed()) {
-            webSocketSession.dispose();
-            log.info("WebSocket disconnected.");
+
+    // 링 선호 순서대로 살아있고 여유가 있는 샤드 선택 (없으면 -1)
+    private int pickShard(String stockCode, int cost, int[] load) {
+        for (int candidate : ring.candidates(stockCode)) {
+            if (shards.get(candidate).isHealthy() && load[candidate] + cost <= maxSubscriptionsPerSession) return candidate;
         }
+        return -1;
     }
 
-    // 시장 구분과 데이터 타입에 따른 TR ID 결정
-    private String resolveTrId(String exchangeCode, String type) {
-        if ("UPANC".equals(type)) return "H0UPANC0"; // 업종 지수
-        if ("J".equals(exchangeCode) || exchangeCode == null) {
-            if ("CNT".equals(type)) return "H0STCNT0"; // 국내주식 체결
-            if ("ANC".equals(type)) return "H0STANC0"; // 국내주식 호가/예상체결
+    /**
+     * 현재 살아있는 샤드 기준으로 전체 종목 배정을 다시 계산하고, 이동한 종목만 해제/등록을 전송합니다.
+     * 배정은 활성 구독 순서(지수 -> 즐겨찾기)와 링 순서로만 결정되므로 샤드 구성이 같으면 결과도 같습니다.
+     * @param replaying 곧 배정 구독 전체를 재전송할 샤드 (중복 전송 방지용, 없으면 null)
+     * @return 다른 샤드로 이동한 종목 (이동한 샤드 인덱스 -> 종목코드 목록)
+     */
+    private synchronized Map<Integer, List<String>> rebalance(KisSessionShard replaying) {
+        Map<String, List<SubscriptionRegistry.Key>> bySymbol = activeKeysBySymbol();
+        int[] load = new int[shards.size()];
+        Map<String, Integer> next = new HashMap<>();
+        int unassigned = 0;
+        for (Map.Entry<String, List<SubscriptionRegistry.Key>> entry : bySymbol.entrySet()) {
+            int shard = pickShard(entry.getKey(), entry.getValue().size(), load);
+            if (shard < 0) {
+                unassigned++;
+                continue;
+            }
+            next.put(entry.getKey(), shard);
+            load[shard] += entry.getValue().size();
         }
-        else if ("UN".equals(exchangeCode)) {
-            if ("CNT".equals(type)) return "H0UNCNT0"; // [수정] 국내주식 통합체결
-            if ("ANC".equals(type)) return "H0UNANC0"; // [수정] 국내주식 통합호가
+
+        Set<String> symbols = new LinkedHashSet<>(assignments.keySet());
+        symbols.addAll(next.keySet());
+        int moved = 0;
+        Map<Integer, List<String>> movedTo = new HashMap<>();
+        for (String symbol : symbols) {
+            Integer from = assignments.get(symbol);
+            Integer to = next.get(symbol);
+            if (from != null && from.equals(to)) continue;
+            List<SubscriptionRegistry.Key> keys = bySymbol.getOrDefault(symbol, List.of());
+            if (from != null && shards.get(from) != replaying) {
+                for (SubscriptionRegistry.Key key : keys) shards.get(from).send(key, "2");
+            }
+            if (to != null && shards.get(to) != replaying) {
+                for (SubscriptionRegistry.Key key : keys) shards.get(to).send(key, "1");
+            }
+            if (to != null) movedTo.computeIfAbsent(to, k -> new ArrayList<>()).add(symbol);
+            moved++;
         }
-        else if ("NX".equals(exchangeCode)) {
-            if ("CNT".equals(type)) return "H0NXCNT0"; // 야간시장 체결
-            if ("ANC".equals(type) || "NXANC_DEL".equals(type)) return "H0NXANC0";
+        assignments = next;
+        shardLoad = load;
+        unassignedSymbols = unassigned;
+
+        if (moved > 0 || unassigned > 0) {
+            log.info("Rebalanced KIS sessions: {} symbols moved, {} unassigned, loads={}", moved, unassigned, java.util.Arrays.toString(load));
         }
-        return "H0STCNT0";
+        return movedTo;
     }
 
-    // 구독 요청 JSON 메시지 생성
-    private String buildSubscriptionMessageWithTrId(String approvalKey, Watchlist item, String trType, String trId) {
-        try {
-            Map<String, Object> header = new HashMap<>();
-            header.put("approval_key", approvalKey);
-            header.put("custtype", "P"); // 개인
-            
-            // trType이 직접 "1" 또는 "2"로 오지 않는 경우(예: ANC, NXANC_DEL) 처리
-            String finalTrType = trType;
-            if ("NXANC_DEL".equals(trType)) finalTrType = "2";
-            else if (!"1".equals(trType) && !"2".equals(trType)) finalTrType = "1";
-            
-            header.put("tr_type", finalTrType); // 1: 등록, 2: 해제
-            header.put("content-type", "utf-8");
+    private Map<String, List<SubscriptionRegistry.Key>> activeKeysBySymbol() {
+        Map<String, List<SubscriptionRegistry.Key>> bySymbol = new LinkedHashMap<>();
+        for (SubscriptionRegistry.Key key : subscriptionRegistry.activeKeys()) {
+            bySymbol.computeIfAbsent(key.getTrKey(), k -> new ArrayList<>()).add(key);
+        }
+        return bySymbol;
+    }
 
-            Map<String, Object> body = new HashMap<>();
-            Map<String, Object> input = new HashMap<>();
-            input.put("tr_id", trId);
-            input.put("tr_key", item.getStockCode());
-            body.put("input", input);
+    /**
+     * 샤드 연결 완료: 배정을 다시 계산한 뒤 이 샤드에 배정된 구독 전체를 재등록합니다. (DB 조회 없음)
+     * 이 샤드로 돌아온 종목과 stale 종목은 재등록 전송 후 REST 현재가로 보정합니다.
+     */
+    @Override
+    public synchronized void onConnected(KisSessionShard shard) {
+        List<String> returned = rebalance(shard).getOrDefault(shard.getIndex(), List.of());
+        int replayed = 0;
+        List<String> gaps = new ArrayList<>();
+        for (Map.Entry<String, List<SubscriptionRegistry.Key>> entry : activeKeysBySymbol().entrySet()) {
+            Integer assigned = assignments.get(entry.getKey());
+            if (assigned == null || assigned != shard.getIndex()) continue;
+            for (SubscriptionRegistry.Key key : entry.getValue()) {
+                shard.send(key, "1");
+                replayed++;
+            }
+            if (returned.contains(entry.getKey()) || staleSymbolTracker.isStale(entry.getKey())) gaps.add(entry.getKey());
+        }
+        log.info("[Shard {}] Replaying {} active subscriptions", shard.getIndex(), replayed);
+        gapFill(shard, gaps);
+    }
 
-            Map<String, Object> messageMap = new HashMap<>();
-            messageMap.put("header", header);
-            messageMap.put("body", body);
+    /**
+     * 샤드 유실: 해당 샤드의 종목을 stale로 표시하고, 재연결을 기다리는 동안 다른 샤드로 옮긴 뒤 보정합니다.
+     * (옮길 여유가 없는 종목은 이 샤드가 재연결될 때까지 stale로 남음)
+     */
+    @Override
+    public synchronized void onLost(KisSessionShard shard) {
+        log.warn("[Shard {}] KIS session lost. Rebalancing its symbols.", shard.getIndex());
+        List<String> lost = new ArrayList<>();
+        assignments.forEach((code, assigned) -> {
+            if (assigned == shard.getIndex()) lost.add(code);
+        });
+        staleSymbolTracker.markStale(lost);
+        rebalance(null).forEach((to, codes) -> gapFill(shards.get(to), codes));
+    }
 
-            return objectMapper.writeValueAsString(messageMap);
-        } catch (Exception e) {
-            log.error("Error building subscription message", e);
-            return "";
-        }
+    /**
+     * 재구독 전송이 끝나면(대기열이 비면) 종목별 REST 현재가로 최신값을 보정하고 stale을 해제합니다.
+     * 구독 전송 후에 조회하므로 보정값과 이후 실시간 틱 사이에 빈 구간이 생기지 않습니다.
+     * 그 사이 샤드가 다시 끊기면 보정하지 않고 다음 재연결 때 처리합니다.
+     */
+    private void gapFill(KisSessionShard shard, List<String> codes) {
+        if (codes.isEmpty()) return;
+        List<String> targets = List.copyOf(codes);
+        Flux.interval(GAP_FILL_POLL)
+                .filter(i -> !shard.isConnected() || shard.pendingSubscriptions() == 0)
+                .next()
+                .timeout(GAP_FILL_WAIT, Mono.just(-1L))
+                .filter(i -> shard.isConnected())
+                .flatMapMany(i -> Flux.fromIterable(targets))
+                .flatMap(this::refreshSnapshot, GAP_FILL_CONCURRENCY)
+                .count()
+                .subscribe(
+                        filled -> log.info("[Shard {}] Gap-filled {}/{} symbols from REST snapshot", shard.getIndex(), filled, targets.size()),
+                        e -> log.warn("[Shard {}] Gap-fill failed: {}", shard.getIndex(), e.getMessage()));
+    }
+
+    // 종목 하나의 REST 현재가를 실시간 틱과 같은 경로로 공개 (주식은 KRX/NXT 각각 -> 통합 틱 생성)
+    // snapshot 틱으로 공개하므로 최신값 캐시/SSE에만 반영되고 저널/분봉에는 들어가지 않음
+    private Mono<String> refreshSnapshot(String code) {
+        Mono<Void> snapshot = INDEX_CODES.contains(code)
+                ? emitSnapshot(code, "IDX", Exchange.IDX)
+                : emitSnapshot(code, "J", Exchange.J).then(emitSnapshot(code, "NX", Exchange.NX));
+        return snapshot
+                .onErrorResume(e -> {
+                    log.debug("Gap-fill snapshot failed for {}: {}", code, e.getMessage());
+                    return Mono.empty();
+                })
+                // 조회 실패여도 구독은 복구되었으므로 stale은 해제 (이후 실시간 틱으로 갱신)
+                .doFinally(signal -> staleSymbolTracker.markFresh(List.of(code)))
+                .thenReturn(code);
     }
 
-    // 수신 메시지 핸들러
-    private void handleMessage(String message) {
-        if (message.contains("PINGPONG")) {
-            log.debug("Received PINGPONG");
-            return;
+    private Mono<Void> emitSnapshot(String code, String exchangeCode, Exchange exchange) {
+        return kisStockService.fetchUnifiedCurrentPrice(code, exchangeCode)
+                .filter(dto -> RealtimeTick.parseFixed(dto.getCurrentPrice()) > 0)
+                .doOnNext(dto -> {
+                    lastValueCache.putDetail(code, exchangeCode, dto);
+                    emit(RealtimeTick.fromDto(code, dto, exchange, System.currentTimeMillis()));
+                })
+                .then()
+                // 사용자 현재가/차트 조회보다 뒤에 호출
+                .contextWrite(KisRateGovernor.withPriority(KisRateGovernor.Priority.BATCH));
+    }
+
+    /**
+     * 모든 세션을 연결합니다. 세션마다 별도 접속키를 발급받으며 1초 간격으로 순차 연결합니다.
+     */
+    public void connect() {
+        log.info("Connecting {} KIS WebSocket session(s)...", shards.size());
+        for (KisSessionShard shard : shards) {
+            Mono.delay(Duration.ofSeconds(shard.getIndex())).subscribe(v -> shard.connect());
         }
+    }
 
-        // 구독 응답과 같은 JSON 제어 메시지 처리
-        if (message.startsWith("{") && message.contains("header")) {
-            log.info("WebSocket Control Message: {}", message);
-            
-            // 승인키 오류 감지 시 재발급 및 재연결 (2초 지연 추가로 무한 루프 방지)
-            if (message.contains("invalid approval") || message.contains("OPSP0011")) {
-                log.error("Invalid Approval Key detected! Forcing refresh and reconnecting in 2s...");
-                kisAuthService.forceRefreshApprovalKey()
-                    .delaySubscription(java.time.Duration.ofSeconds(2))
-                    .subscribe(newKey -> connect());
-            }
-            return;
+    private void disconnect() {
+        for (KisSessionShard shard : shards) shard.disconnect();
+    }
+
+    /**
+     * 세션별 상태 (배정 등록 수, 전송 대기 수, 직전 구독 전송 소요 시간)와 자리가 없어 미배정된 종목 수 - 모니터링용
+     */
+    public synchronized Map<String, Object> getSessionStatus() {
+        List<Map<String, Object>> sessions = new ArrayList<>();
+        for (KisSessionShard shard : shards) {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("session", shard.getIndex());
+            status.put("connected", shard.isConnected());
+            status.put("healthy", shard.isHealthy());
+            status.put("subscriptions", shardLoad[shard.getIndex()]);
+            status.put("pending", shard.pendingSubscriptions());
+            status.put("lastSubscribeMillis", shard.lastSubscribeMillis());
+            status.put("lostAt", shard.lostAt());
+            status.put("reconnectAttempts", shard.reconnectAttempts());
+            sessions.add(status);
         }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sessions", sessions);
+        result.put("unassignedSymbols", unassignedSymbols);
+        return result;
+    }
 
-        // [중요] 실시간 데이터 수신 로그
-        log.debug(">>> KIS Realtime Data Received: {}", message);
-        
+    // 실시간 데이터 포맷: 0(암호화여부)|TR_ID|데이터개수|데이터...
+    // 모든 샤드의 Netty IO 스레드에서 호출되며, 각 샤드는 자기 세션 전용 파서를 넘겨줍니다.
+    private void handleDataFrame(KisFrameParser parser) {
         try {
-            // 실시간 데이터 포맷: 0(암호화여부)|TR_ID|데이터개수|데이터...
-            if (message.startsWith("0|") || message.startsWith("1|")) {
-                String[] segments = message.split("\\|");
-                if (segments.length < 4) return;
-                
-                String trId = segments[1];
-                String combinedData = segments[3];
-
-                // [수정] segments[2]는 연속구분값이며 실시간 데이터에서는 레코드 개수가 0으로 올 수 있음.
-                // CNT0(체결), ANC0(예상체결)의 경우 데이터가 있으면 최소 1개 레코드로 처리.
-                int recordCount = Integer.parseInt(segments[2]);
-                if (recordCount <= 0 && (trId.contains("CNT0") || trId.contains("ANC0"))) {
-                    recordCount = 1;
-                }
-                
-                if (recordCount <= 0) return;
-                
-                // 시장 구분 식별
-                String exchangeCode = "J";
-                if (trId.contains("H0NX")) exchangeCode = "NX";
-                else if (trId.contains("H0UN")) exchangeCode = "UN";
-
-                if (trId.contains("CNT0") || trId.contains("ANC0")) {
-                    parseAndEmitMultiRow(combinedData, recordCount, trId.contains("ANC0"), exchangeCode, trId);
-                }
-                else if (trId.contains("UPANC0")) {
-                    parseAndEmitIndex(message); // 지수 파싱
-                }
+            if (parser.recordCount() <= 0) return;
+
+            // [주의] H0UPANC0도 ANC0으로 끝나므로 지수 TR을 먼저 판별
+            if (parser.trIdEquals("H0UPANC0")) {
+                parseAndEmitIndex(parser);
+                return;
             }
+
+            boolean isExpected = parser.trIdEndsWith("ANC0");
+            if (!isExpected && !parser.trIdEndsWith("CNT0")) return;
+
+            // 시장 구분 식별
+            Exchange exchange = Exchange.J;
+            if (parser.trIdStartsWith("H0NX")) exchange = Exchange.NX;
+            else if (parser.trIdStartsWith("H0UN")) exchange = Exchange.UN;
+
+            parseAndEmitMultiRow(parser, isExpected, exchange);
         } catch (Exception e) {
             log.error("Error handling WebSocket message: {}", e.getMessage());
         }
     }
 
-    // 주식 데이터 파싱 및 Sink 방출
-    private void parseAndEmitMultiRow(String combinedData, int recordCount, boolean isExpected, String exchangeCode, String trId) {
+    // 주식 데이터 파싱 및 Sink 방출 (필드를 String으로 만들지 않고 원시 타입 틱으로 변환)
+    private void parseAndEmitMultiRow(KisFrameParser parser, boolean isExpected, Exchange exchange) {
         try {
-            String[] allParts = combinedData.split("\\^");
-            // 데이터 필드 개수 계산 (전체 길이 / 레코드 수)
-            int fieldsPerRecord = allParts.length / recordCount;
-            
-            for (int i = 0; i < recordCount; i++) {
-                int offset = i * fieldsPerRecord;
-                
-                StockPriceDto dto;
-                if (trId.contains("ANC0")) {
+            long receivedAt = System.currentTimeMillis();
+            int i = 0;
+            while (parser.nextRecord(isExpected ? ANC_VOLUME : CNT_VOLUME)) {
+                RealtimeTick tick;
+                if (isExpected) {
                     // [수정] 호가/예상체결 데이터 파싱 (Index 47~50)
-                    if (allParts.length < offset + 51) continue; 
-                    
-                    dto = StockPriceDto.builder()
-                            .stockCode(allParts[offset])
-                            .exchangeCode(exchangeCode)
-                            .time(allParts[offset + 1])
-                            .currentPrice(allParts[offset + 47]) // 예상체결가
-                            .change(allParts[offset + 48])
-                            .priceSign(allParts[offset + 49])
-                            .changeRate(allParts[offset + 50])
-                            .volume(allParts.length > offset + 51 ? allParts[offset + 51] : "0")
-                            .isExpected(true)
-                            .build();
-                    
-                    if ("0".equals(dto.getCurrentPrice()) || dto.getCurrentPrice().isEmpty()) continue;
+                    if (!parser.hasField(ANC_RATE)) continue;
+                    long price = parser.fixedField(ANC_PRICE, RealtimeTick.PRICE_DECIMALS); // 예상체결가
+                    if (price == 0) continue;
+
+                    tick = new RealtimeTick(
+                            parser.symbolId(FIELD_CODE),
+                            exchange,
+                            parser.intField(FIELD_TIME),
+                            price,
+                            parser.fixedField(ANC_CHANGE, RealtimeTick.PRICE_DECIMALS),
+                            parser.fixedField(ANC_RATE, RealtimeTick.PRICE_DECIMALS),
+                            parser.hasField(ANC_VOLUME) ? parser.longField(ANC_VOLUME) : 0,
+                            PriceSign.of(parser.firstChar(ANC_SIGN)),
+                            true,
+                            receivedAt);
                 } else {
-                    if (offset + 5 >= allParts.length) break;
-                    dto = StockPriceDto.builder()
-                            .stockCode(allParts[offset]) 
-                            .exchangeCode(exchangeCode)
-                            .time(allParts[offset + 1])
-                            .currentPrice(allParts[offset + 2])
-                            .priceSign(allParts[offset + 3])
-                            .change(allParts[offset + 4])
-                            .changeRate(allParts[offset + 5])
-                            .volume(allParts.length > offset + 13 ? allParts[offset + 13] : "0")
-                            .isExpected(false)
-                            .build();
+                    if (!parser.hasField(CNT_RATE)) break;
+                    tick = new RealtimeTick(
+                            parser.symbolId(FIELD_CODE),
+                            exchange,
+                            parser.intField(FIELD_TIME),
+                            parser.fixedField(CNT_PRICE, RealtimeTick.PRICE_DECIMALS),
+                            parser.fixedField(CNT_CHANGE, RealtimeTick.PRICE_DECIMALS),
+                            parser.fixedField(CNT_RATE, RealtimeTick.PRICE_DECIMALS),
+                            parser.hasField(CNT_VOLUME) ? parser.longField(CNT_VOLUME) : 0,
+                            PriceSign.of(parser.firstChar(CNT_SIGN)),
+                            false,
+                            receivedAt);
                 }
-                            
-                if (i == 0) {
-                    log.debug("[SSE Emit] Code: {}, Price: {}, TR: {}", dto.getStockCode(), dto.getCurrentPrice(), trId);
+
+                if (i++ == 0) {
+                    log.debug("[SSE Emit] {}", tick);
                 }
-                stockPriceSink.tryEmitNext(dto);
+                emit(tick);
             }
         } catch (Exception e) {
             log.error("Error parsing multi-row stock data", e);
         }
     }
 
+    // 최신값 캐시 갱신 후 링 버퍼로 공개 (여러 샤드의 IO 스레드가 동시에 호출해도 블로킹 없음)
+    // KRX/NXT 체결은 통합(UN) 틱도 함께 공개: 저널은 거래소별 원본만, 분봉/SSE는 통합 틱만 소비
+    private void emit(RealtimeTick tick) {
+        lastValueCache.update(tick);
+        tickRing.publish(tick);
+        if (TickConsolidator.isVenueTrade(tick)) {
+            RealtimeTick consolidated = tickConsolidator.consolidate(tick);
+            lastValueCache.update(consolidated);
+            tickRing.publish(consolidated);
+        }
+    }
+
     // 지수 데이터 파싱
-    private void parseAndEmitIndex(String data) {
+    private void parseAndEmitIndex(KisFrameParser parser) {
         try {
-             String content = data.substring(data.lastIndexOf('|') + 1);
-             String[] contentParts = content.split("\\^");
-             if (contentParts.length < 6) return;
-
-             StockPriceDto dto = StockPriceDto.builder()
-                     .stockCode(contentParts[0])
-                     .exchangeCode("IDX") // Index market code
-                     .time(contentParts[1])
-                     .currentPrice(contentParts[2])
-                     .priceSign(contentParts[3])
-                     .change(contentParts[4])
-                     .changeRate(contentParts[5])
-                     .volume(contentParts.length > 8 ? contentParts[8] : "0")
-                     .build();
+             if (!parser.nextRecord(IDX_VOLUME) || !parser.hasField(CNT_RATE)) return;
+
+             RealtimeTick tick = new RealtimeTick(
+                     parser.symbolId(FIELD_CODE),
+                     Exchange.IDX, // Index market code
+                     parser.intField(FIELD_TIME),
+                     parser.fixedField(CNT_PRICE, RealtimeTick.PRICE_DECIMALS),
+                     parser.fixedField(CNT_CHANGE, RealtimeTick.PRICE_DECIMALS),
+                     parser.fixedField(CNT_RATE, RealtimeTick.PRICE_DECIMALS),
+                     parser.hasField(IDX_VOLUME) ? parser.longField(IDX_VOLUME) : 0,
+                     PriceSign.of(parser.firstChar(CNT_SIGN)),
+                     false,
+                     System.currentTimeMillis());
             
-             log.debug("Emitting index update: {}-{} -> {}", dto.getStockCode(), dto.getExchangeCode(), dto.getCurrentPrice());
-             stockPriceSink.tryEmitNext(dto);
+             log.debug("Emitting index update: {}", tick);
+             emit(tick);
         } catch (Exception e) {
              log.error("Error parsing index data", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -3,12 +3,28 @@ package com.stockPlus.service;
 import com.stockPlus.domain.StockPriceDto;
 import com.stockPlus.domain.StockChartDto;
 import com.stockPlus.domain.InvestorDto;
+import com.stockPlus.domain.StockPriceResult;
 import com.stockPlus.domain.kis.*;
+import com.stockPlus.service.chart.BarColumns;
+import com.stockPlus.service.chart.BarStore;
+import com.stockPlus.service.chart.ChartDownsampler;
+import com.stockPlus.service.chart.HistoryChartCache;
+import com.stockPlus.service.chart.KisChartDecoder;
+import com.stockPlus.service.kis.InvestorCache;
+import com.stockPlus.service.kis.KisCallCoalescer;
+import com.stockPlus.service.kis.KisRateLimitException;
+import com.stockPlus.service.kis.KisRequest;
+import com.stockPlus.service.kis.KisRestClient;
+import com.stockPlus.service.kis.MarketCalendar;
+import com.stockPlus.service.realtime.CandleBook;
+import com.stockPlus.service.realtime.LastValueCache;
+import com.stockPlus.service.realtime.RealtimeTick;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -17,54 +33,48 @@ import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 
 /**
  * 한국투자증권(KIS) REST API를 사용하여 주식 정보(현재가, 차트 등)를 조회하는 서비스입니다.
+ * 모든 KIS 호출은 KisRestClient(공용 커넥션 풀, 공통 헤더/타임아웃)를 거칩니다.
  */
 @Service
 @RequiredArgsConstructor
 public class KisStockService {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(KisStockService.class);
 
-    private final KisAuthService kisAuthService;
-    private final WebClient.Builder webClientBuilder;
-    private final ObjectMapper objectMapper;
+    private final KisRestClient kisRestClient; // 공용 커넥션 풀 KIS REST 클라이언트
+    private final KisCallCoalescer coalescer; // 동일 현재가/차트 동시 호출 공유
+    private final LastValueCache lastValueCache;
+    private final CandleBook candleBook;
+    private final HistoryChartCache historyChartCache; // 일/주/월봉 증분 캐시
+    private final BarStore barStore; // 분봉 누적 저장소
+    private final InvestorCache investorCache; // 투자자 동향 캐시
+
+    private static final ZoneId SEOUL_ZONE = ZoneId.of("Asia/Seoul");
+
+    @Value("${chart.store.intraday-days:1}")
+    private int intradayDays; // 분봉 차트에 포함할 최근 거래일 수 (1 = 마지막 분봉의 거래일)
+
+    @Value("${kis.rest.batch-concurrency:4}")
+    private int batchConcurrency; // 다중 종목 현재가 조회 시 동시 KIS 조회 수
 
     /**
      * 투자자별 매매동향 조회 (통합/개별 시장 대응) - 단일 호출로 변경
+     * 결과는 InvestorCache에 거래 시간 기준으로 보관합니다.
      */
     public Mono<InvestorDto> fetchInvestors(String stockCode, String exchangeCode) {
         // J: KRX, NX: NXT, UN: 통합 (API가 지원하는 경우)
         String marketDiv = "UN".equals(exchangeCode) ? "UN" : ("NX".equals(exchangeCode) ? "NX" : "J");
-        return fetchInvestorsInternal(stockCode, marketDiv);
+        return investorCache.get(stockCode, marketDiv, () -> fetchInvestorsInternal(stockCode, marketDiv));
     }
 
     private Mono<InvestorDto> fetchInvestorsInternal(String stockCode, String marketDiv) {
-        String token = kisAuthService.getAccessToken();
-
-        return webClientBuilder.build().get()
-                .uri(kisAuthService.getBaseUrl() + "/uapi/domestic-stock/v1/quotations/inquire-investor",
-                     uriBuilder -> uriBuilder
-                        .queryParam("FID_COND_MRKT_DIV_CODE", marketDiv)
-                        .queryParam("FID_INPUT_ISCD", stockCode)
-                        .build())
-                .header("authorization", "Bearer " + token)
-                .header("appkey", kisAuthService.getAppKey())
-                .header("appsecret", kisAuthService.getAppSecret())
-                .header("tr_id", "FHKST01010900")
-                .header("tr_cont", "N")
-                .header("content-type", "application/json")
-                .header("custtype", "P")
-                .retrieve()
-                .toEntity(JsonNode.class)
-                .flatMap(entity -> {
-                    JsonNode body = entity.getBody();
-                    if (body == null) return Mono.just(InvestorDto.builder().stockCode(stockCode).items(Collections.emptyList()).build());
-
+        return kisRestClient.retrieve(KisRequest.investor(marketDiv, stockCode), JsonNode.class)
+                .flatMap(body -> {
                     JsonNode output = body.get("output");
                     
                     // [디버깅] API 응답 데이터 로깅
@@ -92,25 +102,93 @@ public class KisStockService {
                     
                     return Mono.just(InvestorDto.builder().stockCode(stockCode).items(items).build());
                 })
-                .onErrorResume(e -> {
+                .onErrorResume(KisStockService::isFallbackError, e -> {
                     log.error("Error fetching investors: " + e.getMessage());
                     return Mono.just(InvestorDto.builder().stockCode(stockCode).items(Collections.emptyList()).build());
-                });
+                })
+                .defaultIfEmpty(InvestorDto.builder().stockCode(stockCode).items(Collections.emptyList()).build());
+    }
+
+    /**
+     * 현재가 조회 (실시간 캐시 우선)
+     * 오늘 REST로 받은 상세 시세와 신선한 실시간 틱이 모두 있으면 KIS를 호출하지 않고 캐시에서 응답합니다.
+     */
+    public Mono<StockPriceDto> fetchCurrentPrice(final String stockCode, final String exchangeCode) {
+        StockPriceDto cached = lastValueCache.getFreshPrice(stockCode, exchangeCode);
+        if (cached != null) return Mono.just(cached);
+        return fetchUnifiedCurrentPrice(stockCode, exchangeCode)
+                .doOnNext(dto -> lastValueCache.putDetail(stockCode, exchangeCode, dto));
+    }
+
+    /**
+     * 여러 종목의 현재가를 한 번에 조회합니다. (요청 순서 유지, 중복 종목은 한 번만)
+     * 실시간 캐시가 신선한 종목은 바로 반환하고, 나머지만 동시 호출 수를 제한해 KIS로 조회합니다.
+     * 종목별 실패는 결과 상태로만 표시하고 전체 응답을 실패시키지 않습니다.
+     */
+    public Mono<List<StockPriceResult>> fetchCurrentPrices(List<String> stockCodes, String exchangeCode, int maxCodes) {
+        List<String> codes = new ArrayList<>(new LinkedHashSet<>(stockCodes));
+        List<StockPriceResult> skipped = new ArrayList<>();
+        if (codes.size() > maxCodes) {
+            for (String code : codes.subList(maxCodes, codes.size())) {
+                skipped.add(StockPriceResult.builder().stockCode(code).status("SKIPPED").message("More than " + maxCodes + " codes requested").build());
+            }
+            codes = codes.subList(0, maxCodes);
+        }
+        return Flux.fromIterable(codes)
+                .flatMapSequential(code -> {
+                    StockPriceDto cached = lastValueCache.getFreshPrice(code, exchangeCode);
+                    if (cached != null) {
+                        return Mono.just(StockPriceResult.builder().stockCode(code).status("OK").source("CACHE").price(cached).build());
+                    }
+                    // 조회 실패를 "0" 가격으로 바꾸지 않는 경로로 조회하여 종목별 상태(RATE_LIMITED, ERROR)를 그대로 표시
+                    return fetchCoalescedCurrentPrice(code, exchangeCode)
+                            .map(dto -> {
+                                if (RealtimeTick.parseFixed(dto.getCurrentPrice()) <= 0) {
+                                    return StockPriceResult.builder().stockCode(code).status("UNAVAILABLE").source("KIS").build();
+                                }
+                                lastValueCache.putDetail(code, exchangeCode, dto);
+                                return StockPriceResult.builder().stockCode(code).status("OK").source("KIS").price(dto).build();
+                            })
+                            .defaultIfEmpty(StockPriceResult.builder().stockCode(code).status("UNAVAILABLE").source("KIS").build())
+                            .onErrorResume(e -> Mono.just(StockPriceResult.builder().stockCode(code)
+                                    .status(e instanceof KisRateLimitException ? "RATE_LIMITED" : "ERROR")
+                                    .source("KIS").message(e.getMessage()).build()));
+                }, batchConcurrency)
+                .concatWithValues(skipped.toArray(new StockPriceResult[0]))
+                .collectList();
     }
 
     /**
      * 통합 현재가 조회
+     * 같은 종목/거래소를 동시에 조회하는 호출은 KIS 호출 하나를 공유합니다.
+     * 조회 실패는 "0" 가격으로 대체하며, 호출 한도 거절(KisRateLimitException)만 그대로 전달합니다.
      */
     public Mono<StockPriceDto> fetchUnifiedCurrentPrice(final String stockCode, final String exchangeCode) {
+        return fetchCoalescedCurrentPrice(stockCode, exchangeCode)
+                .onErrorResume(KisStockService::isFallbackError,
+                        e -> Mono.just(StockPriceDto.builder().stockCode(stockCode).exchangeCode(exchangeCode).currentPrice("0").build()));
+    }
+
+    // 조회 실패를 대체하지 않는 공유 호출 (대체값은 공유 호출 밖에서 호출자별로 적용)
+    private Mono<StockPriceDto> fetchCoalescedCurrentPrice(final String stockCode, final String exchangeCode) {
+        return coalescer.coalesce(KisCallCoalescer.Kind.QUOTE, "price|" + stockCode + "|" + exchangeCode,
+                () -> loadUnifiedCurrentPrice(stockCode, exchangeCode),
+                dto -> RealtimeTick.parseFixed(dto.getCurrentPrice()) > 0); // 조회 실패 대체값("0")은 보관하지 않음
+    }
+
+    private Mono<StockPriceDto> loadUnifiedCurrentPrice(final String stockCode, final String exchangeCode) {
         if ("IDX".equals(exchangeCode)) {
             return fetchIndexCurrentPrice(stockCode);
         }
 
         if ("UN".equals(exchangeCode)) {
             // 정규장(J)과 야간장(NX) 데이터를 동시에 조회하여 합산
+            // NXT 미거래 종목도 있으므로 NX 조회 실패는 "0" 가격으로 대체하고 KRX 시세로 응답
             return Mono.zip(
-                fetchCurrentPriceInternal(stockCode, "FHKST01010100", "J", "UN"),
-                fetchCurrentPriceInternal(stockCode, "FHKST01010100", "NX", "UN")
+                fetchCurrentPriceInternal(stockCode, "J", "UN"),
+                fetchCurrentPriceInternal(stockCode, "NX", "UN")
+                        .onErrorResume(KisStockService::isFallbackError,
+                                e -> Mono.just(StockPriceDto.builder().stockCode(stockCode).exchangeCode("UN").currentPrice("0").build()))
             ).map(tuple -> {
                 StockPriceDto jDto = tuple.getT1();
                 StockPriceDto nxDto = tuple.getT2();
@@ -125,7 +203,7 @@ public class KisStockService {
                 
                 // 가격 결정 로직: 현재 시간에 따라 우선순위 결정
                 StockPriceDto mainDto;
-                boolean isNxTime = now.isAfter(LocalTime.of(15, 30, 0)) || now.isBefore(LocalTime.of(8, 50, 0));
+                boolean isNxTime = !MarketCalendar.isKrxPriceTime(now);
                 
                 if (isNxTime && nxDto.getCurrentPrice() != null && !"0".equals(nxDto.getCurrentPrice())) {
                     mainDto = nxDto;
@@ -143,13 +221,56 @@ public class KisStockService {
         LocalTime now = LocalTime.now(seoulZone);
         // ... (기존 개별 시장 로직 생략 가능하나 안전을 위해 유지)
         String marketDivTmp = "NX".equals(exchangeCode) ? "NX" : "J";
-        return fetchCurrentPriceInternal(stockCode, "FHKST01010100", marketDivTmp, exchangeCode);
+        return fetchCurrentPriceInternal(stockCode, marketDivTmp, exchangeCode);
     }
 
     /**
      * 통합 차트 데이터 조회
+     * 분봉(1m/5m/15m/60m)은 실시간 틱으로 누적 중인 CandleBook에서 바로 반환하고,
+     * 첫 조회 때만 REST 1분봉으로 실시간 수신 이전 구간을 채웁니다.
      */
     public Mono<List<StockChartDto>> fetchUnifiedChart(final String stockCode, final String exchangeCode, final String period) {
+        int minutes = CandleBook.minutesOf(period);
+        if (minutes > 0 && !"IDX".equals(exchangeCode)) {
+            CandleBook.Series series = candleBook.get(stockCode, exchangeCode);
+            if (series != null) {
+                if (series.isBackfilled()) return Mono.just(series.toChart(minutes));
+                return fetchRestChart(stockCode, exchangeCode, "1m")
+                        .map(minuteBars -> {
+                            series.backfill(minuteBars);
+                            return series.toChart(minutes);
+                        });
+            }
+        }
+        return fetchRestChart(stockCode, exchangeCode, period);
+    }
+
+    /**
+     * 통합 차트 데이터를 조회 구간과 화면 폭에 맞춰 줄여서 반환합니다.
+     * @param from 구간 시작 (epoch seconds, null이면 처음부터)
+     * @param to 구간 끝 (epoch seconds, null이면 끝까지)
+     * @param maxPoints 최대 봉 수 (null 또는 0 이하면 다운샘플링 없음)
+     */
+    public Mono<List<StockChartDto>> fetchUnifiedChart(final String stockCode, final String exchangeCode, final String period,
+                                                       Long from, Long to, Integer maxPoints, ChartDownsampler.Mode mode) {
+        Mono<List<StockChartDto>> chart = fetchUnifiedChart(stockCode, exchangeCode, period);
+        if (from == null && to == null && (maxPoints == null || maxPoints <= 0)) return chart;
+        return chart.map(list -> {
+            BarColumns bars = ChartDownsampler.slice(BarColumns.fromChart(list),
+                    from == null ? Long.MIN_VALUE : from, to == null ? Long.MAX_VALUE : to);
+            if (maxPoints != null && maxPoints > 0) bars = ChartDownsampler.downsample(bars, maxPoints, mode);
+            return bars.toChart();
+        });
+    }
+
+    // 같은 종목/거래소/주기의 REST 차트를 동시에 조회하는 호출은 KIS 호출 하나를 공유
+    private Mono<List<StockChartDto>> fetchRestChart(final String stockCode, final String exchangeCode, final String period) {
+        return coalescer.coalesce(KisCallCoalescer.Kind.CHART, "chart|" + stockCode + "|" + exchangeCode + "|" + period,
+                () -> loadRestChart(stockCode, exchangeCode, period),
+                bars -> !bars.isEmpty()); // 조회 실패로 빈 차트는 보관하지 않음
+    }
+
+    private Mono<List<StockChartDto>> loadRestChart(final String stockCode, final String exchangeCode, final String period) {
         if ("IDX".equals(exchangeCode)) {
             return fetchIndexHistoryChart(stockCode, period);
         }
@@ -209,107 +330,72 @@ public class KisStockService {
         else if (!"Q".equals(marketDivTmp)) marketDivTmp = "J";
         final String targetMarket = marketDivTmp;
 
-        if ("5m".equals(period)) { 
+        int minutes = CandleBook.minutesOf(period);
+        if (minutes == 1) {
+            return fetchIntradayChartHistory(stockCode, targetMarket);
+        } else if (minutes > 1) {
             return fetchIntradayChartHistory(stockCode, targetMarket)
-                    .map(list -> aggregateToIntervalChartData(list, 5));
+                    .map(list -> aggregateToIntervalChartData(list, minutes));
         } else {
             return fetchHistoryChart(stockCode, targetMarket, period);
         }
     }
 
     private Mono<List<StockChartDto>> fetchIntradayChartHistory(String stockCode, String marketDiv) {
+        // 당일분봉 TR은 일자 파라미터가 없어 기준 시각별로 한 번씩만 조회 (호출량은 KisRateGovernor가 조절)
         List<String> times = Arrays.asList("153000", "140000", "123000", "110000", "093000");
-        List<String> dates = new ArrayList<>();
-        java.time.LocalDate date = java.time.LocalDate.now();
-        int count = 0;
-        while (dates.size() < 2 && count < 10) {
-            if (date.getDayOfWeek() != java.time.DayOfWeek.SATURDAY && date.getDayOfWeek() != java.time.DayOfWeek.SUNDAY) {
-                dates.add(date.format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd")));
-            }
-            date = date.minusDays(1);
-            count++;
-        }
-
-        String token = kisAuthService.getAccessToken();
-        return Flux.fromIterable(dates)
-                .flatMap(d -> Flux.fromIterable(times).map(t -> Map.entry(d, t)))
-                .flatMap(entry -> webClientBuilder.build().get()
-                        .uri(kisAuthService.getBaseUrl() + "/uapi/domestic-stock/v1/quotations/inquire-time-itemchartprice?FID_ETC_CLS_CODE=&FID_COND_MRKT_DIV_CODE=" + marketDiv + "&FID_INPUT_ISCD=" + stockCode + "&FID_INPUT_HOUR_1=" + entry.getValue() + "&FID_PW_DATA_INXC_NUM=100&FID_PW_DATA_INCU_YN=Y")
-                        .header("authorization", "Bearer " + token)
-                        .header("appkey", kisAuthService.getAppKey())
-                        .header("appsecret", kisAuthService.getAppSecret())
-                        .header("tr_id", "FHKST03010200")
-                        .header("content-type", "application/json")
-                        .header("custtype", "P")
-                        .retrieve()
-                        .bodyToMono(String.class)
-                        .map(res -> parseChartResponse(res, "1m"))
-                        .onErrorResume(e -> Mono.just(Collections.emptyList()))
-                )
-                .collectList()
-                .map(lists -> {
-                    List<StockChartDto> allData = new ArrayList<>();
-                    lists.forEach(allData::addAll);
-                    return allData.stream()
-                            .filter(distinctByKey(StockChartDto::getTime))
-                            .sorted(Comparator.comparingLong(StockChartDto::getTime))
-                            .collect(Collectors.toList());
+        return Flux.fromIterable(times)
+                .flatMap(hour -> fetchChartBars(KisRequest.intradayChart(marketDiv, stockCode, hour)))
+                .reduce(BarColumns::merge)
+                // 조회한 분봉은 BarStore에 누적하고, 응답은 저장소 구간에서 읽음 (조회 창 밖의 이전 분봉과 조회 실패 시에도 유지)
+                .publishOn(Schedulers.boundedElastic())
+                .map(fetched -> {
+                    barStore.write(BarStore.MINUTE, marketDiv, stockCode, fetched);
+                    // 조회 창은 오늘이 아니라 마지막 분봉의 거래일 기준 (장 시작 전/주말/휴장일에는 직전 거래일 분봉을 보여줌)
+                    long last = barStore.lastTime(BarStore.MINUTE, marketDiv, stockCode);
+                    if (last == Long.MIN_VALUE) return Collections.<StockChartDto>emptyList();
+                    LocalDate lastDay = Instant.ofEpochSecond(last).atZone(SEOUL_ZONE).toLocalDate();
+                    long from = MarketCalendar.minusTradingDays(lastDay, Math.max(intradayDays, 1) - 1).atStartOfDay(SEOUL_ZONE).toEpochSecond();
+                    return barStore.read(BarStore.MINUTE, marketDiv, stockCode, from, Long.MAX_VALUE).toChart();
                 });
     }
 
+    // 일/주/월봉은 증분 캐시를 거쳐 마지막 확정 봉 이후 구간만 조회
     private Mono<List<StockChartDto>> fetchHistoryChart(String stockCode, String marketDiv, String period) {
-        return fetchHistoryChartBatch(stockCode, marketDiv, period, null)
+        return historyChartCache.get(stockCode, marketDiv, period, from -> from == null
+                ? fetchFullHistoryChart(stockCode, marketDiv, period)
+                : fetchHistoryChartBatch(stockCode, marketDiv, period, from, null));
+    }
+
+    private Mono<BarColumns> fetchFullHistoryChart(String stockCode, String marketDiv, String period) {
+        return fetchHistoryChartBatch(stockCode, marketDiv, period, null, null)
                 .flatMap(firstBatch -> {
                     if (firstBatch.size() < 100) return Mono.just(firstBatch);
-                    String minDate = firstBatch.stream().map(StockChartDto::getDate).min(String::compareTo).orElse(null);
-                    if (minDate == null) return Mono.just(firstBatch);
-                    String nextEndDate = java.time.LocalDate.parse(minDate, java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd")).minusDays(1).format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd"));
-                    return fetchHistoryChartBatch(stockCode, marketDiv, period, nextEndDate)
-                            .map(secondBatch -> {
-                                List<StockChartDto> combined = new ArrayList<>(secondBatch);
-                                combined.addAll(firstBatch);
-                                return combined.stream().filter(distinctByKey(StockChartDto::getTime)).sorted(Comparator.comparingLong(StockChartDto::getTime)).collect(Collectors.toList());
-                            });
+                    long firstDay = Math.floorDiv(firstBatch.firstTime() + 9 * 3600, 86400);
+                    String nextEndDate = LocalDate.ofEpochDay(firstDay - 1).format(DateTimeFormatter.BASIC_ISO_DATE);
+                    return fetchHistoryChartBatch(stockCode, marketDiv, period, null, nextEndDate)
+                            .map(secondBatch -> BarColumns.merge(secondBatch, firstBatch));
                 });
     }
 
-    private Mono<List<StockChartDto>> fetchHistoryChartBatch(String stockCode, String marketDiv, String period, String customEndDate) {
-        String token = kisAuthService.getAccessToken();
-        String typeCode = "D"; 
-        if ("1W".equals(period)) typeCode = "W";
-        if ("1M".equals(period)) typeCode = "M";
+    // 시작일/종료일을 주지 않으면 3년 전 ~ 오늘
+    private Mono<BarColumns> fetchHistoryChartBatch(String stockCode, String marketDiv, String period, String customStartDate, String customEndDate) {
+        String typeCode = HistoryChartCache.periodCode(period);
         String endDate = customEndDate != null ? customEndDate : java.time.LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String startDate = java.time.LocalDate.now().minusYears(3).format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String uri = kisAuthService.getBaseUrl() + "/uapi/domestic-stock/v1/quotations/inquire-daily-itemchartprice?FID_COND_MRKT_DIV_CODE=" + marketDiv + "&FID_INPUT_ISCD=" + stockCode + "&FID_PERIOD_DIV_CODE=" + typeCode + "&FID_ORG_ADJ_PRC=0&FID_PW_DATA_INXC_NUM=100&FID_INPUT_DATE_1=" + startDate + "&FID_INPUT_DATE_2=" + endDate;
-        return webClientBuilder.build().get().uri(uri).header("authorization", "Bearer " + token).header("appkey", kisAuthService.getAppKey()).header("appsecret", kisAuthService.getAppSecret()).header("tr_id", "FHKST03010100").header("content-type", "application/json").header("custtype", "P").retrieve().bodyToMono(String.class).map(res -> parseChartResponse(res, period)).onErrorResume(e -> Mono.just(Collections.emptyList()));
+        String startDate = customStartDate != null ? customStartDate : java.time.LocalDate.now().minusYears(3).format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd"));
+        return fetchChartBars(KisRequest.dailyChart(marketDiv, stockCode, typeCode, startDate, endDate));
     }
 
-    private List<StockChartDto> parseChartResponse(String response, String period) {
-        try {
-            List<StockChartDto> list = new ArrayList<>();
-            JsonNode root = objectMapper.readTree(response);
-            ZoneId seoulZone = ZoneId.of("Asia/Seoul");
-            JsonNode dataNode = root.path("output2").isArray() ? root.path("output2") : root.path("output");
-            if (!dataNode.isArray()) dataNode = root;
-            if (dataNode.isArray()) {
-                DateTimeFormatter dayFormatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-                DateTimeFormatter intradayFormatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
-                for (JsonNode node : dataNode) {
-                    if (!node.has("stck_bsop_date")) continue;
-                    String dateStr = node.path("stck_bsop_date").asText();
-                    long timestamp;
-                    if ("1m".equals(period) || "5m".equals(period)) {
-                        String timeStr = node.path("stck_cntg_hour").asText();
-                        if (timeStr.length() < 6) timeStr = String.format("%06d", Integer.parseInt(timeStr));
-                        timestamp = LocalDateTime.parse(dateStr + timeStr, intradayFormatter).atZone(seoulZone).toInstant().getEpochSecond();
-                    } else {
-                        timestamp = LocalDate.parse(dateStr, dayFormatter).atStartOfDay(seoulZone).toInstant().getEpochSecond();
-                    }
-                    list.add(StockChartDto.builder().time(timestamp).date(dateStr).open(node.path("stck_oprc").asText("0")).high(node.path("stck_hgpr").asText("0")).low(node.path("stck_lwpr").asText("0")).close(node.has("stck_prpr") ? node.path("stck_prpr").asText("0") : node.path("stck_clpr").asText("0")).volume(node.has("cntg_vol") ? node.path("cntg_vol").asText("0") : node.path("acml_vol").asText("0")).build());
-                }
-            }
-            return list.stream().filter(d -> Double.parseDouble(d.getClose()) > 0).sorted(Comparator.comparingLong(StockChartDto::getTime)).collect(Collectors.toList());
-        } catch (Exception e) { return Collections.emptyList(); }
+    // 차트 응답의 봉 배열을 스트리밍 디코더로 바로 읽음 (조회 실패 시 빈 묶음, 호출 한도 거절은 그대로 전달)
+    private Mono<BarColumns> fetchChartBars(KisRequest request) {
+        return kisRestClient.retrieveDecoded(request, KisChartDecoder::decode)
+                .onErrorResume(KisStockService::isFallbackError, e -> Mono.just(new BarColumns(1)));
+    }
+
+    // 조회 실패를 기본값("0" 가격, 빈 결과)으로 대체할 오류인지 여부
+    // 호출 한도 거절(KisRateLimitException)은 대체하지 않고 전달하여 컨트롤러가 503 + Retry-After로 응답하게 함
+    private static boolean isFallbackError(Throwable e) {
+        return !(e instanceof KisRateLimitException);
     }
 
     private List<StockChartDto> aggregateToIntervalChartData(List<StockChartDto> minuteChartData, int intervalMinutes) {
@@ -326,39 +412,19 @@ public class KisStockService {
     }
 
     private Mono<StockPriceDto> fetchIndexCurrentPrice(String indexCode) {
-        String token = kisAuthService.getAccessToken();
-        return webClientBuilder.build().get().uri(kisAuthService.getBaseUrl() + "/uapi/domestic-stock/v1/quotations/inquire-index-price?FID_COND_MRKT_DIV_CODE=U&FID_INPUT_ISCD=" + indexCode).header("authorization", "Bearer " + token).header("appkey", kisAuthService.getAppKey()).header("appsecret", kisAuthService.getAppSecret()).header("tr_id", "FHPUP02100000").header("content-type", "application/json").header("custtype", "P").retrieve().bodyToMono(String.class).map(res -> parseIndexPriceResponse(indexCode, res)).onErrorResume(e -> Mono.just(StockPriceDto.builder().stockCode(indexCode).currentPrice("0").build()));
+        return kisRestClient.retrieve(KisRequest.indexPrice(indexCode), JsonNode.class).map(res -> parseIndexPriceResponse(indexCode, res));
     }
 
-    private StockPriceDto parseIndexPriceResponse(String indexCode, String response) {
+    private StockPriceDto parseIndexPriceResponse(String indexCode, JsonNode response) {
         try {
-            JsonNode output = objectMapper.readTree(response).path("output");
+            JsonNode output = response.path("output");
             return StockPriceDto.builder().stockCode(indexCode).exchangeCode("IDX").marketName(output.path("bstp_nmix_kor_name").asText()).currentPrice(output.path("bstp_nmix_prpr").asText()).change(output.path("bstp_nmix_prdy_vrss").asText()).changeRate(output.path("bstp_nmix_prdy_ctrt").asText()).volume(output.path("acml_vol").asText()).priceSign(output.path("bstp_nmix_prdy_vrss_sign").asText()).build();
         } catch (Exception e) { return null; }
     }
 
     private Mono<List<StockChartDto>> fetchIndexHistoryChart(String indexCode, String period) {
-        String token = kisAuthService.getAccessToken();
-        String typeCode = "1W".equals(period) ? "W" : ("1M".equals(period) ? "M" : "D");
-        return webClientBuilder.build().get().uri(kisAuthService.getBaseUrl() + "/uapi/domestic-stock/v1/quotations/inquire-daily-indexchartprice?FID_COND_MRKT_DIV_CODE=U&FID_INPUT_ISCD=" + indexCode.trim() + "&FID_PERIOD_DIV_CODE=" + typeCode + "&FID_ORG_ADJ_PRC=0").header("authorization", "Bearer " + token).header("appkey", kisAuthService.getAppKey()).header("appsecret", kisAuthService.getAppSecret()).header("tr_id", "FHKUP03500100").header("content-type", "application/json").header("custtype", "P").retrieve().bodyToMono(String.class).map(this::parseIndexChartResponse).onErrorResume(e -> Mono.just(Collections.emptyList()));
-    }
-
-    private List<StockChartDto> parseIndexChartResponse(String response) {
-        try {
-            List<StockChartDto> list = new ArrayList<>();
-            JsonNode root = objectMapper.readTree(response);
-            ZoneId seoulZone = ZoneId.of("Asia/Seoul");
-            if (root.has("output2") && root.path("output2").isArray()) {
-                DateTimeFormatter dayFormatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-                for (JsonNode node : root.path("output2")) {
-                    String dateStr = node.path("stck_bsop_date").asText();
-                    long timestamp = LocalDate.parse(dateStr, dayFormatter).atStartOfDay(seoulZone).toInstant().getEpochSecond();
-                    list.add(StockChartDto.builder().time(timestamp).open(String.valueOf(node.path("bstp_nmix_oprc").asDouble())).high(String.valueOf(node.path("bstp_nmix_hgpr").asDouble())).low(String.valueOf(node.path("bstp_nmix_lwpr").asDouble())).close(String.valueOf(node.path("bstp_nmix_prpr").asDouble())).volume(String.valueOf(node.path("acml_vol").asLong())).build());
-                }
-            }
-            Collections.reverse(list);
-            return list;
-        } catch (Exception e) { return Collections.emptyList(); }
+        String typeCode = HistoryChartCache.periodCode(period);
+        return fetchChartBars(KisRequest.indexDailyChart(indexCode.trim(), typeCode)).map(BarColumns::toChart);
     }
 
             /**
@@ -367,35 +433,10 @@ public class KisStockService {
 
              */
 
-            private Mono<StockPriceDto> fetchCurrentPriceInternal(String stockCode, String trId, String marketDiv, String requestExchange) {
-
-                String token = kisAuthService.getAccessToken();
+            private Mono<StockPriceDto> fetchCurrentPriceInternal(String stockCode, String marketDiv, String requestExchange) {
 
-                String uri = kisAuthService.getBaseUrl() + "/uapi/domestic-stock/v1/quotations/inquire-price"
+                return kisRestClient.retrieve(KisRequest.price(marketDiv, stockCode), new ParameterizedTypeReference<KisResponse<KisPriceOutput>>() {})
 
-                        + "?FID_COND_MRKT_DIV_CODE=" + marketDiv + "&FID_INPUT_ISCD=" + stockCode;
-
-        
-
-                return webClientBuilder.build().get()
-
-                        .uri(uri)
-
-                        .header("authorization", "Bearer " + token)
-
-                        .header("appkey", kisAuthService.getAppKey())
-
-                        .header("appsecret", kisAuthService.getAppSecret())
-
-                        .header("tr_id", trId)
-
-                        .header("content-type", "application/json")
-
-                        .header("custtype", "P")
-
-                        .retrieve()
-
-                        .bodyToMono(new ParameterizedTypeReference<KisResponse<KisPriceOutput>>() {})
 
                         .map(response -> {
 
@@ -441,9 +482,7 @@ public class KisStockService {
 
                                     .build();
 
-                        })
-
-                        .onErrorResume(e -> Mono.just(StockPriceDto.builder().stockCode(stockCode).exchangeCode(requestExchange).currentPrice("0").build()));
+                        });
 
             }
 
@@ -453,11 +492,7 @@ public class KisStockService {
 
         
 
-                            String token = kisAuthService.getAccessToken();
-
-        
-
-                            return webClientBuilder.build().get().uri(kisAuthService.getBaseUrl() + "/uapi/domestic-stock/v1/quotations/inquire-asking-price-exp-ccn?FID_COND_MRKT_DIV_CODE=" + marketDiv + "&FID_INPUT_ISCD=" + stockCode).header("authorization", "Bearer " + token).header("appkey", kisAuthService.getAppKey()).header("appsecret", kisAuthService.getAppSecret()).header("tr_id", "FHKST01010200").header("content-type", "application/json").header("custtype", "P").retrieve().bodyToMono(String.class).map(res -> parseExpectedPriceResponse(stockCode, res, exchangeCode)).onErrorResume(e -> Mono.just(StockPriceDto.builder().stockCode(stockCode).currentPrice("0").isExpected(true).build()));
+                            return kisRestClient.retrieve(KisRequest.expectedPrice(marketDiv, stockCode), JsonNode.class).map(res -> parseExpectedPriceResponse(stockCode, res, exchangeCode)).onErrorResume(KisStockService::isFallbackError, e -> Mono.just(StockPriceDto.builder().stockCode(stockCode).currentPrice("0").isExpected(true).build()));
 
         
 
@@ -469,11 +504,11 @@ public class KisStockService {
 
         
 
-            private StockPriceDto parseExpectedPriceResponse(String stockCode, String response, String exchangeCode) {
+            private StockPriceDto parseExpectedPriceResponse(String stockCode, JsonNode response, String exchangeCode) {
 
                 try {
 
-                    JsonNode output2 = objectMapper.readTree(response).path("output2");
+                    JsonNode output2 = response.path("output2");
 
                     return StockPriceDto.builder().stockCode(stockCode).exchangeCode(exchangeCode).currentPrice(output2.path("antc_cnpr").asText()).change(output2.path("antc_cntg_vrss").asText()).changeRate(output2.path("antc_cntg_prdy_ctrt").asText()).volume(output2.path("antc_vol").asText()).priceSign(output2.path("antc_cntg_vrss_sign").asText()).isExpected(true).build();
 
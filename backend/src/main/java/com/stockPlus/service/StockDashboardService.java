@@ -90,7 +90,7 @@ public class StockDashboardService {
     }
 
     /**
-     * 관심 종목을 추가합니다. 실시간 시세 구독도 함께 요청합니다.
+     * 관심 종목을 추가합니다. 즐겨찾기로 추가하면 실시간 시세 구독도 함께 요청합니다.
      * @param watchlist 추가할 관심 종목 정보
      */
     @Transactional
@@ -111,8 +111,8 @@ public class StockDashboardService {
         
         watchlistMapper.insert(watchlist);
         
-        // 실시간 시세 구독 추가 (WebSocket)
-        kisRealtimeService.addSubscription(watchlist);
+        // 즐겨찾기로 추가된 경우 실시간 시세 구독 참조 추가 (WebSocket)
+        if (Boolean.TRUE.equals(watchlist.getIsFavorite())) kisRealtimeService.addSubscription(watchlist);
     }
 
     /**
@@ -122,7 +122,11 @@ public class StockDashboardService {
      */
     @Transactional
     public void removeFromWatchlist(String stockCode, int groupId) {
-        watchlistMapper.deleteByStockCode(getCurrentUsrId(), stockCode, groupId);
+        String usrId = getCurrentUsrId();
+        Watchlist removed = findInGroup(usrId, stockCode, groupId);
+        watchlistMapper.deleteByStockCode(usrId, stockCode, groupId);
+        // 즐겨찾기였던 종목이면 실시간 구독 참조 해제
+        if (removed != null && Boolean.TRUE.equals(removed.getIsFavorite())) kisRealtimeService.removeSubscription(removed);
     }
 
     /**
@@ -131,7 +135,12 @@ public class StockDashboardService {
      */
     @Transactional
     public void removeAllFromWatchlist(int groupId) {
-        watchlistMapper.deleteByGroupId(getCurrentUsrId(), groupId);
+        String usrId = getCurrentUsrId();
+        List<Watchlist> removed = watchlistMapper.findByGroupId(usrId, groupId);
+        watchlistMapper.deleteByGroupId(usrId, groupId);
+        removed.stream()
+                .filter(w -> Boolean.TRUE.equals(w.getIsFavorite()))
+                .forEach(kisRealtimeService::removeSubscription);
     }
     
     /**
@@ -142,7 +151,23 @@ public class StockDashboardService {
      */
     @Transactional
     public void toggleFavorite(String stockCode, int groupId, boolean isFavorite) {
-        watchlistMapper.updateFavorite(getCurrentUsrId(), stockCode, groupId, isFavorite);
+        String usrId = getCurrentUsrId();
+        Watchlist item = findInGroup(usrId, stockCode, groupId);
+        watchlistMapper.updateFavorite(usrId, stockCode, groupId, isFavorite);
+        if (item == null) return;
+
+        // 상태가 실제로 바뀐 경우에만 실시간 구독 참조 증감 (중복 요청 시 참조 카운트 어긋남 방지)
+        boolean wasFavorite = Boolean.TRUE.equals(item.getIsFavorite());
+        if (isFavorite && !wasFavorite) kisRealtimeService.addSubscription(item);
+        else if (!isFavorite && wasFavorite) kisRealtimeService.removeSubscription(item);
+    }
+
+    // 그룹 내 특정 종목 조회 (없으면 null)
+    private Watchlist findInGroup(String usrId, String stockCode, int groupId) {
+        return watchlistMapper.findByGroupId(usrId, groupId).stream()
+                .filter(w -> stockCode.equals(w.getStockCode()))
+                .findFirst()
+                .orElse(null);
     }
 
     // --- User Notes (사용자 메모 관리) ---
@@ -0,0 +1,212 @@
+package com.stockPlus.service.chart;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * BarStore 블록 하나(최대 BarStore.BLOCK_BARS개 봉)의 압축 인코딩/디코딩입니다.
+ *
+ * 블록 안에서도 컬럼 단위로 이어서 기록합니다. [시각][시가][고가][저가][종가][거래량]
+ * - 시각: 첫 값 64비트, 이후 간격 단위(블록 내 간격의 최대공약수, 분봉 60초/일봉 86400초) 기준 delta-of-delta
+ *   (0이면 1비트, 작으면 7/12/20비트 구간, 그 외 64비트)
+ * - 가격/거래량: 첫 값 64비트, 이후 직전 값과의 XOR (같으면 1비트, 유효 비트 구간이 직전과 같으면 구간 재사용)
+ * 평일 연속 봉은 시각이 1비트, 가격이 변하지 않은 컬럼도 1비트로 기록됩니다.
+ */
+final class BarCodec {
+
+    private BarCodec() {}
+
+    static byte[] encode(BarColumns bars, int from, int to) {
+        BitWriter out = new BitWriter((to - from) * 16 + 64);
+        encodeTime(out, bars.time, from, to);
+        encodeXor(out, bars.open, from, to);
+        encodeXor(out, bars.high, from, to);
+        encodeXor(out, bars.low, from, to);
+        encodeXor(out, bars.close, from, to);
+        encodeXor(out, bars.volume, from, to);
+        return out.toByteArray();
+    }
+
+    /**
+     * buffer의 offset 위치에 기록된 count개 봉을 bars 끝에 붙입니다.
+     */
+    static void decode(ByteBuffer buffer, int offset, int count, BarColumns bars) {
+        BitReader in = new BitReader(buffer, offset);
+        long[] time = new long[count], open = new long[count], high = new long[count],
+                low = new long[count], close = new long[count], volume = new long[count];
+        decodeTime(in, time, count);
+        decodeXor(in, open, count);
+        decodeXor(in, high, count);
+        decodeXor(in, low, count);
+        decodeXor(in, close, count);
+        decodeXor(in, volume, count);
+        for (int i = 0; i < count; i++) bars.add(time[i], open[i], high[i], low[i], close[i], volume[i]);
+    }
+
+    // --- 시각: delta-of-delta ---
+
+    private static void encodeTime(BitWriter out, long[] time, int from, int to) {
+        out.write(time[from], 64);
+        if (to - from < 2) return;
+        long unit = 0;
+        for (int i = from + 1; i < to; i++) unit = gcd(unit, time[i] - time[i - 1]);
+        if (unit <= 0 || unit > Integer.MAX_VALUE) unit = 1;
+        out.write(unit, 32);
+        long prevDelta = 0;
+        for (int i = from + 1; i < to; i++) {
+            long delta = (time[i] - time[i - 1]) / unit;
+            long dod = delta - prevDelta;
+            if (dod == 0) {
+                out.write(0, 1);
+            } else if (fits(dod, 7)) {
+                out.write(0b10, 2);
+                out.write(dod, 7);
+            } else if (fits(dod, 12)) {
+                out.write(0b110, 3);
+                out.write(dod, 12);
+            } else if (fits(dod, 20)) {
+                out.write(0b1110, 4);
+                out.write(dod, 20);
+            } else {
+                out.write(0b1111, 4);
+                out.write(dod, 64);
+            }
+            prevDelta = delta;
+        }
+    }
+
+    private static void decodeTime(BitReader in, long[] time, int count) {
+        time[0] = in.read(64);
+        if (count < 2) return;
+        long unit = in.read(32);
+        long prevDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long dod;
+            if (in.read(1) == 0) dod = 0;
+            else if (in.read(1) == 0) dod = signed(in.read(7), 7);
+            else if (in.read(1) == 0) dod = signed(in.read(12), 12);
+            else if (in.read(1) == 0) dod = signed(in.read(20), 20);
+            else dod = in.read(64);
+            prevDelta += dod;
+            time[i] = time[i - 1] + prevDelta * unit;
+        }
+    }
+
+    // --- 값: 직전 값과의 XOR ---
+
+    private static void encodeXor(BitWriter out, long[] values, int from, int to) {
+        out.write(values[from], 64);
+        int prevLeading = -1, prevTrailing = 0;
+        for (int i = from + 1; i < to; i++) {
+            long xor = values[i] ^ values[i - 1];
+            if (xor == 0) {
+                out.write(0, 1);
+                continue;
+            }
+            int leading = Long.numberOfLeadingZeros(xor);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+                out.write(0b10, 2);
+                out.write(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+            } else {
+                int length = 64 - leading - trailing;
+                out.write(0b11, 2);
+                out.write(leading, 6);
+                out.write(length - 1, 6);
+                out.write(xor >>> trailing, length);
+                prevLeading = leading;
+                prevTrailing = trailing;
+            }
+        }
+    }
+
+    private static void decodeXor(BitReader in, long[] values, int count) {
+        values[0] = in.read(64);
+        int prevLeading = 0, prevTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (in.read(1) == 0) {
+                values[i] = values[i - 1];
+                continue;
+            }
+            if (in.read(1) == 1) {
+                prevLeading = (int) in.read(6);
+                int length = (int) in.read(6) + 1;
+                prevTrailing = 64 - prevLeading - length;
+            }
+            long meaningful = in.read(64 - prevLeading - prevTrailing);
+            values[i] = values[i - 1] ^ (meaningful << prevTrailing);
+        }
+    }
+
+    private static boolean fits(long value, int bits) {
+        long limit = 1L << (bits - 1);
+        return value >= -limit && value < limit;
+    }
+
+    private static long signed(long raw, int bits) {
+        return raw << (64 - bits) >> (64 - bits);
+    }
+
+    private static long gcd(long a, long b) {
+        a = Math.abs(a);
+        b = Math.abs(b);
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private static final class BitWriter {
+        private byte[] buf;
+        private long bitPos;
+
+        BitWriter(int initialBytes) {
+            buf = new byte[Math.max(initialBytes, 16)];
+        }
+
+        // value의 하위 bits 비트를 상위 비트부터 기록
+        void write(long value, int bits) {
+            while (bits > 0) {
+                int index = (int) (bitPos >>> 3);
+                if (index == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+                int free = 8 - (int) (bitPos & 7);
+                int take = Math.min(free, bits);
+                int chunk = (int) ((value >>> (bits - take)) & ((1 << take) - 1));
+                buf[index] |= (byte) (chunk << (free - take));
+                bits -= take;
+                bitPos += take;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, (int) ((bitPos + 7) >>> 3));
+        }
+    }
+
+    private static final class BitReader {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private long bitPos;
+
+        BitReader(ByteBuffer buffer, int offset) {
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+
+        long read(int bits) {
+            long value = 0;
+            while (bits > 0) {
+                int b = buffer.get(offset + (int) (bitPos >>> 3)) & 0xff;
+                int available = 8 - (int) (bitPos & 7);
+                int take = Math.min(available, bits);
+                int chunk = (b >>> (available - take)) & ((1 << take) - 1);
+                value = (value << take) | chunk;
+                bits -= take;
+                bitPos += take;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.stockPlus.service.chart;
+
+import com.stockPlus.domain.StockChartDto;
+import com.stockPlus.service.realtime.RealtimeTick;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 시각 오름차순 봉 묶음 (컬럼별 원시 타입 병렬 배열)입니다.
+ *
+ * 시각은 봉 시작 epoch seconds, 가격은 RealtimeTick.PRICE_SCALE(=100) 배 고정소수점, 거래량은 long입니다.
+ * BarStore의 읽기/쓰기 단위이며, 문자열 기반 StockChartDto로의 변환은 응답 직전(toChart)에만 수행합니다.
+ */
+public final class BarColumns {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int SEOUL_OFFSET_SECONDS = 9 * 3600;
+
+    long[] time, open, high, low, close, volume;
+    int size;
+
+    public BarColumns() {
+        this(16);
+    }
+
+    public BarColumns(int capacity) {
+        time = new long[capacity];
+        open = new long[capacity];
+        high = new long[capacity];
+        low = new long[capacity];
+        close = new long[capacity];
+        volume = new long[capacity];
+    }
+
+    /**
+     * 차트 DTO 목록을 변환합니다. (종가가 0 이하인 봉은 제외, 시각 순 정렬)
+     */
+    public static BarColumns fromChart(List<StockChartDto> bars) {
+        BarColumns columns = new BarColumns(Math.max(bars.size(), 1));
+        for (StockChartDto bar : bars) {
+            long closePrice = RealtimeTick.parseFixed(bar.getClose());
+            if (closePrice <= 0) continue;
+            columns.add(bar.getTime(), RealtimeTick.parseFixed(bar.getOpen()), RealtimeTick.parseFixed(bar.getHigh()),
+                    RealtimeTick.parseFixed(bar.getLow()), closePrice, parseVolume(bar.getVolume()));
+        }
+        columns.sort();
+        return columns;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public long time(int i) { return time[i]; }
+    public long open(int i) { return open[i]; }
+    public long high(int i) { return high[i]; }
+    public long low(int i) { return low[i]; }
+    public long close(int i) { return close[i]; }
+    public long volume(int i) { return volume[i]; }
+    public long firstTime() { return time[0]; }
+    public long lastTime() { return time[size - 1]; }
+
+    public void add(long t, long o, long h, long l, long c, long v) {
+        if (size == time.length) grow(size * 2 + 16);
+        time[size] = t;
+        open[size] = o;
+        high[size] = h;
+        low[size] = l;
+        close[size] = c;
+        volume[size] = v;
+        size++;
+    }
+
+    void add(BarColumns other, int i) {
+        add(other.time[i], other.open[i], other.high[i], other.low[i], other.close[i], other.volume[i]);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * 시각 오름차순으로 정렬하고 같은 시각의 봉은 나중 것만 남깁니다. (이미 정렬되었거나 역순이면 확인/뒤집기만 함)
+     */
+    public void sort() {
+        boolean sorted = true, reversed = true;
+        for (int i = 1; i < size && (sorted || reversed); i++) {
+            sorted &= time[i - 1] < time[i];
+            reversed &= time[i - 1] > time[i];
+        }
+        if (sorted) return;
+        if (reversed) { // KIS 차트 응답은 최신 봉부터 내려옴
+            for (int i = 0, j = size - 1; i < j; i++, j--) swap(i, j);
+            return;
+        }
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(time[a], time[b])); // 안정 정렬이라 같은 시각은 입력 순서 유지
+        BarColumns sortedBars = new BarColumns(size);
+        for (int k = 0; k < size; k++) {
+            int i = order[k];
+            if (sortedBars.size > 0 && sortedBars.lastTime() == time[i]) sortedBars.size--;
+            sortedBars.add(this, i);
+        }
+        copyFrom(sortedBars);
+    }
+
+    /**
+     * 두 봉 묶음을 시각 순으로 합칩니다. 같은 시각이면 updates 쪽 봉을 사용합니다.
+     */
+    public static BarColumns merge(BarColumns base, BarColumns updates) {
+        BarColumns merged = new BarColumns(base.size + updates.size + 1);
+        int i = 0, j = 0;
+        while (i < base.size || j < updates.size) {
+            if (j >= updates.size || (i < base.size && base.time[i] < updates.time[j])) {
+                merged.add(base, i++);
+            } else {
+                if (i < base.size && base.time[i] == updates.time[j]) i++;
+                merged.add(updates, j++);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 차트 DTO로 변환합니다. (날짜는 서울 기준 yyyyMMdd)
+     */
+    public List<StockChartDto> toChart() {
+        List<StockChartDto> list = new ArrayList<>(size);
+        long day = Long.MIN_VALUE;
+        String date = null;
+        for (int i = 0; i < size; i++) {
+            long d = Math.floorDiv(time[i] + SEOUL_OFFSET_SECONDS, 86400);
+            if (d != day) {
+                day = d;
+                date = LocalDate.ofEpochDay(d).format(DATE);
+            }
+            list.add(StockChartDto.builder()
+                    .time(time[i])
+                    .date(date)
+                    .open(RealtimeTick.formatPrice(open[i]))
+                    .high(RealtimeTick.formatPrice(high[i]))
+                    .low(RealtimeTick.formatPrice(low[i]))
+                    .close(RealtimeTick.formatPrice(close[i]))
+                    .volume(Long.toString(volume[i]))
+                    .build());
+        }
+        return list;
+    }
+
+    static long parseVolume(String text) {
+        if (text == null || text.isEmpty()) return 0;
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return RealtimeTick.parseFixed(text) / RealtimeTick.PRICE_SCALE; // "123.0" 형식
+        }
+    }
+
+    private void swap(int i, int j) {
+        long t;
+        t = time[i]; time[i] = time[j]; time[j] = t;
+        t = open[i]; open[i] = open[j]; open[j] = t;
+        t = high[i]; high[i] = high[j]; high[j] = t;
+        t = low[i]; low[i] = low[j]; low[j] = t;
+        t = close[i]; close[i] = close[j]; close[j] = t;
+        t = volume[i]; volume[i] = volume[j]; volume[j] = t;
+    }
+
+    private void grow(int capacity) {
+        time = Arrays.copyOf(time, capacity);
+        open = Arrays.copyOf(open, capacity);
+        high = Arrays.copyOf(high, capacity);
+        low = Arrays.copyOf(low, capacity);
+        close = Arrays.copyOf(close, capacity);
+        volume = Arrays.copyOf(volume, capacity);
+    }
+
+    private void copyFrom(BarColumns other) {
+        time = other.time;
+        open = other.open;
+        high = other.high;
+        low = other.low;
+        close = other.close;
+        volume = other.volume;
+        size = other.size;
+    }
+}
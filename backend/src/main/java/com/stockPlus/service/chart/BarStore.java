@@ -0,0 +1,348 @@
+package com.stockPlus.service.chart;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 종목/시장/주기별 봉을 디스크에 컬럼 압축 형식으로 보관하는 저장소입니다.
+ *
+ * 시리즈마다 데이터 파일(.bars)과 작은 인덱스 파일(.idx)을 둡니다.
+ * 데이터 파일은 BLOCK_BARS개 단위 블록을 BarCodec으로 압축해 이어 붙인 것이고,
+ * 인덱스는 블록별 (첫 시각, 마지막 시각, 위치, 길이, 봉 수)라 메모리에 올려 두고 구간 조회 시 이진 탐색합니다.
+ * 데이터 파일은 읽기 전용으로 메모리 매핑하여 조회 구간에 걸친 블록만 디코딩합니다.
+ *
+ * 쓰기는 copy-on-write입니다. 바뀐 블록부터 끝까지를 파일 끝에 새로 기록한 뒤 인덱스를 원자적으로 교체하므로,
+ * 기록 도중 중단되어도 이전 인덱스가 가리키는 블록은 그대로 남습니다. 버려진 블록이 유효 데이터보다 커지면 압축(재기록)합니다.
+ * 재기록 시에는 두 파일 헤더의 세대 번호를 올리고, 읽을 때 세대가 다르면 시리즈를 비운 것으로 취급합니다. (KIS에서 다시 채움)
+ *
+ * 경로: {dir}/{주기}/{시장}/{종목}.bars|.idx  (주기: 1m, D, W, M)
+ */
+@Component
+@Slf4j
+public class BarStore {
+
+    public static final String MINUTE = "1m";
+    public static final String DAY = "D";
+    public static final String WEEK = "W";
+    public static final String MONTH = "M";
+
+    static final int BLOCK_BARS = 256;
+
+    private static final int DATA_MAGIC = 0x42434F4C; // "BCOL"
+    private static final int INDEX_MAGIC = 0x42494458; // "BIDX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16; // magic(4) + version(4) + generation(8)
+    private static final int ENTRY_SIZE = 32;  // firstTime(8) + lastTime(8) + offset(8) + length(4) + count(4)
+    private static final long COMPACT_SLACK_BYTES = 4096;
+
+    private final Path directory;
+    private final ConcurrentHashMap<String, SeriesFile> files = new ConcurrentHashMap<>();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong decodedBlocks = new AtomicLong();
+
+    public BarStore(@Value("${chart.store.dir:./data/bars}") String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * [from, to] 구간(봉 시작 epoch seconds, 양 끝 포함)의 봉을 시각 순으로 반환합니다. (없으면 빈 묶음)
+     */
+    public BarColumns read(String timeframe, String market, String stockCode, long from, long to) {
+        reads.incrementAndGet();
+        return series(timeframe, market, stockCode).read(from, to);
+    }
+
+    /**
+     * 마지막 봉의 시각 (봉이 없으면 Long.MIN_VALUE)
+     */
+    public long lastTime(String timeframe, String market, String stockCode) {
+        return series(timeframe, market, stockCode).lastTime();
+    }
+
+    /**
+     * 봉을 추가하거나 같은 시각의 봉을 덮어씁니다. (시각 순으로 정렬된 묶음)
+     */
+    public void write(String timeframe, String market, String stockCode, BarColumns bars) {
+        if (bars.isEmpty()) return;
+        writes.incrementAndGet();
+        try {
+            series(timeframe, market, stockCode).upsert(bars);
+        } catch (IOException e) {
+            log.warn("Failed to write bars {}/{}/{}: {}", timeframe, market, stockCode, e.getMessage());
+        }
+    }
+
+    /**
+     * 시리즈 전체를 주어진 봉으로 교체합니다. (전체 이력 재조회 결과)
+     */
+    public void replace(String timeframe, String market, String stockCode, BarColumns bars) {
+        writes.incrementAndGet();
+        try {
+            series(timeframe, market, stockCode).rewrite(bars);
+        } catch (IOException e) {
+            log.warn("Failed to replace bars {}/{}/{}: {}", timeframe, market, stockCode, e.getMessage());
+        }
+    }
+
+    /**
+     * 열린 시리즈 수, 블록/봉 수, 파일 크기, 읽기/쓰기 횟수 (모니터링용)
+     */
+    public Map<String, Object> getStatus() {
+        long blocks = 0, bars = 0, bytes = 0, liveBytes = 0;
+        for (SeriesFile file : files.values()) {
+            synchronized (file) {
+                blocks += file.blocks;
+                bytes += file.dataSize;
+                liveBytes += file.liveBytes();
+                for (int i = 0; i < file.blocks; i++) bars += file.count[i];
+            }
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("series", files.size());
+        status.put("blocks", blocks);
+        status.put("bars", bars);
+        status.put("fileBytes", bytes);
+        status.put("liveBytes", liveBytes);
+        status.put("bytesPerBar", bars == 0 ? 0 : Math.round(liveBytes * 100.0 / bars) / 100.0);
+        status.put("reads", reads.get());
+        status.put("writes", writes.get());
+        status.put("decodedBlocks", decodedBlocks.get());
+        return status;
+    }
+
+    private SeriesFile series(String timeframe, String market, String stockCode) {
+        return files.computeIfAbsent(timeframe + "|" + market + "|" + stockCode, k -> {
+            Path dir = directory.resolve(timeframe).resolve(market);
+            return new SeriesFile(dir.resolve(stockCode + ".bars"), dir.resolve(stockCode + ".idx"));
+        });
+    }
+
+    /**
+     * 시리즈 하나의 데이터/인덱스 파일 (모든 접근은 this로 동기화)
+     */
+    private final class SeriesFile {
+        final Path dataPath;
+        final Path indexPath;
+        boolean opened;
+        long generation;
+        int blocks;
+        long[] firstTime = new long[8], lastTime = new long[8], offset = new long[8];
+        int[] length = new int[8], count = new int[8];
+        long dataSize;
+        MappedByteBuffer mapped;
+
+        SeriesFile(Path dataPath, Path indexPath) {
+            this.dataPath = dataPath;
+            this.indexPath = indexPath;
+        }
+
+        synchronized BarColumns read(long from, long to) {
+            open();
+            BarColumns result = new BarColumns(64);
+            if (blocks == 0 || from > to) return result;
+            BarColumns scratch = new BarColumns(BLOCK_BARS);
+            for (int b = firstBlockEndingAtOrAfter(from); b < blocks && firstTime[b] <= to; b++) {
+                boolean inside = firstTime[b] >= from && lastTime[b] <= to;
+                if (inside) {
+                    BarCodec.decode(mapped, (int) offset[b], count[b], result);
+                } else {
+                    scratch.clear();
+                    BarCodec.decode(mapped, (int) offset[b], count[b], scratch);
+                    for (int i = 0; i < scratch.size; i++) {
+                        if (scratch.time[i] >= from && scratch.time[i] <= to) result.add(scratch, i);
+                    }
+                }
+                decodedBlocks.incrementAndGet();
+            }
+            return result;
+        }
+
+        synchronized long lastTime() {
+            open();
+            return blocks == 0 ? Long.MIN_VALUE : lastTime[blocks - 1];
+        }
+
+        // 새 봉의 첫 시각이 걸친 블록(또는 덜 찬 마지막 블록)부터 끝까지 다시 기록
+        synchronized void upsert(BarColumns updates) throws IOException {
+            open();
+            int b = firstBlockEndingAtOrAfter(updates.firstTime());
+            if (b > 0 && count[b - 1] < BLOCK_BARS) b--;
+            BarColumns tail = new BarColumns(Math.max((blocks - b) * BLOCK_BARS, 16));
+            for (int i = b; i < blocks; i++) BarCodec.decode(mapped, (int) offset[i], count[i], tail);
+            BarColumns merged = BarColumns.merge(tail, updates);
+            if (blocks == 0) {
+                rewrite(merged);
+                return;
+            }
+
+            List<long[]> entries = new ArrayList<>();
+            List<byte[]> encoded = new ArrayList<>();
+            long position = dataSize;
+            for (int from = 0; from < merged.size; from += BLOCK_BARS) {
+                int to = Math.min(from + BLOCK_BARS, merged.size);
+                byte[] block = BarCodec.encode(merged, from, to);
+                entries.add(new long[]{merged.time[from], merged.time[to - 1], position, block.length, to - from});
+                encoded.add(block);
+                position += block.length;
+            }
+            try (FileChannel channel = FileChannel.open(dataPath, StandardOpenOption.WRITE)) {
+                channel.position(dataSize);
+                for (byte[] block : encoded) writeFully(channel, ByteBuffer.wrap(block));
+            }
+            blocks = b;
+            for (long[] entry : entries) addEntry(entry);
+            dataSize = position;
+            writeIndex();
+            remap();
+            if (dataSize - liveBytes() > liveBytes() + COMPACT_SLACK_BYTES) compact();
+        }
+
+        // 데이터/인덱스 파일을 새 세대로 다시 기록
+        synchronized void rewrite(BarColumns bars) throws IOException {
+            open();
+            Files.createDirectories(dataPath.getParent());
+            generation++;
+            blocks = 0;
+            Path temp = dataPath.resolveSibling(dataPath.getFileName() + ".tmp");
+            long position = HEADER_SIZE;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, header(DATA_MAGIC));
+                for (int from = 0; from < bars.size; from += BLOCK_BARS) {
+                    int to = Math.min(from + BLOCK_BARS, bars.size);
+                    byte[] block = BarCodec.encode(bars, from, to);
+                    writeFully(channel, ByteBuffer.wrap(block));
+                    addEntry(new long[]{bars.time[from], bars.time[to - 1], position, block.length, to - from});
+                    position += block.length;
+                }
+            }
+            Files.move(temp, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dataSize = position;
+            writeIndex();
+            remap();
+        }
+
+        private void compact() throws IOException {
+            BarColumns all = new BarColumns(blocks * BLOCK_BARS);
+            for (int i = 0; i < blocks; i++) BarCodec.decode(mapped, (int) offset[i], count[i], all);
+            rewrite(all);
+        }
+
+        private void open() {
+            if (opened) return;
+            opened = true;
+            if (!Files.exists(indexPath) || !Files.exists(dataPath)) return;
+            try {
+                ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+                long size = Files.size(dataPath);
+                ByteBuffer dataHeader = ByteBuffer.allocate(HEADER_SIZE);
+                try (FileChannel channel = FileChannel.open(dataPath, StandardOpenOption.READ)) {
+                    channel.read(dataHeader, 0);
+                }
+                if (index.remaining() < HEADER_SIZE || index.getInt(0) != INDEX_MAGIC || dataHeader.getInt(0) != DATA_MAGIC
+                        || index.getLong(8) != dataHeader.getLong(8)) {
+                    // 재기록 도중 중단되어 두 파일의 세대가 다름 - 비우고 새로 채움
+                    log.warn("Discarding inconsistent bar store files: {}", dataPath);
+                    generation = Math.max(index.remaining() >= HEADER_SIZE ? index.getLong(8) : 0, dataHeader.getLong(8));
+                    return;
+                }
+                generation = index.getLong(8);
+                int entries = (index.remaining() - HEADER_SIZE) / ENTRY_SIZE;
+                index.position(HEADER_SIZE);
+                for (int i = 0; i < entries; i++) {
+                    long[] entry = {index.getLong(), index.getLong(), index.getLong(), index.getInt(), index.getInt()};
+                    if (entry[2] + entry[3] > size) break; // 데이터가 기록되지 않은 블록
+                    addEntry(entry);
+                }
+                dataSize = size;
+                remap();
+            } catch (IOException e) {
+                log.warn("Failed to open bar store {}: {}", dataPath, e.getMessage());
+                blocks = 0;
+            }
+        }
+
+        private void writeIndex() throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + blocks * ENTRY_SIZE);
+            buf.put(header(INDEX_MAGIC));
+            for (int i = 0; i < blocks; i++) {
+                buf.putLong(firstTime[i]).putLong(lastTime[i]).putLong(offset[i]).putInt(length[i]).putInt(count[i]);
+            }
+            buf.flip();
+            Path temp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, buf);
+            }
+            Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        // 매핑 후 채널은 바로 닫음 (매핑은 유지되므로 시리즈마다 파일 핸들을 잡아 두지 않음)
+        private void remap() throws IOException {
+            try (FileChannel channel = FileChannel.open(dataPath, StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, dataSize);
+            }
+        }
+
+        private ByteBuffer header(int magic) {
+            return ByteBuffer.allocate(HEADER_SIZE).putInt(magic).putInt(VERSION).putLong(generation).flip();
+        }
+
+        private void addEntry(long[] entry) {
+            if (blocks == firstTime.length) {
+                int capacity = blocks * 2;
+                firstTime = Arrays.copyOf(firstTime, capacity);
+                lastTime = Arrays.copyOf(lastTime, capacity);
+                offset = Arrays.copyOf(offset, capacity);
+                length = Arrays.copyOf(length, capacity);
+                count = Arrays.copyOf(count, capacity);
+            }
+            firstTime[blocks] = entry[0];
+            lastTime[blocks] = entry[1];
+            offset[blocks] = entry[2];
+            length[blocks] = (int) entry[3];
+            count[blocks] = (int) entry[4];
+            blocks++;
+        }
+
+        // 마지막 시각이 t 이상인 첫 블록 (없으면 blocks)
+        private int firstBlockEndingAtOrAfter(long t) {
+            int lo = 0, hi = blocks;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (lastTime[mid] < t) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private long liveBytes() {
+            long live = HEADER_SIZE;
+            for (int i = 0; i < blocks; i++) live += length[i];
+            return live;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) channel.write(buf);
+    }
+}
@@ -0,0 +1,104 @@
+package com.stockPlus.service.chart;
+
+/**
+ * 화면 폭(표시 가능한 봉 수)에 맞춰 봉 수를 줄이는 다운샘플러입니다.
+ *
+ * OHLC: 연속한 봉을 구간으로 묶어 시가=첫 봉 시가, 고가=최고, 저가=최저, 종가=마지막 봉 종가, 거래량=합계로 합칩니다.
+ *       (캔들 차트용 - 구간 안의 고점/저점이 사라지지 않음, 시각은 구간 첫 봉 시각)
+ * LTTB: Largest-Triangle-Three-Buckets로 종가 선 모양을 가장 잘 유지하는 원본 봉을 구간마다 하나씩 고릅니다. (라인 차트용)
+ * 첫 봉과 마지막 봉은 어느 방식이든 유지됩니다.
+ */
+public final class ChartDownsampler {
+
+    public enum Mode { OHLC, LTTB }
+
+    private ChartDownsampler() {}
+
+    /**
+     * 봉 수가 maxPoints 이하가 되도록 줄입니다. (이미 이하면 그대로 반환)
+     */
+    public static BarColumns downsample(BarColumns bars, int maxPoints, Mode mode) {
+        if (maxPoints < 3 || bars.size <= maxPoints) return bars;
+        return mode == Mode.LTTB ? lttb(bars, maxPoints) : ohlc(bars, maxPoints);
+    }
+
+    /**
+     * [from, to] 구간(epoch seconds, 양 끝 포함)의 봉만 남깁니다.
+     */
+    public static BarColumns slice(BarColumns bars, long from, long to) {
+        int start = lowerBound(bars, from);
+        int end = lowerBound(bars, to == Long.MAX_VALUE ? to : to + 1);
+        if (start == 0 && end == bars.size) return bars;
+        BarColumns sliced = new BarColumns(Math.max(end - start, 1));
+        for (int i = start; i < end; i++) sliced.add(bars, i);
+        return sliced;
+    }
+
+    private static BarColumns ohlc(BarColumns bars, int buckets) {
+        BarColumns out = new BarColumns(buckets);
+        int n = bars.size;
+        for (int b = 0; b < buckets; b++) {
+            int start = (int) ((long) b * n / buckets);
+            int end = (int) ((long) (b + 1) * n / buckets);
+            if (start >= end) continue;
+            long high = bars.high[start], low = bars.low[start], volume = 0;
+            for (int i = start; i < end; i++) {
+                if (bars.high[i] > high) high = bars.high[i];
+                if (bars.low[i] < low) low = bars.low[i];
+                volume += bars.volume[i];
+            }
+            out.add(bars.time[start], bars.open[start], high, low, bars.close[end - 1], volume);
+        }
+        return out;
+    }
+
+    private static BarColumns lttb(BarColumns bars, int threshold) {
+        BarColumns out = new BarColumns(threshold);
+        int n = bars.size;
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        out.add(bars, 0);
+        for (int b = 0; b < threshold - 2; b++) {
+            // 다음 구간의 평균점
+            int avgStart = (int) Math.floor((b + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((b + 2) * every) + 1, n);
+            double avgX = 0, avgY = 0;
+            for (int i = avgStart; i < avgEnd; i++) {
+                avgX += bars.time[i];
+                avgY += bars.close[i];
+            }
+            int avgLength = Math.max(avgEnd - avgStart, 1);
+            avgX /= avgLength;
+            avgY /= avgLength;
+
+            // 현재 구간에서 (직전 선택점, 다음 구간 평균점)과 만드는 삼각형이 가장 큰 봉
+            int rangeStart = (int) Math.floor(b * every) + 1;
+            int rangeEnd = (int) Math.floor((b + 1) * every) + 1;
+            double ax = bars.time[a], ay = bars.close[a];
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int i = rangeStart; i < rangeEnd; i++) {
+                double area = Math.abs((ax - avgX) * (bars.close[i] - ay) - (ax - bars.time[i]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = i;
+                }
+            }
+            out.add(bars, next);
+            a = next;
+        }
+        out.add(bars, n - 1);
+        return out;
+    }
+
+    // time >= t 인 첫 봉 위치
+    private static int lowerBound(BarColumns bars, long t) {
+        int lo = 0, hi = bars.size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (bars.time[mid] < t) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,277 @@
+package com.stockPlus.service.chart;
+
+import com.stockPlus.domain.StockChartDto;
+import com.stockPlus.service.kis.KisRateGovernor;
+import com.stockPlus.service.kis.KisRateLimitException;
+import com.stockPlus.service.kis.MarketCalendar;
+import com.stockPlus.service.realtime.RealtimeTick;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 일/주/월봉(1D/1W/1M) 차트를 (종목, 시장, 주기)별로 보관하는 증분 캐시입니다.
+ *
+ * 처음 한 번만 전체 이력(최대 2페이지)을 조회하고, 이후에는 마지막으로 확정된 봉 다음 기간부터 오늘까지만 조회합니다.
+ * 기간이 끝난 봉은 확정(불변)되어 BarStore에 기록되고, 진행 중인 기간의 봉 하나만 메모리에서 조회할 때마다 갱신됩니다.
+ * 일봉은 NXT 마감(20:00) 이후, 주/월봉은 다음 주/월이 되면 확정됩니다.
+ * 평일 장 마감 후 배치 작업이 진행 중인 봉을 가진 시리즈를 한 번 더 조회하여 당일 봉을 확정합니다.
+ * 확정 봉의 시각은 기준일 0시(서울) epoch seconds로 맞춰 저장합니다.
+ */
+@Component
+@Slf4j
+public class HistoryChartCache {
+
+    /**
+     * 캐시가 KIS에서 봉을 가져올 때 사용하는 조회 함수
+     */
+    @FunctionalInterface
+    public interface Fetcher {
+        /**
+         * @param from 조회 시작일 (yyyyMMdd), null이면 전체 이력
+         * @return 시각 오름차순 봉 (조회 실패 시 빈 묶음)
+         */
+        Mono<BarColumns> fetch(String from);
+    }
+
+    private static final ZoneId SEOUL = ZoneId.of("Asia/Seoul");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    // 일봉 확정 시각 (NXT 애프터마켓 마감)
+    private static final LocalTime DAY_SEALED_AT = LocalTime.of(20, 0);
+    // 기간별 시세 TR 한 페이지 최대 건수 (증분 조회가 이만큼 오면 중간이 빠졌을 수 있으므로 전체 재조회)
+    private static final int PAGE_SIZE = 100;
+
+    private final BarStore barStore;
+    private final boolean enabled;
+    private final long refreshOpenNanos;
+    private final long refreshClosedNanos;
+    private final ConcurrentHashMap<String, Series> series = new ConcurrentHashMap<>();
+
+    public HistoryChartCache(BarStore barStore,
+                             @Value("${chart.cache.enabled:true}") boolean enabled,
+                             @Value("${chart.cache.refresh-seconds:60}") long refreshSeconds,
+                             @Value("${chart.cache.refresh-closed-seconds:1800}") long refreshClosedSeconds) {
+        this.barStore = barStore;
+        this.enabled = enabled;
+        this.refreshOpenNanos = TimeUnit.SECONDS.toNanos(refreshSeconds);
+        this.refreshClosedNanos = TimeUnit.SECONDS.toNanos(refreshClosedSeconds);
+    }
+
+    /**
+     * 기간별 시세 TR의 주기 코드 (1W -> W, 1M -> M, 그 외 D)
+     */
+    public static String periodCode(String period) {
+        if ("1W".equals(period)) return "W";
+        if ("1M".equals(period)) return "M";
+        return "D";
+    }
+
+    /**
+     * 캐시된 봉에 새로 생긴 구간만 조회해 붙인 전체 차트를 반환합니다.
+     * (파일 읽기/쓰기는 boundedElastic에서 수행)
+     */
+    public Mono<List<StockChartDto>> get(String stockCode, String market, String period, Fetcher fetcher) {
+        if (!enabled) return fetcher.fetch(null).map(BarColumns::toChart);
+        char type = periodCode(period).charAt(0);
+        Series s = series.computeIfAbsent(type + "|" + market + "|" + stockCode, k -> new Series(type, market, stockCode));
+        s.fetcher = fetcher;
+        return Mono.fromCallable(() -> {
+                    s.ensureLoaded();
+                    return s;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(loaded -> refresh(loaded, false));
+    }
+
+    /**
+     * 평일 장 마감 후 진행 중인 봉이 있는 시리즈를 다시 조회하여 당일 봉을 확정합니다. (배치 우선순위)
+     */
+    @Scheduled(cron = "0 10 20 * * MON-FRI", zone = "Asia/Seoul")
+    public void sealDay() {
+        List<Series> pending = new ArrayList<>();
+        for (Series s : series.values()) {
+            if (s.hasCurrent() && s.fetcher != null) pending.add(s);
+        }
+        if (pending.isEmpty()) return;
+        Flux.fromIterable(pending)
+                .flatMap(s -> refresh(s, true).onErrorResume(e -> Mono.empty()), 4)
+                .contextWrite(KisRateGovernor.withPriority(KisRateGovernor.Priority.BATCH))
+                .count()
+                .subscribe(n -> log.info("Chart cache sealed {} series after close", n));
+    }
+
+    /**
+     * 보관 중인 시리즈 수와 진행 중인 봉 수, 저장소 현황 (모니터링용)
+     */
+    public Map<String, Object> getStatus() {
+        int open = 0;
+        for (Series s : series.values()) {
+            if (s.hasCurrent()) open++;
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("series", series.size());
+        status.put("openBars", open);
+        status.put("store", barStore.getStatus());
+        return status;
+    }
+
+    private Mono<List<StockChartDto>> refresh(Series s, boolean force) {
+        LocalDate today = LocalDate.now(SEOUL);
+        String from;
+        synchronized (s) {
+            if (!force && !s.needsRefresh(System.nanoTime(), today, refreshNanos())) return Mono.just(s.toChart());
+            from = s.fetchFrom();
+        }
+        Fetcher fetcher = s.fetcher;
+        Mono<Result> fetched = fetcher.fetch(from).map(bars -> new Result(bars, from == null));
+        if (from != null) {
+            // 페이지가 가득 찼다면 중간 구간이 잘렸을 수 있으므로 전체 이력을 다시 받음
+            fetched = fetched.flatMap(result -> result.bars.size() >= PAGE_SIZE
+                    ? fetcher.fetch(null).map(full -> new Result(full, true))
+                    : Mono.just(result));
+        }
+        // 파일 기록은 응답을 받은 이벤트 루프 스레드가 아닌 곳에서
+        // 호출 한도로 거절되었는데 이미 보관 중인 봉이 있으면 그 봉으로 응답 (없으면 거절을 그대로 전달)
+        return fetched.publishOn(Schedulers.boundedElastic())
+                .map(result -> {
+                    s.merge(result.bars, result.full);
+                    return s.toChart();
+                })
+                .onErrorResume(e -> e instanceof KisRateLimitException && s.hasSealed(),
+                        e -> Mono.fromCallable(s::toChart).subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private long refreshNanos() {
+        return MarketCalendar.isSessionOpen(ZonedDateTime.now(SEOUL)) ? refreshOpenNanos : refreshClosedNanos;
+    }
+
+    private record Result(BarColumns bars, boolean full) {}
+
+    // 기간 식별값 (D: epoch day, W: ISO 주 시작일, M: 연*12+월) - 같은 기간의 봉은 같은 값
+    private static long periodKey(char type, LocalDate date) {
+        switch (type) {
+            case 'W': return date.with(DayOfWeek.MONDAY).toEpochDay();
+            case 'M': return date.getYear() * 12L + date.getMonthValue() - 1;
+            default: return date.toEpochDay();
+        }
+    }
+
+    private static LocalDate nextPeriodStart(char type, LocalDate date) {
+        switch (type) {
+            case 'W': return date.with(DayOfWeek.MONDAY).plusWeeks(1);
+            case 'M': return date.withDayOfMonth(1).plusMonths(1);
+            default: return date.plusDays(1);
+        }
+    }
+
+    private static boolean isSealed(char type, LocalDate date, ZonedDateTime now) {
+        LocalDate today = now.toLocalDate();
+        long key = periodKey(type, date), todayKey = periodKey(type, today);
+        if (key < todayKey) return true;
+        return type == 'D' && key == todayKey && !now.toLocalTime().isBefore(DAY_SEALED_AT);
+    }
+
+    private static LocalDate toDate(long epochSecond) {
+        return LocalDate.ofEpochDay(Math.floorDiv(epochSecond + 9 * 3600, 86400));
+    }
+
+    /**
+     * 한 (종목, 시장, 주기)의 확정 봉(BarStore, 추가만 가능)과 진행 중인 봉 하나
+     */
+    private final class Series {
+        final char type;
+        final String timeframe;
+        final String market;
+        final String stockCode;
+        volatile Fetcher fetcher;
+
+        long lastSealed = Long.MIN_VALUE; // 마지막 확정 봉 시각
+        long[] current; // {time, open, high, low, close, volume}, 없으면 null
+        boolean loaded;
+        long lastRefresh;
+
+        Series(char type, String market, String stockCode) {
+            this.type = type;
+            this.timeframe = String.valueOf(type);
+            this.market = market;
+            this.stockCode = stockCode;
+        }
+
+        synchronized boolean hasCurrent() {
+            return current != null;
+        }
+
+        synchronized boolean hasSealed() {
+            return lastSealed != Long.MIN_VALUE;
+        }
+
+        synchronized void ensureLoaded() {
+            if (loaded) return;
+            loaded = true;
+            lastSealed = barStore.lastTime(timeframe, market, stockCode);
+        }
+
+        // 비어 있으면 항상, 다음 봉이 생길 수 없으면 조회하지 않고, 그 외에는 갱신 주기마다
+        boolean needsRefresh(long now, LocalDate today, long intervalNanos) {
+            if (lastSealed == Long.MIN_VALUE) return true;
+            if (current == null && nextPeriodStart(type, toDate(lastSealed)).isAfter(today)) return false;
+            return lastRefresh == 0 || now - lastRefresh >= intervalNanos;
+        }
+
+        // 마지막 확정 봉의 다음 기간 시작일 (진행 중인 봉의 기간도 포함됨), 확정 봉이 없으면 전체 조회
+        String fetchFrom() {
+            if (lastSealed == Long.MIN_VALUE) return null;
+            return nextPeriodStart(type, toDate(lastSealed)).format(DATE);
+        }
+
+        synchronized void merge(BarColumns bars, boolean full) {
+            lastRefresh = System.nanoTime();
+            if (bars.isEmpty()) return; // 조회 실패 - 기존 봉 유지
+            ZonedDateTime now = ZonedDateTime.now(SEOUL);
+            BarColumns sealed = new BarColumns(bars.size());
+            long sealedKey = full || lastSealed == Long.MIN_VALUE ? Long.MIN_VALUE : periodKey(type, toDate(lastSealed));
+            if (full) current = null;
+            for (int i = 0; i < bars.size(); i++) {
+                LocalDate date = toDate(bars.time(i));
+                long key = periodKey(type, date);
+                if (key <= sealedKey) continue;
+                if (isSealed(type, date, now)) {
+                    sealed.add(date.atStartOfDay(SEOUL).toEpochSecond(), bars.open(i), bars.high(i), bars.low(i), bars.close(i), bars.volume(i));
+                    sealedKey = key;
+                } else {
+                    current = new long[]{bars.time(i), bars.open(i), bars.high(i), bars.low(i), bars.close(i), bars.volume(i)};
+                }
+            }
+            if (current != null && periodKey(type, toDate(current[0])) <= sealedKey) current = null;
+
+            if (full) barStore.replace(timeframe, market, stockCode, sealed);
+            else barStore.write(timeframe, market, stockCode, sealed);
+            if (!sealed.isEmpty()) lastSealed = sealed.lastTime();
+            else if (full) lastSealed = Long.MIN_VALUE;
+        }
+
+        synchronized List<StockChartDto> toChart() {
+            BarColumns bars = barStore.read(timeframe, market, stockCode, Long.MIN_VALUE, Long.MAX_VALUE);
+            if (current != null) bars.add(current[0], current[1], current[2], current[3], current[4], current[5]);
+            return bars.toChart();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.stockPlus.service.chart;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.stockPlus.service.realtime.RealtimeTick;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * KIS 차트 응답(일/주/월봉 inquire-daily-itemchartprice, 당일분봉 inquire-time-itemchartprice,
+ * 업종 기간별 inquire-daily-indexchartprice)의 봉 배열을 토큰 단위로 읽어 BarColumns로 바로 옮기는 디코더입니다.
+ *
+ * JsonNode 트리나 행별 문자열을 만들지 않고, 값 문자는 파서 버퍼에서 바로 고정소수점으로 변환합니다.
+ * 일자(yyyyMMdd)는 달력 산술로 epoch day를 계산하고 직전 행과 같은 일자면 그 값을 재사용합니다. (분봉 응답은 모두 같은 일자)
+ * 봉 배열은 output2, 없으면 output을 사용하며, 일자가 없거나 종가가 0 이하인 행은 건너뜁니다.
+ */
+public final class KisChartDecoder {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int SEOUL_OFFSET_SECONDS = 9 * 3600;
+
+    // 행 필드 슬롯
+    private static final int DATE = 0, HOUR = 1, OPEN = 2, HIGH = 3, LOW = 4, CURRENT = 5, CLOSE = 6,
+            TICK_VOLUME = 7, ACC_VOLUME = 8, SLOTS = 9;
+
+    private KisChartDecoder() {}
+
+    /**
+     * 응답 본문을 읽어 시각 오름차순 봉으로 반환합니다. (스트림은 호출자가 닫음)
+     */
+    public static BarColumns decode(InputStream body) throws IOException {
+        try (JsonParser parser = JSON.createParser(body)) {
+            return new Reader(parser).read();
+        }
+    }
+
+    private static final class Reader {
+        final JsonParser parser;
+        final long[] row = new long[SLOTS];
+        final boolean[] present = new boolean[SLOTS];
+        int lastDate = -1;
+        long lastDayStart;
+
+        Reader(JsonParser parser) {
+            this.parser = parser;
+        }
+
+        BarColumns read() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) return sorted(readRows());
+            if (token != JsonToken.START_OBJECT) return new BarColumns(1);
+            BarColumns output2 = null, output = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_ARRAY && "output2".equals(name)) {
+                    output2 = readRows();
+                } else if (value == JsonToken.START_ARRAY && "output".equals(name)) {
+                    output = readRows();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return sorted(output2 != null ? output2 : output != null ? output : new BarColumns(1));
+        }
+
+        // START_ARRAY 다음부터 END_ARRAY까지
+        private BarColumns readRows() throws IOException {
+            BarColumns bars = new BarColumns(128);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                Arrays.fill(present, false);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    int slot = slotOf(parser.getCurrentName());
+                    JsonToken value = parser.nextToken();
+                    if (slot < 0 || !value.isScalarValue() || value == JsonToken.VALUE_NULL) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    char[] chars = parser.getTextCharacters();
+                    int offset = parser.getTextOffset(), length = parser.getTextLength();
+                    row[slot] = slot == DATE || slot == HOUR ? parseDigits(chars, offset, length) : parseFixed(chars, offset, length);
+                    present[slot] = true;
+                }
+                addRow(bars);
+            }
+            return bars;
+        }
+
+        private void addRow(BarColumns bars) {
+            if (!present[DATE] || row[DATE] <= 0) return;
+            long close = present[CURRENT] ? row[CURRENT] : present[CLOSE] ? row[CLOSE] : 0;
+            if (close <= 0) return;
+            long time = dayStart((int) row[DATE]);
+            if (present[HOUR]) {
+                int hhmmss = (int) row[HOUR];
+                time += hhmmss / 10000 * 3600L + hhmmss / 100 % 100 * 60L + hhmmss % 100;
+            }
+            long volume = (present[TICK_VOLUME] ? row[TICK_VOLUME] : present[ACC_VOLUME] ? row[ACC_VOLUME] : 0) / RealtimeTick.PRICE_SCALE;
+            bars.add(time,
+                    present[OPEN] ? row[OPEN] : close,
+                    present[HIGH] ? row[HIGH] : close,
+                    present[LOW] ? row[LOW] : close,
+                    close,
+                    volume);
+        }
+
+        // yyyyMMdd -> 해당일 0시(서울) epoch seconds
+        private long dayStart(int yyyymmdd) {
+            if (yyyymmdd != lastDate) {
+                lastDate = yyyymmdd;
+                lastDayStart = epochDay(yyyymmdd / 10000, yyyymmdd / 100 % 100, yyyymmdd % 100) * 86400 - SEOUL_OFFSET_SECONDS;
+            }
+            return lastDayStart;
+        }
+    }
+
+    private static int slotOf(String name) {
+        switch (name) {
+            case "stck_bsop_date": return DATE;
+            case "stck_cntg_hour": return HOUR;
+            case "stck_oprc": case "bstp_nmix_oprc": return OPEN;
+            case "stck_hgpr": case "bstp_nmix_hgpr": return HIGH;
+            case "stck_lwpr": case "bstp_nmix_lwpr": return LOW;
+            case "stck_prpr": case "bstp_nmix_prpr": return CURRENT;
+            case "stck_clpr": return CLOSE;
+            case "cntg_vol": return TICK_VOLUME;
+            case "acml_vol": return ACC_VOLUME;
+            default: return -1;
+        }
+    }
+
+    private static BarColumns sorted(BarColumns bars) {
+        bars.sort(); // 최신 봉부터 온 응답은 뒤집기만 함
+        return bars;
+    }
+
+    /**
+     * 그레고리력 (년, 월, 일) -> 1970-01-01 기준 일수
+     */
+    static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097L + doe - 719468;
+    }
+
+    private static long parseDigits(char[] chars, int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            char ch = chars[i];
+            if (ch < '0' || ch > '9') return -1;
+            value = value * 10 + (ch - '0');
+        }
+        return length == 0 ? -1 : value;
+    }
+
+    // RealtimeTick.parseFixed와 같은 규칙 (x100, 소수점 2자리 이하 버림, 형식 오류는 0)
+    private static long parseFixed(char[] chars, int offset, int length) {
+        long value = 0;
+        int decimals = -1;
+        boolean negative = false;
+        for (int i = offset; i < offset + length; i++) {
+            char ch = chars[i];
+            if (ch == '-' && i == offset) {
+                negative = true;
+            } else if (ch == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (ch >= '0' && ch <= '9') {
+                if (decimals >= RealtimeTick.PRICE_DECIMALS) continue;
+                value = value * 10 + (ch - '0');
+                if (decimals >= 0) decimals++;
+            } else if (ch != '+') {
+                return 0;
+            }
+        }
+        for (int d = Math.max(decimals, 0); d < RealtimeTick.PRICE_DECIMALS; d++) value *= 10;
+        return negative ? -value : value;
+    }
+}
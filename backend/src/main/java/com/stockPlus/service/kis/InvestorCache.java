@@ -0,0 +1,154 @@
+package com.stockPlus.service.kis;
+
+import com.stockPlus.domain.InvestorDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 투자자별 매매동향(inquire-investor) 결과를 (종목, 시장) 단위로 보관하는 캐시입니다.
+ *
+ * 일별 투자자 동향은 하루 몇 번만 바뀌므로 보관 기간을 거래 시간에 맞춥니다.
+ * - 거래일 거래 시간(08:00~20:00): 짧은 TTL (kis.rest.investor.ttl-session-ms)
+ * - 거래일 장 종료 후/개장 전: 다음 거래 시작 시각까지
+ * - 주말/휴장일: 고정 TTL (kis.rest.investor.ttl-holiday-ms), 단 다음 거래 시작 시각을 넘지 않음
+ * 만료된 값이 있으면 그 값을 바로 응답하고 백그라운드(BATCH 우선순위)에서 한 번만 다시 조회합니다. (stale-while-revalidate)
+ * 항목이 비어 있는 결과(조회 실패 포함)는 보관하지 않으며, 기존 값이 있으면 그대로 유지합니다.
+ */
+@Component
+@Slf4j
+public class InvestorCache {
+
+    private static final long STALE_RETENTION_MS = 24 * 3600_000L; // 만료 후 이 기간 동안 요청이 없으면 정리
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    @Value("${kis.rest.investor.enabled:true}")
+    private boolean enabled;
+
+    @Value("${kis.rest.investor.ttl-session-ms:300000}")
+    private long sessionTtlMs;
+
+    @Value("${kis.rest.investor.ttl-holiday-ms:21600000}")
+    private long holidayTtlMs;
+
+    /**
+     * 보관 중인 값을 반환하거나 loader로 조회합니다.
+     * 같은 키의 동시 조회(최초 조회, 백그라운드 갱신)는 진행 중인 호출 하나를 공유합니다.
+     */
+    public Mono<InvestorDto> get(String stockCode, String marketDiv, Supplier<Mono<InvestorDto>> loader) {
+        if (!enabled) return Mono.defer(loader);
+        return Mono.defer(() -> {
+            String key = stockCode + "|" + marketDiv;
+            Entry entry = entries.computeIfAbsent(key, k -> new Entry());
+            InvestorDto value = entry.value;
+            long now = System.currentTimeMillis();
+            if (value != null && now < entry.expiresAt) {
+                hits.incrementAndGet();
+                return Mono.just(value);
+            }
+            if (value != null) {
+                staleHits.incrementAndGet();
+                load(entry, loader, true)
+                        .subscribeOn(Schedulers.boundedElastic()) // 응답 중인 호출자 스레드에서 조회를 시작하지 않음
+                        .contextWrite(KisRateGovernor.withPriority(KisRateGovernor.Priority.BATCH))
+                        .subscribe(v -> {}, e -> log.warn("Investor refresh failed {}: {}", key, e.getMessage()));
+                return Mono.just(value);
+            }
+            misses.incrementAndGet();
+            return load(entry, loader, false).defaultIfEmpty(emptyOf(stockCode));
+        });
+    }
+
+    // 진행 중인 조회가 있으면 공유, 없으면 새로 시작
+    private Mono<InvestorDto> load(Entry entry, Supplier<Mono<InvestorDto>> loader, boolean background) {
+        synchronized (entry) {
+            if (entry.inflight != null) return entry.inflight;
+            if (background) refreshes.incrementAndGet();
+            Mono<InvestorDto> call = Mono.defer(loader)
+                    .doOnNext(result -> {
+                        if (result.getItems() != null && !result.getItems().isEmpty()) {
+                            entry.value = result;
+                            entry.expiresAt = expiresAt(ZonedDateTime.now(MarketCalendar.SEOUL));
+                        } else if (background) {
+                            refreshFailures.incrementAndGet();
+                        }
+                    })
+                    .doFinally(signal -> {
+                        synchronized (entry) {
+                            entry.inflight = null;
+                        }
+                    })
+                    .cache();
+            entry.inflight = call;
+            return call;
+        }
+    }
+
+    /**
+     * now에 조회한 값의 만료 시각 (epoch millis)
+     */
+    long expiresAt(ZonedDateTime now) {
+        long nowMs = now.toInstant().toEpochMilli();
+        if (MarketCalendar.isSessionOpen(now)) return nowMs + sessionTtlMs;
+        long nextOpenMs = MarketCalendar.nextOpen(now).toInstant().toEpochMilli();
+        LocalDate today = now.withZoneSameInstant(MarketCalendar.SEOUL).toLocalDate();
+        if (MarketCalendar.isTradingDay(today)) return nextOpenMs;
+        return Math.min(nowMs + holidayTtlMs, nextOpenMs);
+    }
+
+    /**
+     * 만료 후 오래 요청되지 않은 항목을 정리합니다.
+     */
+    @Scheduled(fixedDelay = 600_000)
+    public void purgeExpired() {
+        long threshold = System.currentTimeMillis() - STALE_RETENTION_MS;
+        entries.values().removeIf(entry -> entry.inflight == null && entry.expiresAt < threshold);
+    }
+
+    /**
+     * 적중률과 갱신 횟수 (모니터링용)
+     */
+    public Map<String, Object> getStatus() {
+        long hit = hits.get(), stale = staleHits.get(), miss = misses.get();
+        long total = hit + stale + miss;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("entries", entries.size());
+        status.put("hits", hit);
+        status.put("staleHits", stale);
+        status.put("misses", miss);
+        status.put("hitRate", total == 0 ? 0.0 : Math.round((hit + stale) * 1000.0 / total) / 1000.0);
+        status.put("backgroundRefreshes", refreshes.get());
+        status.put("refreshFailures", refreshFailures.get());
+        status.put("sessionOpen", MarketCalendar.isSessionOpen(ZonedDateTime.now(MarketCalendar.SEOUL)));
+        return status;
+    }
+
+    private static InvestorDto emptyOf(String stockCode) {
+        return InvestorDto.builder().stockCode(stockCode).items(Collections.emptyList()).build();
+    }
+
+    private static final class Entry {
+        volatile InvestorDto value;
+        volatile long expiresAt;
+        volatile Mono<InvestorDto> inflight; // 변경은 entry 잠금 안에서만
+    }
+}
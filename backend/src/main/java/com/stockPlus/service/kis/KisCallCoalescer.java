@@ -0,0 +1,129 @@
+package com.stockPlus.service.kis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 같은 KIS 조회(호출 종류, 종목, 거래소, 주기)를 동시에 요청한 호출자들이 진행 중인 Mono 하나를 공유하게 하는
+ * single-flight 계층입니다.
+ *
+ * 인기 종목이 움직일 때 여러 대시보드가 같은 현재가/차트를 같은 순간에 요청해도 KIS 호출은 한 번만 나갑니다.
+ * 결과는 선택적으로 짧은 TTL 동안 보관하며, TTL은 장중(거래일 08:00~20:00, NXT 포함 - MarketCalendar.isSessionOpen)과 장외를 구분합니다.
+ * (장외에는 값이 바뀌지 않으므로 더 오래 보관)
+ * 오류나 빈 결과, 호출자가 보관 대상이 아니라고 판단한 결과(예: 조회 실패 대체값인 "0" 가격, 빈 차트)는
+ * 진행 중이던 호출자에게만 전달하고 보관하지 않으므로 다음 호출이 바로 다시 조회합니다.
+ */
+@Component
+@Slf4j
+public class KisCallCoalescer {
+
+    /**
+     * 결과 보관 시간 정책
+     */
+    public enum Kind { QUOTE, CHART }
+
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final long[] openTtlNanos = new long[Kind.values().length];
+    private final long[] closedTtlNanos = new long[Kind.values().length];
+    private final AtomicLong upstreamCalls = new AtomicLong();
+    private final AtomicLong sharedCalls = new AtomicLong();
+
+    public KisCallCoalescer(@Value("${kis.rest.coalesce.quote-ttl-ms:1000}") long quoteTtlMs,
+                            @Value("${kis.rest.coalesce.quote-ttl-closed-ms:60000}") long quoteClosedTtlMs,
+                            @Value("${kis.rest.coalesce.chart-ttl-ms:5000}") long chartTtlMs,
+                            @Value("${kis.rest.coalesce.chart-ttl-closed-ms:600000}") long chartClosedTtlMs) {
+        openTtlNanos[Kind.QUOTE.ordinal()] = quoteTtlMs * 1_000_000;
+        closedTtlNanos[Kind.QUOTE.ordinal()] = quoteClosedTtlMs * 1_000_000;
+        openTtlNanos[Kind.CHART.ordinal()] = chartTtlMs * 1_000_000;
+        closedTtlNanos[Kind.CHART.ordinal()] = chartClosedTtlMs * 1_000_000;
+    }
+
+    /**
+     * 같은 키로 진행 중이거나 보관 중인 결과가 있으면 그것을 공유하고, 없으면 call을 한 번 실행합니다.
+     * 호출 우선순위가 다른 호출자(예: 배치 보정)는 서로 다른 키로 취급하여 낮은 우선순위 대기열에 묶이지 않게 합니다.
+     *
+     * @param key 호출 종류와 파라미터를 이어 붙인 키 (예: "price|005930|UN")
+     */
+    public <T> Mono<T> coalesce(Kind kind, String key, Supplier<Mono<T>> call) {
+        return coalesce(kind, key, call, value -> true);
+    }
+
+    /**
+     * cacheable이 false인 결과는 진행 중이던 호출자와만 공유하고 TTL 동안 보관하지 않습니다.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> coalesce(Kind kind, String key, Supplier<Mono<T>> call, Predicate<? super T> cacheable) {
+        return Mono.deferContextual(ctx -> {
+            KisRateGovernor.Priority priority = KisRateGovernor.priorityOf(ctx, null);
+            String flightKey = priority == null ? key : key + "|" + priority;
+            long now = System.nanoTime();
+            boolean[] created = new boolean[1];
+            Flight flight = flights.compute(flightKey, (k, existing) -> {
+                if (existing != null && !existing.isExpired(now)) return existing;
+                created[0] = true;
+                return new Flight(k, kind, (Supplier<Mono<Object>>) (Supplier<?>) call, (Predicate<Object>) cacheable);
+            });
+            (created[0] ? upstreamCalls : sharedCalls).incrementAndGet();
+            return (Mono<T>) flight.mono;
+        });
+    }
+
+    /**
+     * 만료된 보관 결과를 정리합니다. (다시 요청되지 않는 키가 남지 않도록)
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        flights.values().removeIf(flight -> flight.isExpired(now));
+    }
+
+    /**
+     * 실제 호출 수와 공유된 호출 수 (모니터링용)
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("entries", flights.size());
+        status.put("upstreamCalls", upstreamCalls.get());
+        status.put("sharedCalls", sharedCalls.get());
+        return status;
+    }
+
+    private long ttlNanos(Kind kind) {
+        boolean open = MarketCalendar.isSessionOpen(ZonedDateTime.now(MarketCalendar.SEOUL));
+        return (open ? openTtlNanos : closedTtlNanos)[kind.ordinal()];
+    }
+
+    private final class Flight {
+        final Mono<Object> mono;
+        volatile long expiresAt = Long.MAX_VALUE; // 진행 중에는 만료되지 않음
+
+        Flight(String key, Kind kind, Supplier<Mono<Object>> call, Predicate<Object> cacheable) {
+            this.mono = Mono.defer(call)
+                    .doOnEach(signal -> {
+                        if (signal.isOnNext()) {
+                            long ttl = cacheable.test(signal.get()) ? ttlNanos(kind) : 0;
+                            if (ttl > 0) expiresAt = System.nanoTime() + ttl;
+                            else flights.remove(key, this);
+                        } else if (signal.isOnError() || (signal.isOnComplete() && expiresAt == Long.MAX_VALUE)) {
+                            flights.remove(key, this);
+                        }
+                    })
+                    .cache();
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.stockPlus.service.kis;
+
+import com.stockPlus.service.realtime.TokenBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * KIS REST 호출 전체에 앞서는 호출량 조절기입니다.
+ *
+ * 앱 키당 초당 호출 한도에 맞춘 토큰 버킷 하나를 모든 호출이 공유하고,
+ * 토큰이 없으면 우선순위별 대기열(현재가 > 차트 > 배치)에 넣어 높은 우선순위부터 허가합니다.
+ * 대기열은 크기가 제한되어 있고, 우선순위별 최대 대기 시간이 지나면 호출하지 않고 거절합니다.
+ * (한도를 넘겨 KIS 오류를 받는 대신 서버 쪽에서 미리 줄을 세움)
+ */
+@Component
+@Slf4j
+public class KisRateGovernor {
+
+    /**
+     * 호출 우선순위 (선언 순서가 우선순위)
+     */
+    public enum Priority {
+        INTERACTIVE, // 사용자가 보고 있는 현재가/지수
+        CHART,       // 차트, 투자자 동향
+        BATCH        // 재연결 보정, AI 분석 등 백그라운드 조회
+    }
+
+    private static final String CONTEXT_KEY = KisRateGovernor.class.getName() + ".priority";
+
+    private final TokenBucket bucket;
+    private final Scheduler timer = Schedulers.parallel();
+    private final Lane[] lanes = new Lane[Priority.values().length];
+    private final AtomicLong serverThrottled = new AtomicLong();
+    private boolean drainScheduled; // 다음 토큰 시점 drain 예약 여부 (this로 보호)
+
+    public KisRateGovernor(@Value("${kis.rest.rate.per-second:18}") double permitsPerSecond,
+                           @Value("${kis.rest.rate.burst:6}") int burst,
+                           @Value("${kis.rest.queue.interactive:64}") int interactiveQueue,
+                           @Value("${kis.rest.queue.chart:128}") int chartQueue,
+                           @Value("${kis.rest.queue.batch:256}") int batchQueue,
+                           @Value("${kis.rest.max-wait-ms.interactive:2000}") long interactiveWaitMs,
+                           @Value("${kis.rest.max-wait-ms.chart:5000}") long chartWaitMs,
+                           @Value("${kis.rest.max-wait-ms.batch:30000}") long batchWaitMs) {
+        this.bucket = new TokenBucket(permitsPerSecond, burst);
+        lanes[Priority.INTERACTIVE.ordinal()] = new Lane(Priority.INTERACTIVE, interactiveQueue, interactiveWaitMs);
+        lanes[Priority.CHART.ordinal()] = new Lane(Priority.CHART, chartQueue, chartWaitMs);
+        lanes[Priority.BATCH.ordinal()] = new Lane(Priority.BATCH, batchQueue, batchWaitMs);
+    }
+
+    /**
+     * 구독 체인 안의 KIS 호출 우선순위를 지정하는 Context (요청 기본 우선순위보다 우선)
+     * 예: kisStockService.fetchUnifiedCurrentPrice(code, "J").contextWrite(KisRateGovernor.withPriority(BATCH))
+     */
+    public static Context withPriority(Priority priority) {
+        return Context.of(CONTEXT_KEY, priority);
+    }
+
+    static Priority priorityOf(ContextView context, Priority fallback) {
+        return context.getOrDefault(CONTEXT_KEY, fallback);
+    }
+
+    /**
+     * 호출 허가를 기다립니다. 허가되면 완료되고, 대기열이 가득 찼거나 최대 대기 시간이 지나면
+     * KisRateLimitException으로 실패합니다. 대기 중 구독을 취소하면 대기열에서 빠집니다.
+     */
+    public Mono<Void> acquire(Priority priority) {
+        return Mono.create(sink -> enqueue(lanes[priority.ordinal()], sink));
+    }
+
+    /**
+     * KIS가 초당 거래건수 초과(EGW00201)로 거절한 호출 수를 기록합니다.
+     */
+    void recordServerThrottled() {
+        serverThrottled.incrementAndGet();
+    }
+
+    private void enqueue(Lane lane, MonoSink<Void> sink) {
+        Waiter waiter = new Waiter(sink, System.nanoTime());
+        boolean granted = false;
+        synchronized (this) {
+            // 대기 중인 호출이 없을 때만 바로 토큰 사용 (먼저 온 높은 우선순위 호출을 앞지르지 않음)
+            if (isIdle() && bucket.tryAcquire() == 0) {
+                granted = true;
+            } else if (lane.queue.size() >= lane.capacity) {
+                lane.rejectedFull.incrementAndGet();
+            } else {
+                lane.queue.addLast(waiter);
+                sink.onCancel(() -> waiter.cancelled = true);
+                scheduleDrain(0);
+                return;
+            }
+        }
+        if (granted) {
+            lane.granted.incrementAndGet();
+            sink.success();
+        } else {
+            sink.error(new KisRateLimitException(lane.priority + " queue is full (" + lane.capacity + ")"));
+        }
+    }
+
+    // 기한이 지난 대기자를 거절하고, 토큰이 있는 만큼 높은 우선순위부터 허가 (알림은 락 밖에서)
+    private void drain() {
+        List<Waiter> granted = new ArrayList<>();
+        List<Waiter> expired = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (this) {
+            drainScheduled = false;
+            for (Lane lane : lanes) {
+                Waiter head;
+                while ((head = lane.queue.peekFirst()) != null && (head.cancelled || now - head.enqueuedAt > lane.maxWaitNanos)) {
+                    lane.queue.pollFirst();
+                    if (!head.cancelled) {
+                        lane.rejectedDeadline.incrementAndGet();
+                        expired.add(head);
+                    }
+                }
+            }
+            for (Lane lane : lanes) {
+                while (!lane.queue.isEmpty()) {
+                    Waiter head = lane.queue.peekFirst();
+                    if (head.cancelled) {
+                        lane.queue.pollFirst();
+                        continue;
+                    }
+                    long wait = bucket.tryAcquire();
+                    if (wait > 0) {
+                        scheduleDrain(wait);
+                        break;
+                    }
+                    lane.queue.pollFirst();
+                    lane.granted.incrementAndGet();
+                    lane.recordWait(now - head.enqueuedAt);
+                    granted.add(head);
+                }
+                if (drainScheduled) break;
+            }
+        }
+        for (Waiter waiter : expired) {
+            waiter.sink.error(new KisRateLimitException("Waited longer than the deadline for a KIS REST permit"));
+        }
+        for (Waiter waiter : granted) waiter.sink.success();
+    }
+
+    private void scheduleDrain(long delayNanos) {
+        if (drainScheduled) return;
+        drainScheduled = true;
+        timer.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private boolean isIdle() {
+        for (Lane lane : lanes) {
+            if (!lane.queue.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 우선순위별 허가/거절/대기 현황 (모니터링용)
+     */
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("availablePermits", Math.floor(bucket.available() * 100) / 100);
+        status.put("serverThrottled", serverThrottled.get());
+        for (Lane lane : lanes) {
+            Map<String, Object> l = new LinkedHashMap<>();
+            l.put("queued", lane.queue.size());
+            l.put("capacity", lane.capacity);
+            l.put("granted", lane.granted.get());
+            l.put("rejectedQueueFull", lane.rejectedFull.get());
+            l.put("rejectedDeadline", lane.rejectedDeadline.get());
+            l.put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(lane.maxWaitObserved));
+            l.put("avgWaitMillis", lane.waited == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(lane.totalWait / lane.waited));
+            status.put(lane.priority.name().toLowerCase(), l);
+        }
+        return status;
+    }
+
+    private static final class Lane {
+        final Priority priority;
+        final int capacity;
+        final long maxWaitNanos;
+        final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        final AtomicLong granted = new AtomicLong();
+        final AtomicLong rejectedFull = new AtomicLong();
+        final AtomicLong rejectedDeadline = new AtomicLong();
+        // 대기 후 허가된 호출의 대기 시간 통계 (governor 락 안에서만 갱신)
+        long waited, totalWait, maxWaitObserved;
+
+        Lane(Priority priority, int capacity, long maxWaitMillis) {
+            this.priority = priority;
+            this.capacity = capacity;
+            this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        }
+
+        void recordWait(long nanos) {
+            waited++;
+            totalWait += nanos;
+            if (nanos > maxWaitObserved) maxWaitObserved = nanos;
+        }
+    }
+
+    private static final class Waiter {
+        final MonoSink<Void> sink;
+        final long enqueuedAt;
+        volatile boolean cancelled;
+
+        Waiter(MonoSink<Void> sink, long enqueuedAt) {
+            this.sink = sink;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.stockPlus.service.kis;
+
+/**
+ * KIS REST 호출 허가를 받지 못했을 때(대기열 초과, 최대 대기 시간 초과) 발생하는 예외입니다.
+ */
+public class KisRateLimitException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public KisRateLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,133 @@
+package com.stockPlus.service.kis;
+
+import com.stockPlus.service.kis.KisRateGovernor.Priority;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * KIS 국내주식 시세 REST 요청 하나 (tr_id, 경로, 쿼리 파라미터)입니다.
+ *
+ * tr_id별 정적 팩토리로만 생성하므로 경로와 tr_id, 필수 파라미터 이름이 한 곳에 모여 있습니다.
+ * 공통 헤더(인증, appkey 등)는 KisRestClient가 붙입니다.
+ * 요청마다 기본 호출 우선순위가 있으며, 구독 Context(KisRateGovernor.withPriority)로 바꿀 수 있습니다.
+ */
+public final class KisRequest {
+
+    private static final String QUOTATIONS = "/uapi/domestic-stock/v1/quotations/";
+
+    private final String trId;
+    private final String path;
+    private final Priority priority;
+    private final Map<String, String> params = new LinkedHashMap<>();
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    private KisRequest(String trId, String path, Priority priority) {
+        this.trId = trId;
+        this.path = path;
+        this.priority = priority;
+    }
+
+    /**
+     * 주식현재가 시세 (FHKST01010100)
+     * @param marketDiv J(KRX), NX(NXT), UN(통합)
+     */
+    public static KisRequest price(String marketDiv, String stockCode) {
+        return new KisRequest("FHKST01010100", QUOTATIONS + "inquire-price", Priority.INTERACTIVE)
+                .param("FID_COND_MRKT_DIV_CODE", marketDiv)
+                .param("FID_INPUT_ISCD", stockCode);
+    }
+
+    /**
+     * 주식현재가 호가/예상체결 (FHKST01010200)
+     */
+    public static KisRequest expectedPrice(String marketDiv, String stockCode) {
+        return new KisRequest("FHKST01010200", QUOTATIONS + "inquire-asking-price-exp-ccn", Priority.INTERACTIVE)
+                .param("FID_COND_MRKT_DIV_CODE", marketDiv)
+                .param("FID_INPUT_ISCD", stockCode);
+    }
+
+    /**
+     * 주식현재가 투자자 (FHKST01010900)
+     */
+    public static KisRequest investor(String marketDiv, String stockCode) {
+        return new KisRequest("FHKST01010900", QUOTATIONS + "inquire-investor", Priority.CHART)
+                .param("FID_COND_MRKT_DIV_CODE", marketDiv)
+                .param("FID_INPUT_ISCD", stockCode)
+                .header("tr_cont", "N");
+    }
+
+    /**
+     * 주식당일분봉조회 (FHKST03010200) - 기준 시각 이전 최대 30건
+     * @param hour 기준 시각 (HHMMSS)
+     */
+    public static KisRequest intradayChart(String marketDiv, String stockCode, String hour) {
+        return new KisRequest("FHKST03010200", QUOTATIONS + "inquire-time-itemchartprice", Priority.CHART)
+                .param("FID_ETC_CLS_CODE", "")
+                .param("FID_COND_MRKT_DIV_CODE", marketDiv)
+                .param("FID_INPUT_ISCD", stockCode)
+                .param("FID_INPUT_HOUR_1", hour)
+                .param("FID_PW_DATA_INXC_NUM", "100")
+                .param("FID_PW_DATA_INCU_YN", "Y");
+    }
+
+    /**
+     * 국내주식기간별시세 일/주/월봉 (FHKST03010100) - 최대 100건
+     * @param periodCode D, W, M
+     * @param from 조회 시작일 (yyyyMMdd)
+     * @param to 조회 종료일 (yyyyMMdd)
+     */
+    public static KisRequest dailyChart(String marketDiv, String stockCode, String periodCode, String from, String to) {
+        return new KisRequest("FHKST03010100", QUOTATIONS + "inquire-daily-itemchartprice", Priority.CHART)
+                .param("FID_COND_MRKT_DIV_CODE", marketDiv)
+                .param("FID_INPUT_ISCD", stockCode)
+                .param("FID_PERIOD_DIV_CODE", periodCode)
+                .param("FID_ORG_ADJ_PRC", "0")
+                .param("FID_PW_DATA_INXC_NUM", "100")
+                .param("FID_INPUT_DATE_1", from)
+                .param("FID_INPUT_DATE_2", to);
+    }
+
+    /**
+     * 업종 현재지수 (FHPUP02100000)
+     */
+    public static KisRequest indexPrice(String indexCode) {
+        return new KisRequest("FHPUP02100000", QUOTATIONS + "inquire-index-price", Priority.INTERACTIVE)
+                .param("FID_COND_MRKT_DIV_CODE", "U")
+                .param("FID_INPUT_ISCD", indexCode);
+    }
+
+    /**
+     * 업종 기간별 시세 (FHKUP03500100)
+     * @param periodCode D, W, M
+     */
+    public static KisRequest indexDailyChart(String indexCode, String periodCode) {
+        return new KisRequest("FHKUP03500100", QUOTATIONS + "inquire-daily-indexchartprice", Priority.CHART)
+                .param("FID_COND_MRKT_DIV_CODE", "U")
+                .param("FID_INPUT_ISCD", indexCode)
+                .param("FID_PERIOD_DIV_CODE", periodCode)
+                .param("FID_ORG_ADJ_PRC", "0");
+    }
+
+    private KisRequest param(String name, String value) {
+        params.put(name, value);
+        return this;
+    }
+
+    private KisRequest header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public String getTrId() { return trId; }
+    public String getPath() { return path; }
+    public Priority getPriority() { return priority; }
+    public Map<String, String> getParams() { return Collections.unmodifiableMap(params); }
+    public Map<String, String> getHeaders() { return Collections.unmodifiableMap(headers); }
+
+    @Override
+    public String toString() {
+        return trId + " " + path + params;
+    }
+}
@@ -0,0 +1,195 @@
+package com.stockPlus.service.kis;
+
+import com.stockPlus.service.KisAuthService;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriBuilder;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * KIS 국내주식 시세 REST API 공용 클라이언트입니다.
+ *
+ * 요청마다 WebClient를 새로 만들지 않고, 하나의 Reactor Netty 커넥션 풀을 공유하여
+ * keep-alive 연결을 재사용합니다. (HTTPS면 ALPN으로 HTTP/2를 협상하고, 지원하지 않으면 HTTP/1.1)
+ * 연결/응답 타임아웃을 모든 시세 호출에 동일하게 적용하고, 공통 헤더는 여기서만 붙입니다.
+ * 응답은 문자열로 받지 않고 바로 JsonNode 또는 DTO로 디코딩하며, 차트처럼 큰 응답은 수신 버퍼를 스트림 디코더로 직접 읽습니다.
+ * 모든 호출은 KisRateGovernor의 허가를 받은 뒤 전송되며, KIS가 초당 한도 초과로 거절하면 허가부터 다시 받아 재시도합니다.
+ * 접근 토큰은 KisAuthService에서 블로킹 없이 받아 붙이고, 토큰이 거절되면 강제 갱신 후 한 번만 다시 호출합니다.
+ */
+@Component
+@Slf4j
+public class KisRestClient {
+
+    // KIS 초당 거래건수 초과 오류 코드
+    private static final String SERVER_THROTTLED_CODE = "EGW00201";
+    // KIS 접근토큰 만료/무효 오류 코드 (HTTP 401 외에 500 응답 본문으로 오는 경우가 있음)
+    private static final String TOKEN_EXPIRED_CODE = "EGW00123";
+    private static final String TOKEN_INVALID_CODE = "EGW00121";
+    private static final int THROTTLED_RETRIES = 2;
+    private static final Duration THROTTLED_BACKOFF = Duration.ofMillis(250);
+
+    private final KisAuthService kisAuthService;
+    private final KisRateGovernor governor;
+    private final ConnectionProvider connectionProvider;
+    private final WebClient webClient;
+
+    public KisRestClient(KisAuthService kisAuthService, KisRateGovernor governor, WebClient.Builder webClientBuilder,
+                         @Value("${kis.rest.max-connections:32}") int maxConnections,
+                         @Value("${kis.rest.pending-acquire-timeout-ms:3000}") long pendingAcquireTimeoutMs,
+                         @Value("${kis.rest.max-idle-seconds:30}") long maxIdleSeconds,
+                         @Value("${kis.rest.connect-timeout-ms:2000}") int connectTimeoutMs,
+                         @Value("${kis.rest.read-timeout-ms:5000}") long readTimeoutMs) {
+        this.kisAuthService = kisAuthService;
+        this.governor = governor;
+        String baseUrl = kisAuthService.getBaseUrl();
+
+        // 유휴 연결은 서버가 끊기 전에 정리하고, 풀이 가득 차면 pendingAcquireTimeout 동안만 대기
+        this.connectionProvider = ConnectionProvider.builder("kis-rest")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(maxIdleSeconds))
+                .evictInBackground(Duration.ofSeconds(maxIdleSeconds))
+                .build();
+
+        // HTTP/2는 TLS(ALPN)에서만 협상 (평문 주소면 HTTP/1.1만 사용)
+        HttpProtocol[] protocols = baseUrl != null && baseUrl.startsWith("https")
+                ? new HttpProtocol[]{HttpProtocol.H2, HttpProtocol.HTTP11}
+                : new HttpProtocol[]{HttpProtocol.HTTP11};
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .protocol(protocols)
+                .keepAlive(true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs))
+                .doOnConnected(conn -> conn.addHandlerLast(new ReadTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS)));
+
+        this.webClient = webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .baseUrl(baseUrl)
+                .defaultHeader("content-type", MediaType.APPLICATION_JSON_VALUE)
+                .defaultHeader("custtype", "P")
+                .build();
+        log.info("KIS REST client pool: max {} connections, protocols {}, connect {}ms, read {}ms",
+                maxConnections, java.util.Arrays.toString(protocols), connectTimeoutMs, readTimeoutMs);
+    }
+
+    @PreDestroy
+    public void close() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+    }
+
+    /**
+     * 요청을 보내고 응답 본문을 지정 타입으로 디코딩합니다. (JsonNode, KIS 응답 DTO 등)
+     */
+    public <T> Mono<T> retrieve(KisRequest request, Class<T> type) {
+        return send(request, response -> response.bodyToMono(type));
+    }
+
+    public <T> Mono<T> retrieve(KisRequest request, ParameterizedTypeReference<T> type) {
+        return send(request, response -> response.bodyToMono(type));
+    }
+
+    /**
+     * 응답 본문 버퍼를 InputStream으로 디코더에 넘깁니다. (문자열/JsonNode 변환 없이 토큰 단위로 읽는 디코더용)
+     * 버퍼는 디코딩이 끝나거나 실패하면 해제됩니다.
+     */
+    public <T> Mono<T> retrieveDecoded(KisRequest request, BodyDecoder<T> decoder) {
+        return send(request, response -> response.bodyToMono(DataBuffer.class)
+                .<T>handle((buffer, sink) -> {
+                    try (InputStream body = buffer.asInputStream(true)) {
+                        sink.next(decoder.decode(body));
+                    } catch (IOException e) {
+                        sink.error(e);
+                    }
+                }));
+    }
+
+    /**
+     * 응답 본문 스트림 디코더
+     */
+    @FunctionalInterface
+    public interface BodyDecoder<T> {
+        T decode(InputStream body) throws IOException;
+    }
+
+    // 토큰 -> 허가 -> 호출, 토큰이 거절되면 강제로 갱신한 토큰으로 (허가부터) 한 번만 다시 호출
+    private <T> Mono<T> send(KisRequest request, Function<WebClient.ResponseSpec, Mono<T>> body) {
+        return kisAuthService.accessToken()
+                .flatMap(token -> governed(request, call(request, token, body))
+                        .onErrorResume(KisRestClient::isTokenRejected, e -> {
+                            log.warn("KIS rejected access token ({} {}). Retrying once with a new token.", request.getTrId(), request.getPath());
+                            return kisAuthService.refreshAccessToken(token)
+                                    .flatMap(fresh -> governed(request, call(request, fresh, body)));
+                        }));
+    }
+
+    private <T> Mono<T> call(KisRequest request, String token, Function<WebClient.ResponseSpec, Mono<T>> body) {
+        return Mono.defer(() -> body.apply(prepare(request, token).retrieve()));
+    }
+
+    // 허가 -> 호출, 초당 한도 초과 응답이면 허가부터 다시 (우선순위는 구독 Context가 있으면 그 값)
+    private <T> Mono<T> governed(KisRequest request, Mono<T> call) {
+        return Mono.deferContextual(ctx -> governor.acquire(KisRateGovernor.priorityOf(ctx, request.getPriority())))
+                .then(call)
+                .retryWhen(Retry.backoff(THROTTLED_RETRIES, THROTTLED_BACKOFF)
+                        .filter(KisRestClient::isServerThrottled)
+                        .doBeforeRetry(signal -> governor.recordServerThrottled())
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private static boolean isServerThrottled(Throwable e) {
+        return e instanceof WebClientResponseException
+                && ((WebClientResponseException) e).getResponseBodyAsString().contains(SERVER_THROTTLED_CODE);
+    }
+
+    // 401 또는 KIS 토큰 만료/무효 오류 코드
+    private static boolean isTokenRejected(Throwable e) {
+        if (!(e instanceof WebClientResponseException)) return false;
+        WebClientResponseException response = (WebClientResponseException) e;
+        if (response.getStatusCode().value() == 401) return true;
+        String body = response.getResponseBodyAsString();
+        return body.contains(TOKEN_EXPIRED_CODE) || body.contains(TOKEN_INVALID_CODE);
+    }
+
+    private WebClient.RequestHeadersSpec<?> prepare(KisRequest request, String token) {
+        return webClient.get()
+                .uri(uriBuilder -> buildUri(uriBuilder, request))
+                .headers(headers -> {
+                    headers.set("authorization", "Bearer " + token);
+                    headers.set("appkey", kisAuthService.getAppKey());
+                    headers.set("appsecret", kisAuthService.getAppSecret());
+                    headers.set("tr_id", request.getTrId());
+                    request.getHeaders().forEach(headers::set);
+                });
+    }
+
+    private static URI buildUri(UriBuilder uriBuilder, KisRequest request) {
+        uriBuilder.path(request.getPath());
+        for (Map.Entry<String, String> param : request.getParams().entrySet()) {
+            uriBuilder.queryParam(param.getKey(), param.getValue());
+        }
+        return uriBuilder.build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.stockPlus.service.kis;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Set;
+
+/**
+ * 국내 주식시장 거래일/거래 시간 계산입니다. (주말 및 2026년 지정된 휴장일 기준)
+ *
+ * 거래 시간은 NXT 프리/애프터마켓을 포함한 평일 08:00~20:00(서울)으로 봅니다.
+ */
+public final class MarketCalendar {
+
+    public static final ZoneId SEOUL = ZoneId.of("Asia/Seoul");
+    public static final int OPEN_HOUR = 8, CLOSE_HOUR = 20;
+
+    // KRX 가격을 대표(통합) 가격으로 쓰는 시간대 (HHMMSS, 양 끝 포함 - 15:30:00 종가 단일가 체결은 KRX)
+    public static final int KRX_PRICE_FROM = 85000, KRX_PRICE_TO = 153000;
+
+    // 2026년 지정된 휴장일 (YYYY-MM-DD)
+    private static final Set<LocalDate> HOLIDAYS = Set.of(
+            LocalDate.parse("2026-02-16"), LocalDate.parse("2026-02-17"), LocalDate.parse("2026-02-18"), // 설날 연휴
+            LocalDate.parse("2026-03-02"), // 삼일절 대체공휴일
+            LocalDate.parse("2026-05-01"), // 근로자의 날
+            LocalDate.parse("2026-05-05"), // 어린이날
+            LocalDate.parse("2026-05-25"), // 석가탄신일
+            LocalDate.parse("2026-06-03"), // 지방선거
+            LocalDate.parse("2026-07-17"), // 제헌절
+            LocalDate.parse("2026-08-17"), // 광복절 대체공휴일
+            LocalDate.parse("2026-09-24"), LocalDate.parse("2026-09-25"), // 추석 연휴
+            LocalDate.parse("2026-10-05"), // 개천절 대체공휴일
+            LocalDate.parse("2026-10-09"), // 한글날
+            LocalDate.parse("2026-12-25"), // 크리스마스
+            LocalDate.parse("2026-12-31")  // 연말 휴장일
+    );
+
+    private MarketCalendar() {}
+
+    public static boolean isWeekend(LocalDate date) {
+        return date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+    }
+
+    public static boolean isHoliday(LocalDate date) {
+        return HOLIDAYS.contains(date);
+    }
+
+    public static boolean isTradingDay(LocalDate date) {
+        return !isWeekend(date) && !isHoliday(date);
+    }
+
+    /**
+     * date(휴장일이면 직전 거래일)로부터 거래일 기준 days일 전의 날짜
+     */
+    public static LocalDate minusTradingDays(LocalDate date, int days) {
+        LocalDate d = date;
+        while (!isTradingDay(d)) d = d.minusDays(1);
+        for (int i = 0; i < days; i++) {
+            d = d.minusDays(1);
+            while (!isTradingDay(d)) d = d.minusDays(1);
+        }
+        return d;
+    }
+
+    /**
+     * 통합 시세에서 KRX 가격을 대표 가격으로 쓰는 시각인지 여부 (그 외 시간대는 NXT 가격)
+     * 실시간 통합 틱(TickConsolidator)과 REST 통합 현재가(fetchUnifiedCurrentPrice)가 같은 경계를 사용합니다.
+     * @param hhmmss 서울 기준 시각 (HHMMSS 정수)
+     */
+    public static boolean isKrxPriceTime(int hhmmss) {
+        return hhmmss >= KRX_PRICE_FROM && hhmmss <= KRX_PRICE_TO;
+    }
+
+    public static boolean isKrxPriceTime(LocalTime time) {
+        return isKrxPriceTime(time.getHour() * 10000 + time.getMinute() * 100 + time.getSecond());
+    }
+
+    /**
+     * 지금이 거래일의 거래 시간(08:00~20:00) 안인지 여부
+     */
+    public static boolean isSessionOpen(ZonedDateTime now) {
+        ZonedDateTime seoul = now.withZoneSameInstant(SEOUL);
+        return isTradingDay(seoul.toLocalDate()) && seoul.getHour() >= OPEN_HOUR && seoul.getHour() < CLOSE_HOUR;
+    }
+
+    /**
+     * now 이후(now 포함하지 않음) 가장 가까운 거래 시작 시각
+     */
+    public static ZonedDateTime nextOpen(ZonedDateTime now) {
+        ZonedDateTime seoul = now.withZoneSameInstant(SEOUL);
+        LocalDate date = seoul.toLocalDate();
+        if (!seoul.isBefore(date.atTime(OPEN_HOUR, 0).atZone(SEOUL))) date = date.plusDays(1);
+        while (!isTradingDay(date)) date = date.plusDays(1);
+        return date.atTime(OPEN_HOUR, 0).atZone(SEOUL);
+    }
+}
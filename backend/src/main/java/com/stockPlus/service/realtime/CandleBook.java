@@ -0,0 +1,309 @@
+package com.stockPlus.service.realtime;
+
+import com.stockPlus.domain.StockChartDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 실시간 체결(CNT0) 틱을 (종목, 거래소) 별 1/5/15/60분봉으로 누적하는 분봉 엔진입니다.
+ *
+ * 틱마다 네 개 주기의 현재 봉을 바로 갱신하므로 분봉 차트 조회 시 REST 재조회나 재집계가 필요 없습니다.
+ * REST 분봉은 첫 실시간 틱 이전 구간을 채우는 용도(backfill)로 종목당 한 번만 사용합니다.
+ * 가격은 RealtimeTick과 같은 x100 고정소수점, 거래량은 누적거래량의 차분으로 계산합니다.
+ * 통합(UN) 봉의 거래량은 거래소(KRX/NXT)별 누적거래량 차분의 합으로 계산합니다.
+ * (통합 틱의 합계 누적거래량을 그대로 차분하면 늦게 들어온 거래소의 첫 틱에서 그 거래소 누적거래량 전체가 한 봉에 몰림)
+ * 당일과 직전 거래일 봉만 보관하며, 거래일이 바뀌면 새 거래일의 첫 실시간 틱 이전 구간을 다시 REST로 채웁니다.
+ * 전역 링 버퍼의 소비자 하나로 동작하며 통합(UN) 체결로 통합 봉을, 거래소별(KRX/NXT) 체결로 거래소별 봉을 만듭니다.
+ * (거래소별 체결은 통합 봉의 거래량 계산에도 사용)
+ */
+@Component
+public class CandleBook {
+
+    public static final int[] INTERVALS = {1, 5, 15, 60}; // 분
+
+    // 서울은 서머타임이 없으므로 고정 오프셋으로 일자/분 계산
+    private static final long SEOUL_OFFSET_SECONDS = 9 * 3600;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final ConcurrentHashMap<Long, Series> series = new ConcurrentHashMap<>();
+    private final TickRingBuffer tickRing;
+    private TickRingBuffer.Processor upstream;
+
+    public CandleBook(TickRingBuffer tickRing) {
+        this.tickRing = tickRing;
+    }
+
+    @PostConstruct
+    public void start() {
+        upstream = tickRing.addConsumer("candles", tick -> !tick.isSnapshot() && !tick.isExpected() && tick.getExchange() != Exchange.IDX, this::onTick);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (upstream != null) upstream.close(1000);
+    }
+
+    /**
+     * 체결 틱을 분봉에 반영합니다. (링 버퍼 소비자 스레드에서 호출, 예상체결/지수/REST 보정 틱은 무시)
+     */
+    public void onTick(RealtimeTick tick) {
+        if (tick.isSnapshot() || tick.isExpected() || tick.getExchange() == Exchange.IDX || tick.getPrice() <= 0) return;
+        if (TickConsolidator.isVenueTrade(tick)) {
+            // 거래소별 체결: 뒤따르는 통합 틱이 속한 통합 봉에 그 거래소 거래량 차분을 더함
+            series(tick.getSymbolId(), Exchange.UN).onVenueVolume(tick);
+        }
+        series(tick.getSymbolId(), tick.getExchange()).onTick(tick);
+    }
+
+    private Series series(int symbolId, Exchange exchange) {
+        return series.computeIfAbsent(key(symbolId, exchange), k -> new Series(exchange == Exchange.UN));
+    }
+
+    /**
+     * 실시간 틱을 받은 적 있는 종목의 분봉 시리즈를 반환합니다. (없으면 null)
+     */
+    public Series get(String stockCode, String exchangeCode) {
+        int id = SymbolTable.find(stockCode);
+        return id < 0 ? null : series.get(key(id, Exchange.of(exchangeCode)));
+    }
+
+    /**
+     * "1m", "5m", "15m", "60m" 주기 문자열을 분 단위로 변환합니다. (분봉 주기가 아니면 -1)
+     */
+    public static int minutesOf(String period) {
+        if (period == null) return -1;
+        switch (period) {
+            case "1m": return 1;
+            case "5m": return 5;
+            case "15m": return 15;
+            case "60m": return 60;
+            default: return -1;
+        }
+    }
+
+    private static long key(int symbolId, Exchange exchange) {
+        return ((long) symbolId << 2) | exchange.ordinal();
+    }
+
+    /**
+     * 종목 하나(거래소 하나)의 주기별 분봉
+     */
+    public static final class Series {
+        private final Bars[] bars = new Bars[INTERVALS.length];
+        private final boolean consolidated;    // 통합(UN) 시리즈 - 거래량은 거래소별 차분의 합
+        private long day = Long.MIN_VALUE;     // 현재 거래일 (epoch day, 서울 기준)
+        private long lastVolume = -1;          // 직전 틱 누적거래량 (거래소 시리즈)
+        private final long[] venueVolume = {-1, -1}; // 거래소(KRX, NXT)별 직전 누적거래량 (통합 시리즈)
+        private long pendingVolume;            // 다음 통합 틱 봉에 더할 거래소별 거래량 차분 합
+        private long liveStart = Long.MAX_VALUE; // 당일 첫 실시간 틱이 속한 1분봉 시작 시각 (epoch sec)
+        private long backfillFrom = Long.MIN_VALUE; // 이 시각 이전 REST 봉은 이미 보관 중이므로 채우지 않음
+        private boolean backfilled;
+
+        Series(boolean consolidated) {
+            this.consolidated = consolidated;
+            for (int i = 0; i < bars.length; i++) bars[i] = new Bars();
+        }
+
+        synchronized void onVenueVolume(RealtimeTick tick) {
+            rollover(tick);
+            int venue = tick.getExchange() == Exchange.NX ? 1 : 0;
+            long last = venueVolume[venue];
+            if (last >= 0) pendingVolume += Math.max(0, tick.getVolume() - last);
+            venueVolume[venue] = Math.max(last, tick.getVolume());
+        }
+
+        synchronized void onTick(RealtimeTick tick) {
+            rollover(tick);
+
+            long volume;
+            if (consolidated) {
+                volume = pendingVolume;
+                pendingVolume = 0;
+            } else {
+                volume = lastVolume < 0 ? 0 : Math.max(0, tick.getVolume() - lastVolume);
+                lastVolume = Math.max(lastVolume, tick.getVolume());
+            }
+
+            int time = tick.getTime();
+            int minuteOfDay = (time / 10000) * 60 + (time / 100) % 100;
+            long dayStart = day * 86400 - SEOUL_OFFSET_SECONDS;
+            long price = tick.getPrice();
+            for (int i = 0; i < INTERVALS.length; i++) {
+                long start = dayStart + (long) (minuteOfDay / INTERVALS[i] * INTERVALS[i]) * 60;
+                bars[i].fold(start, price, price, price, price, volume);
+            }
+            if (liveStart == Long.MAX_VALUE) liveStart = dayStart + minuteOfDay * 60L;
+        }
+
+        // 거래일이 바뀌면 직전 거래일(= 지금까지의 당일) 이전 봉은 버리고, 새 거래일 기준으로 차분/채움 상태를 초기화
+        private void rollover(RealtimeTick tick) {
+            long tickDay = Math.floorDiv(tick.getReceivedAt() / 1000 + SEOUL_OFFSET_SECONDS, 86400);
+            if (tickDay == day) return;
+            if (day != Long.MIN_VALUE) {
+                long keepFrom = day * 86400 - SEOUL_OFFSET_SECONDS;
+                for (Bars b : bars) b.dropBefore(keepFrom);
+                backfillFrom = tickDay * 86400 - SEOUL_OFFSET_SECONDS;
+                backfilled = false;
+                liveStart = Long.MAX_VALUE;
+            }
+            day = tickDay;
+            lastVolume = -1;
+            Arrays.fill(venueVolume, -1);
+            pendingVolume = 0;
+        }
+
+        /**
+         * 아직 채우지 않았으면 REST 1분봉으로 첫 실시간 틱 이전 구간을 채웁니다.
+         * 첫 실시간 틱의 분과 그 이후 봉은 실시간 데이터가 우선이므로 건너뜁니다.
+         * 거래일이 바뀐 뒤에는 새 거래일 구간만 채웁니다. (직전 거래일 봉은 이미 보관 중)
+         * REST 조회 실패로 빈 목록이 오면 다음 조회 때 다시 시도하도록 채움 처리하지 않습니다.
+         */
+        public synchronized void backfill(List<StockChartDto> minuteBars) {
+            if (backfilled || minuteBars.isEmpty()) return;
+            Bars[] earlier = new Bars[INTERVALS.length];
+            for (int i = 0; i < earlier.length; i++) earlier[i] = new Bars();
+            for (StockChartDto dto : minuteBars) {
+                long time = dto.getTime();
+                if (time >= liveStart || time < backfillFrom) continue;
+                long close = RealtimeTick.parseFixed(dto.getClose());
+                if (close <= 0) continue;
+                long open = RealtimeTick.parseFixed(dto.getOpen());
+                long high = RealtimeTick.parseFixed(dto.getHigh());
+                long low = RealtimeTick.parseFixed(dto.getLow());
+                long volume = RealtimeTick.parseFixed(dto.getVolume()) / RealtimeTick.PRICE_SCALE; // 빈 값/형식 오류는 0
+                long local = time + SEOUL_OFFSET_SECONDS;
+                long dayStart = local - Math.floorMod(local, 86400) - SEOUL_OFFSET_SECONDS;
+                long minuteOfDay = (time - dayStart) / 60;
+                for (int i = 0; i < INTERVALS.length; i++) {
+                    earlier[i].fold(dayStart + minuteOfDay / INTERVALS[i] * INTERVALS[i] * 60, open, high, low, close, volume);
+                }
+            }
+            for (int i = 0; i < INTERVALS.length; i++) bars[i].mergeEarlier(earlier[i]);
+            backfilled = true;
+        }
+
+        public synchronized boolean isBackfilled() {
+            return backfilled;
+        }
+
+        /**
+         * 주기(분)의 봉을 차트 DTO로 반환합니다. (시간 오름차순)
+         */
+        public synchronized List<StockChartDto> toChart(int minutes) {
+            int idx = Arrays.binarySearch(INTERVALS, minutes);
+            if (idx < 0) throw new IllegalArgumentException("Unsupported candle interval: " + minutes);
+            return bars[idx].toChart();
+        }
+    }
+
+    /**
+     * 시작 시각 오름차순으로 정렬된 봉 배열 (원시 타입 병렬 배열)
+     */
+    private static final class Bars {
+        private long[] start = new long[64], open = new long[64], high = new long[64], low = new long[64],
+                close = new long[64], volume = new long[64];
+        private int size;
+
+        // 해당 시작 시각의 봉에 값을 합침 (없으면 정렬 위치에 새 봉 생성)
+        void fold(long t, long o, long h, long l, long c, long v) {
+            int i;
+            if (size > 0 && start[size - 1] == t) {
+                i = size - 1;
+            } else if (size == 0 || start[size - 1] < t) {
+                i = insert(size, t, o);
+            } else {
+                i = Arrays.binarySearch(start, 0, size, t);
+                if (i < 0) i = insert(-i - 1, t, o);
+                else c = close[i]; // 지난 봉에 늦게 도착한 값은 종가를 바꾸지 않음
+            }
+            if (h > high[i]) high[i] = h;
+            if (l < low[i]) low[i] = l;
+            close[i] = c;
+            volume[i] += v;
+        }
+
+        private int insert(int at, long t, long o) {
+            if (size == start.length) {
+                int capacity = size * 2;
+                start = Arrays.copyOf(start, capacity);
+                open = Arrays.copyOf(open, capacity);
+                high = Arrays.copyOf(high, capacity);
+                low = Arrays.copyOf(low, capacity);
+                close = Arrays.copyOf(close, capacity);
+                volume = Arrays.copyOf(volume, capacity);
+            }
+            if (at < size) {
+                int n = size - at;
+                System.arraycopy(start, at, start, at + 1, n);
+                System.arraycopy(open, at, open, at + 1, n);
+                System.arraycopy(high, at, high, at + 1, n);
+                System.arraycopy(low, at, low, at + 1, n);
+                System.arraycopy(close, at, close, at + 1, n);
+                System.arraycopy(volume, at, volume, at + 1, n);
+            }
+            start[at] = t;
+            open[at] = o;
+            high[at] = o;
+            low[at] = o;
+            close[at] = o;
+            volume[at] = 0;
+            size++;
+            return at;
+        }
+
+        // 이 봉들보다 앞선 구간의 봉을 합침 (같은 시작 시각이면 시가는 앞선 쪽, 종가는 현재 쪽)
+        void mergeEarlier(Bars earlier) {
+            for (int j = 0; j < earlier.size; j++) {
+                long t = earlier.start[j];
+                int i = Arrays.binarySearch(start, 0, size, t);
+                if (i < 0) {
+                    i = insert(-i - 1, t, earlier.open[j]);
+                    close[i] = earlier.close[j];
+                } else {
+                    open[i] = earlier.open[j];
+                }
+                if (earlier.high[j] > high[i]) high[i] = earlier.high[j];
+                if (earlier.low[j] < low[i]) low[i] = earlier.low[j];
+                volume[i] += earlier.volume[j];
+            }
+        }
+
+        void dropBefore(long t) {
+            int from = 0;
+            while (from < size && start[from] < t) from++;
+            if (from == 0) return;
+            int n = size - from;
+            System.arraycopy(start, from, start, 0, n);
+            System.arraycopy(open, from, open, 0, n);
+            System.arraycopy(high, from, high, 0, n);
+            System.arraycopy(low, from, low, 0, n);
+            System.arraycopy(close, from, close, 0, n);
+            System.arraycopy(volume, from, volume, 0, n);
+            size = n;
+        }
+
+        List<StockChartDto> toChart() {
+            List<StockChartDto> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(StockChartDto.builder()
+                        .time(start[i])
+                        .date(LocalDate.ofEpochDay(Math.floorDiv(start[i] + SEOUL_OFFSET_SECONDS, 86400)).format(DATE))
+                        .open(RealtimeTick.formatPrice(open[i]))
+                        .high(RealtimeTick.formatPrice(high[i]))
+                        .low(RealtimeTick.formatPrice(low[i]))
+                        .close(RealtimeTick.formatPrice(close[i]))
+                        .volume(Long.toString(volume[i]))
+                        .build());
+            }
+            return list;
+        }
+    }
+}
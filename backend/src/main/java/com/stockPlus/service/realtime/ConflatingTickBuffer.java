@@ -0,0 +1,72 @@
+package com.stockPlus.service.realtime;
+
+import reactor.core.publisher.FluxSink;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 클라이언트 한 명을 위한 (종목, 거래소) 단위 최신값 버퍼입니다.
+ *
+ * 클라이언트가 느려 요청(demand)이 없으면 같은 종목의 이전 틱을 새 틱으로 덮어써서(conflation)
+ * 버퍼 크기가 구독 종목 수를 넘지 않도록 합니다.
+ * offer()는 절대 블로킹하지 않으므로 느린 클라이언트가 KIS 수신 경로를 지연시키지 않습니다.
+ */
+final class ConflatingTickBuffer {
+
+    private final FluxSink<RealtimeTick> sink;
+
+    // 키: symbolId << 2 | exchange (삽입 순서 = 먼저 갱신된 종목 순서)
+    private final LinkedHashMap<Integer, RealtimeTick> pending = new LinkedHashMap<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong conflated = new AtomicLong();
+
+    ConflatingTickBuffer(FluxSink<RealtimeTick> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * 틱을 버퍼에 넣고, 요청이 남아있으면 바로 전달합니다.
+     */
+    void offer(RealtimeTick tick) {
+        Integer key = (tick.getSymbolId() << 2) | tick.getExchange().ordinal();
+        synchronized (pending) {
+            if (pending.put(key, tick) != null) conflated.incrementAndGet();
+        }
+        drain();
+    }
+
+    /**
+     * 요청 수만큼 버퍼를 비웁니다. 동시에 여러 스레드가 호출해도 한 스레드만 전송합니다.
+     */
+    void drain() {
+        if (wip.getAndIncrement() != 0) return;
+        int missed = 1;
+        do {
+            while (sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                RealtimeTick next = poll();
+                if (next == null) break;
+                sink.next(next);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private RealtimeTick poll() {
+        synchronized (pending) {
+            Iterator<Map.Entry<Integer, RealtimeTick>> it = pending.entrySet().iterator();
+            if (!it.hasNext()) return null;
+            RealtimeTick tick = it.next().getValue();
+            it.remove();
+            return tick;
+        }
+    }
+
+    /**
+     * 전송되지 못하고 최신값으로 대체된 틱 수
+     */
+    long conflatedCount() { return conflated.get(); }
+}
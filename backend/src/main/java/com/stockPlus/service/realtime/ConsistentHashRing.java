@@ -0,0 +1,67 @@
+package com.stockPlus.service.realtime;
+
+import java.util.Arrays;
+
+/**
+ * 종목코드를 웹소켓 세션(샤드)에 배정하기 위한 consistent hash 링입니다.
+ *
+ * 샤드마다 여러 개의 가상 노드를 링에 배치하고, 종목코드 해시 위치부터 시계 방향으로 만나는 샤드 순서를
+ * 배정 후보로 사용합니다. 샤드가 빠지거나 돌아와도 해당 샤드의 종목만 이동합니다.
+ */
+public final class ConsistentHashRing {
+
+    private final int shardCount;
+    private final int[] points; // 정렬된 가상 노드 해시
+    private final int[] owners; // points[i]의 샤드 인덱스
+
+    public ConsistentHashRing(int shardCount, int virtualNodes) {
+        this.shardCount = shardCount;
+        long[] nodes = new long[shardCount * virtualNodes];
+        int n = 0;
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int hash = mix(shard * 0x9E3779B9 + v * 0x85EBCA6B);
+                // 상위 32비트: 해시(부호 없는 정렬), 하위 32비트: 샤드 인덱스
+                nodes[n++] = ((long) (hash ^ Integer.MIN_VALUE) << 32) | shard;
+            }
+        }
+        Arrays.sort(nodes);
+        points = new int[nodes.length];
+        owners = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            points[i] = (int) (nodes[i] >> 32);
+            owners[i] = (int) nodes[i];
+        }
+    }
+
+    /**
+     * 키의 배정 후보 샤드를 선호 순서대로 반환합니다. (모든 샤드가 한 번씩 포함)
+     */
+    public int[] candidates(String key) {
+        int[] result = new int[shardCount];
+        if (points.length == 0) return result;
+        boolean[] seen = new boolean[shardCount];
+        int hash = mix(key.hashCode()) ^ Integer.MIN_VALUE;
+        int pos = Arrays.binarySearch(points, hash);
+        if (pos < 0) pos = -pos - 1;
+        int found = 0;
+        for (int i = 0; i < points.length && found < shardCount; i++) {
+            int owner = owners[(pos + i) % points.length];
+            if (!seen[owner]) {
+                seen[owner] = true;
+                result[found++] = owner;
+            }
+        }
+        return result;
+    }
+
+    // murmur3 fmix32
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
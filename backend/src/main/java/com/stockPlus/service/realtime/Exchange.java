@@ -0,0 +1,26 @@
+package com.stockPlus.service.realtime;
+
+/**
+ * 실시간 틱의 시장 구분입니다. (StockPriceDto.exchangeCode 문자열과 1:1 대응)
+ */
+public enum Exchange {
+    J,   // KRX 정규장
+    NX,  // NXT (넥스트레이드)
+    UN,  // 통합 (KRX + NXT)
+    IDX; // 업종 지수
+
+    /**
+     * 거래소 코드 문자열을 변환합니다. (null 또는 알 수 없는 코드는 KRX로 간주)
+     */
+    public static Exchange of(String code) {
+        if (code == null) return J;
+        switch (code) {
+            case "NX": return NX;
+            case "UN": return UN;
+            case "IDX": return IDX;
+            default: return J;
+        }
+    }
+
+    public String code() { return name(); }
+}
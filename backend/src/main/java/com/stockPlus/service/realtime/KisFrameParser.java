@@ -0,0 +1,289 @@
+package com.stockPlus.service.realtime;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * KIS 실시간 데이터 프레임(0|TR_ID|건수|데이터)을 문자열 분할 없이 제자리에서 읽는 커서 기반 파서입니다.
+ *
+ * split("\\|"), split("\\^")로 레코드당 50여 개의 String을 만들던 기존 방식 대신,
+ * 필요한 필드 인덱스의 시작/끝 위치만 기록하고 숫자는 원본에서 바로 변환합니다.
+ * 한 인스턴스는 하나의 수신 루프(웹소켓 세션)에서만 사용해야 합니다. (스레드 안전하지 않음)
+ */
+public final class KisFrameParser {
+
+    // TR별로 참조하는 최대 필드 인덱스 (CNT0: 누적거래량 13, ANC0: 예상거래량 51, UPANC0: 누적거래량 8)
+    private static final int MAX_FIELD_INDEX = 51;
+
+    private CharSequence src;
+    private int length;
+
+    // 헤더(envelope) 위치 정보
+    private int trStart, trEnd;
+    private int recordCount;
+    private int dataStart;
+
+    // 레코드 순회 상태
+    private int fieldsPerRecord;
+    private int cursor;
+    private int recordsRead;
+    private final int[] fieldStart = new int[MAX_FIELD_INDEX + 1];
+    private final int[] fieldEnd = new int[MAX_FIELD_INDEX + 1];
+    private int fieldsInRecord;
+
+    // DataBuffer를 String 디코딩 없이 CharSequence로 노출하기 위한 재사용 뷰
+    private final DataBufferSequence bufferView = new DataBufferSequence();
+
+    /**
+     * 웹소켓 수신 버퍼를 String으로 디코딩하지 않고 파싱합니다.
+     * 버퍼의 읽기 위치는 변경하지 않으므로 실패 시 호출자가 텍스트로 다시 읽을 수 있습니다.
+     */
+    public boolean reset(DataBuffer buffer) {
+        bufferView.wrap(buffer);
+        return reset(bufferView);
+    }
+
+    /**
+     * 새 프레임의 헤더(암호화여부|TR_ID|건수|)를 읽습니다.
+     * @return 실시간 데이터 프레임 형식이면 true
+     */
+    public boolean reset(CharSequence frame) {
+        this.src = frame;
+        this.length = frame.length();
+        this.recordsRead = 0;
+        this.fieldsInRecord = 0;
+
+        if (length < 2) return false;
+        char flag = frame.charAt(0);
+        if ((flag != '0' && flag != '1') || frame.charAt(1) != '|') return false;
+
+        trStart = 2;
+        trEnd = indexOf('|', trStart);
+        if (trEnd < 0) return false;
+
+        int countEnd = indexOf('|', trEnd + 1);
+        if (countEnd < 0) return false;
+        recordCount = (int) parseLong(trEnd + 1, countEnd);
+        dataStart = countEnd + 1;
+
+        // [참고] 실시간 데이터에서는 건수가 0으로 오는 경우가 있어 데이터가 있으면 1건으로 처리
+        if (recordCount <= 0 && dataStart < length) recordCount = 1;
+
+        if (recordCount == 1) {
+            // 단건 프레임은 필드 개수를 셀 필요 없이 필요한 인덱스까지만 읽음
+            fieldsPerRecord = Integer.MAX_VALUE;
+        } else {
+            int totalFields = 1;
+            for (int i = dataStart; i < length; i++) {
+                if (src.charAt(i) == '^') totalFields++;
+            }
+            fieldsPerRecord = recordCount > 0 ? totalFields / recordCount : 0;
+        }
+        cursor = dataStart;
+        return true;
+    }
+
+    public boolean isEncrypted() { return src.charAt(0) == '1'; }
+
+    public int recordCount() { return recordCount; }
+
+    /**
+     * TR_ID가 주어진 값과 같은지 확인합니다. (String 생성 없음)
+     */
+    public boolean trIdEquals(String trId) {
+        int len = trEnd - trStart;
+        if (len != trId.length()) return false;
+        for (int i = 0; i < len; i++) {
+            if (src.charAt(trStart + i) != trId.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * TR_ID가 주어진 접미사(CNT0, ANC0 등)로 끝나는지 확인합니다.
+     */
+    public boolean trIdEndsWith(String suffix) {
+        int len = suffix.length();
+        if (trEnd - trStart < len) return false;
+        int base = trEnd - len;
+        for (int i = 0; i < len; i++) {
+            if (src.charAt(base + i) != suffix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * TR_ID가 주어진 접두사(H0NX, H0UN 등)로 시작하는지 확인합니다.
+     */
+    public boolean trIdStartsWith(String prefix) {
+        int len = prefix.length();
+        if (trEnd - trStart < len) return false;
+        for (int i = 0; i < len; i++) {
+            if (src.charAt(trStart + i) != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    public String trId() { return text(trStart, trEnd); }
+
+    /**
+     * 다음 레코드로 커서를 이동하며 필요한 필드(maxIndex 이하)의 위치만 기록합니다.
+     * @param maxIndex 이번 TR에서 참조할 최대 필드 인덱스
+     * @return 읽을 레코드가 남아있으면 true
+     */
+    public boolean nextRecord(int maxIndex) {
+        if (recordsRead >= recordCount || cursor > length || fieldsPerRecord == 0) return false;
+        int limit = Math.min(maxIndex, MAX_FIELD_INDEX);
+
+        int field = 0;
+        int start = cursor;
+        int pos = cursor;
+        fieldsInRecord = 0;
+        while (field < fieldsPerRecord) {
+            if (pos == length || src.charAt(pos) == '^') {
+                if (field <= limit) {
+                    fieldStart[field] = start;
+                    fieldEnd[field] = pos;
+                    fieldsInRecord = field + 1;
+                }
+                field++;
+                pos++;
+                start = pos;
+                if (pos > length) break;
+                // 마지막 레코드라면 필요한 필드 이후는 읽지 않음
+                if (field > limit && recordsRead + 1 >= recordCount) { pos = length + 1; break; }
+            } else {
+                pos++;
+            }
+        }
+        cursor = pos;
+        recordsRead++;
+        return fieldsInRecord > 0;
+    }
+
+    /**
+     * 현재 레코드의 필드 수 (maxIndex로 잘린 값)
+     */
+    public int fieldCount() { return fieldsInRecord; }
+
+    public boolean hasField(int index) { return index < fieldsInRecord; }
+
+    public boolean isEmpty(int index) { return fieldStart[index] == fieldEnd[index]; }
+
+    public String text(int index) { return text(fieldStart[index], fieldEnd[index]); }
+
+    public long longField(int index) { return parseLong(fieldStart[index], fieldEnd[index]); }
+
+    public int intField(int index) { return (int) parseLong(fieldStart[index], fieldEnd[index]); }
+
+    /**
+     * 필드(종목코드)를 String 생성 없이 SymbolTable ID로 변환합니다.
+     */
+    public int symbolId(int index) { return SymbolTable.intern(src, fieldStart[index], fieldEnd[index]); }
+
+    /**
+     * 필드 값을 10^scale 배 고정소수점 정수로 변환합니다. (예: "-1.23", scale 2 -> -123)
+     */
+    public long fixedField(int index, int scale) {
+        int pos = fieldStart[index];
+        int end = fieldEnd[index];
+        boolean negative = false;
+        if (pos < end) {
+            char c = src.charAt(pos);
+            if (c == '-' || c == '+') { negative = c == '-'; pos++; }
+        }
+        long value = 0;
+        int fraction = -1;
+        for (; pos < end; pos++) {
+            char c = src.charAt(pos);
+            if (c == '.') { fraction = 0; continue; }
+            if (c < '0' || c > '9') break;
+            if (fraction >= 0) {
+                if (fraction == scale) continue; // 초과 자릿수는 버림
+                fraction++;
+            }
+            value = value * 10 + (c - '0');
+        }
+        for (int f = Math.max(fraction, 0); f < scale; f++) value *= 10;
+        return negative ? -value : value;
+    }
+
+    /**
+     * 필드 내용이 주어진 문자열과 같은지 비교합니다.
+     */
+    public boolean fieldEquals(int index, String value) {
+        int start = fieldStart[index];
+        int len = fieldEnd[index] - start;
+        if (len != value.length()) return false;
+        for (int i = 0; i < len; i++) {
+            if (src.charAt(start + i) != value.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    public char firstChar(int index) {
+        return isEmpty(index) ? 0 : src.charAt(fieldStart[index]);
+    }
+
+    private String text(int start, int end) {
+        return src.subSequence(start, end).toString();
+    }
+
+    private int indexOf(char ch, int from) {
+        for (int i = from; i < length; i++) {
+            if (src.charAt(i) == ch) return i;
+        }
+        return -1;
+    }
+
+    private long parseLong(int start, int end) {
+        boolean negative = false;
+        int pos = start;
+        if (pos < end) {
+            char c = src.charAt(pos);
+            if (c == '-' || c == '+') { negative = c == '-'; pos++; }
+        }
+        long value = 0;
+        for (; pos < end; pos++) {
+            char c = src.charAt(pos);
+            if (c < '0' || c > '9') break;
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * 수신 DataBuffer(ASCII)를 재사용 바이트 배열로 일괄 복사해 CharSequence로 노출하는 뷰입니다.
+     * DataBuffer.getByte()는 구현에 따라 호출마다 인덱스 검증 비용이 있어 한 번에 복사한 뒤 배열을 직접 읽습니다.
+     */
+    private static final class DataBufferSequence implements CharSequence {
+        private ByteBuffer scratch = ByteBuffer.allocate(1024);
+        private int length;
+
+        void wrap(DataBuffer buffer) {
+            this.length = buffer.readableByteCount();
+            if (scratch.capacity() < length) {
+                scratch = ByteBuffer.allocate(Integer.highestOneBit(length) << 1);
+            }
+            buffer.toByteBuffer(buffer.readPosition(), scratch, 0, length);
+        }
+
+        @Override
+        public int length() { return length; }
+
+        @Override
+        public char charAt(int index) { return (char) (scratch.array()[index] & 0xFF); }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(scratch.array(), start, end - start, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String toString() {
+            return new String(scratch.array(), 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
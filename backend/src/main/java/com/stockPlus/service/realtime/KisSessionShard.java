@@ -0,0 +1,322 @@
+package com.stockPlus.service.realtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * KIS 실시간 웹소켓 세션 하나(샤드)를 관리합니다.
+ *
+ * 세션마다 별도의 접속키(Approval Key)로 연결하고, 끊기면 다른 샤드와 무관하게 독립적으로 재연결합니다.
+ * 어떤 종목을 구독할지는 풀(KisRealtimeService)이 결정하며, 샤드는 전달받은 등록/해제 요청을 전송만 합니다.
+ * 수신한 실시간 데이터 프레임은 세션 전용 파서로 파싱한 뒤 공통 핸들러로 넘깁니다.
+ * 구독 요청은 PacedFrameSender가 토큰 버킷 속도로 전송하며, 우선 종목(지수, 조회 중인 종목)을 먼저 보냅니다.
+ *
+ * 끊기면 1초 미만에서 시작하는 지터 지수 백오프로 재연결하고, 접속키는 무효 응답을 받기 전까지 재사용합니다.
+ * 백오프 단계는 새 세션에서 메시지를 하나라도 받으면 초기화됩니다.
+ */
+@Slf4j
+public class KisSessionShard {
+
+    /**
+     * 샤드 연결 상태 변화를 풀에 알리는 콜백
+     */
+    public interface Listener {
+        // 세션 연결 완료 (구독 재전송 시점)
+        void onConnected(KisSessionShard shard);
+        // 세션 유실 (다른 샤드로 재배치 시점)
+        void onLost(KisSessionShard shard);
+    }
+
+    private final int index;
+    private final URI uri;
+    private final Supplier<Mono<String>> approvalKeySupplier;
+    private final Consumer<KisFrameParser> dataHandler;
+    private final Listener listener;
+    private final Predicate<String> priority; // 우선 구독 종목 여부 (tr_key 기준)
+    private final Pacing pacing;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 재연결 백오프: 0.5초에서 시작해 2배씩, 최대 30초 (각 단계 50~100% 사이 지터)
+    private static final long BACKOFF_BASE_MILLIS = 500, BACKOFF_MAX_MILLIS = 30_000;
+
+    private Disposable webSocketSession;
+    private volatile PacedFrameSender outbound; // 연결 중일 때만 존재
+    private volatile String approvalKey; // 현재 세션의 접속키
+    private volatile boolean healthy = true; // 유실 전까지는 배정 대상으로 간주 (기동 시 재배치 churn 방지)
+    private long lastConnectTime = 0;
+    private volatile int reconnectAttempts = 0; // 마지막 정상 수신 이후 연속 재연결 시도 수
+    private volatile long lostAt = 0; // 세션 유실 시각 (epoch millis, 연결 중이면 0)
+
+    public KisSessionShard(int index, URI uri, Supplier<Mono<String>> approvalKeySupplier,
+                           Consumer<KisFrameParser> dataHandler, Listener listener,
+                           Predicate<String> priority, Pacing pacing) {
+        this.index = index;
+        this.uri = uri;
+        this.approvalKeySupplier = approvalKeySupplier;
+        this.dataHandler = dataHandler;
+        this.listener = listener;
+        this.priority = priority;
+        this.pacing = pacing;
+    }
+
+    public int getIndex() { return index; }
+
+    /**
+     * 종목 배정 대상 여부 (연결 실패/유실 시 false, 재연결 시 true)
+     */
+    public boolean isHealthy() { return healthy; }
+
+    public boolean isConnected() { return outbound != null; }
+
+    /**
+     * 접속키를 발급받아(재연결이면 기존 키 재사용) 연결합니다.
+     */
+    public synchronized void connect() {
+        // [보안] 연결 간격 최소 1초 보장 (한투 가이드 준수)
+        long now = System.currentTimeMillis();
+        if (now - lastConnectTime < 1000) {
+            long delay = 1000 - (now - lastConnectTime);
+            Mono.delay(Duration.ofMillis(delay)).subscribe(v -> connect());
+            return;
+        }
+        lastConnectTime = now;
+
+        // 빠른 재연결: 무효 응답을 받지 않은 접속키는 그대로 사용
+        String key = approvalKey;
+        if (key != null) {
+            connectWebSocket(key);
+            return;
+        }
+
+        log.info("[Shard {}] Requesting approval key...", index);
+        approvalKeySupplier.get()
+                .retryWhen(Retry.fixedDelay(3, Duration.ofSeconds(10))) // 최대 3회 재시도
+                .subscribe(
+                        this::connectWebSocket,
+                        error -> {
+                            log.error("[Shard {}] Fatal error fetching approval key: {}", index, error.getMessage());
+                            scheduleReconnect();
+                        }
+                );
+    }
+
+    private synchronized void connectWebSocket(String key) {
+        closeSession();
+        approvalKey = key;
+
+        WebSocketClient client = new ReactorNettyWebSocketClient();
+        log.info("[Shard {}] Connecting to KIS WebSocket: {}", index, uri);
+
+        webSocketSession = client.execute(uri, session -> {
+            log.info("[Shard {}] WebSocket connected. Session id: {}", index, session.getId());
+
+            // 연결마다 새 송신기 생성 (접속 확인 대기 후 토큰 버킷 속도로 전송)
+            PacedFrameSender sender = new PacedFrameSender("Shard " + index, pacing.permitsPerSecond, pacing.burst, pacing.initialDelayMillis);
+            outbound = sender;
+            healthy = true;
+            lostAt = 0;
+            listener.onConnected(this);
+
+            // 1. 메시지 수신 처리 (세션 전용 파서로 수신 버퍼를 직접 파싱)
+            KisFrameParser parser = new KisFrameParser();
+            Mono<Void> receive = session.receive()
+                    .doOnNext(message -> handleFrame(message, parser))
+                    .doOnError(e -> log.error("[Shard {}] WebSocket Receive Error: ", index, e))
+                    .then();
+
+            // 2. 구독 요청 전송 및 세션 유지 (Keep-Alive)
+            // [중요] Flux.never()를 merge하여 세션이 스스로 종료되지 않도록 함
+            Mono<Void> send = session.send(
+                    Flux.merge(
+                            sender.frames().map(session::textMessage),
+                            Flux.never() // 스트림이 완료되지 않도록 무한 대기
+                    )
+            ).doOnError(e -> log.error("[Shard {}] WebSocket Send Error: ", index, e));
+
+            return Mono.zip(receive, send).then().doFinally(signal -> sender.dispose());
+        }).subscribe(
+                null,
+                error -> {
+                    log.error("[Shard {}] WebSocket runtime error: {}", index, error.getMessage());
+                    scheduleReconnect();
+                },
+                () -> {
+                    log.info("[Shard {}] WebSocket connection closed.", index);
+                    scheduleReconnect();
+                }
+        );
+    }
+
+    // 유실 처리 후 지터 지수 백오프로 재연결 예약
+    private void scheduleReconnect() {
+        markLost();
+        int attempt = reconnectAttempts++;
+        long ceiling = Math.min(BACKOFF_MAX_MILLIS, BACKOFF_BASE_MILLIS << Math.min(attempt, 16));
+        long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        log.info("[Shard {}] Reconnecting in {}ms (attempt {})", index, delay, attempt + 1);
+        Mono.delay(Duration.ofMillis(delay)).subscribe(v -> connect());
+    }
+
+    private void markLost() {
+        clearOutbound();
+        if (healthy) {
+            healthy = false;
+            lostAt = System.currentTimeMillis();
+            listener.onLost(this);
+        }
+    }
+
+    /**
+     * 세션이 유실된 시각 (epoch millis), 연결 중이거나 유실된 적 없으면 0
+     */
+    public long lostAt() { return lostAt; }
+
+    public int reconnectAttempts() { return reconnectAttempts; }
+
+    /**
+     * 세션을 종료합니다. 의도적인 종료이므로 재연결/재배치하지 않습니다.
+     */
+    public synchronized void disconnect() {
+        approvalKey = null; // 다음 연결(예: 다음 날 장 시작)은 새 접속키로
+        closeSession();
+    }
+
+    private void closeSession() {
+        clearOutbound();
+        if (webSocketSession != null && !webSocketSession.isDisposed()) {
+            webSocketSession.dispose();
+            log.info("[Shard {}] WebSocket disconnected.", index);
+        }
+    }
+
+    private void clearOutbound() {
+        PacedFrameSender sender = outbound;
+        outbound = null;
+        if (sender != null) sender.dispose();
+    }
+
+    /**
+     * 구독 등록("1")/해제("2") 요청을 전송 대기열에 넣습니다.
+     * 연결되어 있지 않으면 버리며, 재연결 시 풀이 배정된 구독 전체를 다시 전달합니다.
+     */
+    public void send(SubscriptionRegistry.Key key, String trType) {
+        PacedFrameSender sender = outbound;
+        if (sender == null) return;
+        String msg = buildSubscriptionMessage(approvalKey, key, trType);
+        if (!msg.isEmpty()) sender.enqueue(key, msg, priority.test(key.getTrKey()));
+    }
+
+    /**
+     * 직전 구독 전송 묶음의 소요 시간(ms), 연결 전이거나 아직 없으면 -1
+     */
+    public long lastSubscribeMillis() {
+        PacedFrameSender sender = outbound;
+        return sender == null ? -1 : sender.lastBatchMillis();
+    }
+
+    public int pendingSubscriptions() {
+        PacedFrameSender sender = outbound;
+        return sender == null ? 0 : sender.pending();
+    }
+
+    // 구독 요청 JSON 메시지 생성 (trType 1: 등록, 2: 해제)
+    private String buildSubscriptionMessage(String approvalKey, SubscriptionRegistry.Key key, String trType) {
+        try {
+            Map<String, Object> header = new HashMap<>();
+            header.put("approval_key", approvalKey);
+            header.put("custtype", "P"); // 개인
+            header.put("tr_type", trType);
+            header.put("content-type", "utf-8");
+
+            Map<String, Object> body = new HashMap<>();
+            Map<String, Object> input = new HashMap<>();
+            input.put("tr_id", key.getTrId());
+            input.put("tr_key", key.getTrKey());
+            body.put("input", input);
+
+            Map<String, Object> messageMap = new HashMap<>();
+            messageMap.put("header", header);
+            messageMap.put("body", body);
+
+            log.debug("[Shard {}] Subscription Request: {} tr_type={}", index, key, trType);
+            return objectMapper.writeValueAsString(messageMap);
+        } catch (Exception e) {
+            log.error("Error building subscription message", e);
+            return "";
+        }
+    }
+
+    // 수신 메시지 핸들러
+    // Netty IO 스레드에서 호출되므로 실시간 데이터 프레임은 문자열로 디코딩하지 않고 버퍼에서 바로 파싱
+    private void handleFrame(WebSocketMessage message, KisFrameParser parser) {
+        if (parser.reset(message.getPayload())) {
+            if (reconnectAttempts != 0) reconnectAttempts = 0; // 실시간 데이터 수신 확인: 백오프 초기화
+            dataHandler.accept(parser);
+        } else {
+            handleMessage(message.getPayloadAsText());
+        }
+    }
+
+    // 제어 메시지(JSON, PINGPONG) 처리
+    private void handleMessage(String message) {
+        if (message.contains("PINGPONG")) {
+            log.debug("[Shard {}] Received PINGPONG", index);
+            return;
+        }
+
+        // 구독 응답과 같은 JSON 제어 메시지 처리
+        if (message.startsWith("{") && message.contains("header")) {
+            log.info("[Shard {}] WebSocket Control Message: {}", index, message);
+
+            // 구독 성공 응답(rt_cd "0")만 정상 수신으로 보고 백오프 초기화
+            // (오류 응답 후 서버가 끊는 경우 매번 초기화되면 재연결이 백오프 없이 반복됨)
+            if (reconnectAttempts != 0 && isSuccessResponse(message)) reconnectAttempts = 0;
+
+            // 승인키 오류 감지 시 이 세션만 재발급 및 재연결 (2초 지연 추가로 무한 루프 방지)
+            if (message.contains("invalid approval") || message.contains("OPSP0011")) {
+                log.error("[Shard {}] Invalid Approval Key detected! Reconnecting with a new key in 2s...", index);
+                approvalKey = null;
+                Mono.delay(Duration.ofSeconds(2)).subscribe(v -> connect());
+            }
+        }
+    }
+
+    private boolean isSuccessResponse(String message) {
+        try {
+            return "0".equals(objectMapper.readTree(message).path("body").path("rt_cd").asText());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 구독 요청 전송 속도 설정
+     */
+    public static final class Pacing {
+        final double permitsPerSecond; // 초당 전송 수
+        final int burst;               // 순간 최대 전송 수
+        final long initialDelayMillis; // 접속 직후 첫 전송까지 대기 시간
+
+        public Pacing(double permitsPerSecond, int burst, long initialDelayMillis) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+            this.initialDelayMillis = initialDelayMillis;
+        }
+    }
+}
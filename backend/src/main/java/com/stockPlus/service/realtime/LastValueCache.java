@@ -0,0 +1,186 @@
+package com.stockPlus.service.realtime;
+
+import com.stockPlus.domain.StockPriceDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * (종목코드, 거래소) 별 최신 실시간 틱을 보관하는 캐시입니다.
+ *
+ * KisRealtimeService의 방출 경로에서 갱신되며,
+ * 신규 SSE 구독자에게 보낼 초기 스냅샷과 현재가 REST 조회 대체용으로 사용됩니다.
+ * 심볼 ID가 조밀한 정수이므로 거래소별 배열에 저장해 틱당 추가 할당 없이 갱신합니다.
+ */
+@Component
+public class LastValueCache {
+
+    private static final ZoneId SEOUL = ZoneId.of("Asia/Seoul");
+
+    // 실시간 틱을 REST 응답 대신 사용할 수 있는 최대 경과 시간
+    private final long freshMillis;
+
+    // 거래소(Exchange.ordinal()) 별 심볼 ID -> 최신 틱
+    private final AtomicReferenceArray<AtomicReferenceArray<RealtimeTick>> ticks = new AtomicReferenceArray<>(Exchange.values().length);
+
+    // REST로 조회한 상세 시세(전일종가, 52주 최고/최저 등) - 실시간 틱에 없는 필드를 채우는 기준값
+    private final ConcurrentHashMap<String, DetailSnapshot> details = new ConcurrentHashMap<>();
+
+    public LastValueCache(@Value("${realtime.cache.fresh-seconds:60}") long freshSeconds) {
+        this.freshMillis = freshSeconds * 1000;
+        for (int i = 0; i < ticks.length(); i++) ticks.set(i, new AtomicReferenceArray<>(1024));
+    }
+
+    /**
+     * 실시간 틱으로 최신값을 갱신합니다. (수신 스레드에서 호출)
+     */
+    public void update(RealtimeTick tick) {
+        int ex = tick.getExchange().ordinal();
+        int id = tick.getSymbolId();
+        while (true) {
+            AtomicReferenceArray<RealtimeTick> table = ticks.get(ex);
+            if (id >= table.length()) {
+                grow(ex, id);
+                continue;
+            }
+            table.set(id, tick);
+            // 확장 중에 기록했다면 새 배열에 다시 기록
+            if (ticks.get(ex) == table) return;
+        }
+    }
+
+    private synchronized void grow(int ex, int id) {
+        AtomicReferenceArray<RealtimeTick> table = ticks.get(ex);
+        if (id < table.length()) return;
+        int capacity = table.length();
+        while (capacity <= id) capacity <<= 1;
+        AtomicReferenceArray<RealtimeTick> grown = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < table.length(); i++) grown.set(i, table.get(i));
+        ticks.set(ex, grown);
+    }
+
+    /**
+     * 종목의 최신 틱을 반환합니다. (없으면 null)
+     */
+    public RealtimeTick get(String stockCode, String exchangeCode) {
+        int id = SymbolTable.find(stockCode);
+        return id < 0 ? null : get(id, Exchange.of(exchangeCode));
+    }
+
+    public RealtimeTick get(int symbolId, Exchange exchange) {
+        AtomicReferenceArray<RealtimeTick> table = ticks.get(exchange.ordinal());
+        return symbolId < table.length() ? table.get(symbolId) : null;
+    }
+
+    /**
+     * 신선도 기준(freshMillis) 이내에 수신된 틱만 반환합니다.
+     */
+    public RealtimeTick getFresh(String stockCode, String exchangeCode) {
+        RealtimeTick tick = get(stockCode, exchangeCode);
+        return tick != null && System.currentTimeMillis() - tick.getReceivedAt() <= freshMillis ? tick : null;
+    }
+
+    /**
+     * 전체 최신값 스냅샷을 반환합니다.
+     */
+    public List<RealtimeTick> snapshot() {
+        List<RealtimeTick> result = new ArrayList<>();
+        for (int ex = 0; ex < ticks.length(); ex++) {
+            AtomicReferenceArray<RealtimeTick> table = ticks.get(ex);
+            for (int i = 0; i < table.length(); i++) {
+                RealtimeTick tick = table.get(i);
+                if (tick != null) result.add(tick);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 주어진 종목코드들의 최신값 스냅샷을 반환합니다. (모든 거래소 포함)
+     */
+    public List<RealtimeTick> snapshot(Collection<String> stockCodes) {
+        List<RealtimeTick> result = new ArrayList<>();
+        for (String code : stockCodes) {
+            int id = SymbolTable.find(code);
+            if (id < 0) continue;
+            for (Exchange exchange : Exchange.values()) {
+                RealtimeTick tick = get(id, exchange);
+                if (tick != null) result.add(tick);
+            }
+        }
+        return result;
+    }
+
+    // --- REST 상세 시세 기준값 ---
+
+    /**
+     * REST로 조회한 상세 시세를 기준값으로 저장합니다.
+     */
+    public void putDetail(String stockCode, String exchangeCode, StockPriceDto dto) {
+        if (dto == null || dto.getCurrentPrice() == null || "0".equals(dto.getCurrentPrice())) return;
+        details.put(key(stockCode, exchangeCode), new DetailSnapshot(dto, LocalDate.now(SEOUL)));
+    }
+
+    /**
+     * 오늘 조회한 상세 시세에 신선한 실시간 틱을 덮어쓴 현재가를 반환합니다.
+     * 상세 기준값이 없거나 틱이 오래되었으면 null을 반환하므로 호출자는 REST로 조회해야 합니다.
+     */
+    public StockPriceDto getFreshPrice(String stockCode, String exchangeCode) {
+        RealtimeTick tick = getFresh(stockCode, exchangeCode);
+        if (tick == null) return null;
+        DetailSnapshot detail = details.get(key(stockCode, exchangeCode));
+        if (detail == null || !detail.date.equals(LocalDate.now(SEOUL))) return null;
+        return overlay(detail.dto, tick);
+    }
+
+    private static StockPriceDto overlay(StockPriceDto base, RealtimeTick tick) {
+        return StockPriceDto.builder()
+                .stockCode(base.getStockCode())
+                .exchangeCode(base.getExchangeCode())
+                .marketName(base.getMarketName())
+                .time(RealtimeTick.formatTime(tick.getTime()))
+                .currentPrice(RealtimeTick.formatPrice(tick.getPrice()))
+                .change(RealtimeTick.formatPrice(tick.getChange()))
+                .changeRate(RealtimeTick.formatFixed(tick.getChangeRate()))
+                .volume(Long.toString(tick.getVolume()))
+                .priceSign(tick.getSign().code())
+                .isExpected(tick.isExpected())
+                .open(base.getOpen())
+                .high(tick.isExpected() ? base.getHigh() : extend(base.getHigh(), tick.getPrice(), true))
+                .low(tick.isExpected() ? base.getLow() : extend(base.getLow(), tick.getPrice(), false))
+                .prevClose(base.getPrevClose())
+                .marketCap(base.getMarketCap())
+                .listedShares(base.getListedShares())
+                .high52w(base.getHigh52w())
+                .low52w(base.getLow52w())
+                .build();
+    }
+
+    // 기준값 조회 이후 갱신된 고가/저가 반영
+    private static String extend(String base, long price, boolean high) {
+        long value = RealtimeTick.parseFixed(base); // 빈 값/형식 오류는 0 -> 틱 가격 사용
+        if (value == 0 || (high ? price > value : price < value)) return RealtimeTick.formatPrice(price);
+        return base;
+    }
+
+    private static String key(String stockCode, String exchangeCode) {
+        return stockCode + ":" + Exchange.of(exchangeCode).code();
+    }
+
+    private static final class DetailSnapshot {
+        final StockPriceDto dto;
+        final LocalDate date;
+
+        DetailSnapshot(StockPriceDto dto, LocalDate date) {
+            this.dto = dto;
+            this.date = date;
+        }
+    }
+}
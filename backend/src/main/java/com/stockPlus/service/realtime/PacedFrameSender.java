@@ -0,0 +1,140 @@
+package com.stockPlus.service.realtime;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 웹소켓 세션 하나의 구독 요청 프레임을 토큰 버킷 속도로 내보내는 송신기입니다.
+ *
+ * 토큰이 남아있는 동안은 대기열을 즉시 비우고(burst), 토큰이 떨어지면 다음 토큰 시점에 한 번만 타이머를 겁니다.
+ * 우선 대기열(지수, 클라이언트가 보고 있는 종목)을 일반 대기열보다 먼저 보냅니다.
+ * 같은 구독 키의 프레임은 대기열에 하나만 둡니다. 아직 보내지 않은 프레임이 있으면 새 프레임(등록/해제)으로 바꾸고,
+ * 새 프레임이 우선이면 우선 대기열로 옮깁니다. (같은 키의 등록/해제가 우선순위 차이로 순서가 뒤바뀌지 않도록)
+ * 대기열이 비었다가 다시 찰 때마다 전체 전송에 걸린 시간을 기록합니다.
+ */
+@Slf4j
+final class PacedFrameSender {
+
+    private final String name;
+    private final TokenBucket bucket;
+    private final Sinks.Many<String> out = Sinks.many().unicast().onBackpressureBuffer();
+    private final Deque<Pending> urgent = new ArrayDeque<>();
+    private final Deque<Pending> normal = new ArrayDeque<>();
+    private final Map<Object, Pending> pendingByKey = new HashMap<>();
+
+    private long readyAt;          // 이 시각(ns) 이전에는 전송하지 않음 (접속 직후 대기)
+    private Disposable timer;      // 다음 토큰 대기 타이머 (최대 1개)
+    private boolean disposed;
+
+    // 전송 소요 시간 측정 (대기열이 빈 상태에서 처음 들어온 시점부터 다시 빌 때까지)
+    private long batchStartNanos = -1;
+    private int batchSent;
+    private volatile long lastBatchMillis = -1;
+    private volatile int lastBatchSize;
+
+    PacedFrameSender(String name, double permitsPerSecond, int burst, long initialDelayMillis) {
+        this.name = name;
+        this.bucket = new TokenBucket(permitsPerSecond, burst);
+        this.readyAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(initialDelayMillis);
+    }
+
+    /**
+     * 세션으로 보낼 프레임 스트림
+     */
+    Flux<String> frames() {
+        return out.asFlux();
+    }
+
+    /**
+     * 프레임을 대기열에 넣고 가능한 만큼 바로 전송합니다.
+     * @param key 구독 키 (같은 키의 대기 중인 프레임은 이 프레임으로 대체)
+     */
+    synchronized void enqueue(Object key, String frame, boolean priority) {
+        if (disposed) return;
+        if (batchStartNanos < 0) {
+            batchStartNanos = System.nanoTime();
+            batchSent = 0;
+        }
+        Pending queued = pendingByKey.get(key);
+        if (queued != null) {
+            queued.frame = frame;
+            if (priority && !queued.urgent) {
+                normal.remove(queued);
+                queued.urgent = true;
+                urgent.addLast(queued);
+            }
+        } else {
+            Pending pending = new Pending(key, frame, priority);
+            pendingByKey.put(key, pending);
+            (priority ? urgent : normal).addLast(pending);
+        }
+        if (timer == null) drain(); // 타이머가 걸려 있으면 그때 함께 전송
+    }
+
+    private synchronized void drain() {
+        timer = null;
+        while (!disposed && (!urgent.isEmpty() || !normal.isEmpty())) {
+            long now = System.nanoTime();
+            long wait = now < readyAt ? readyAt - now : bucket.tryAcquire(now);
+            if (wait > 0) {
+                timer = Schedulers.parallel().schedule(this::drain, wait, TimeUnit.NANOSECONDS);
+                return;
+            }
+            Pending pending = urgent.isEmpty() ? normal.pollFirst() : urgent.pollFirst();
+            pendingByKey.remove(pending.key);
+            out.tryEmitNext(pending.frame);
+            batchSent++;
+        }
+        if (batchStartNanos >= 0 && !disposed) {
+            lastBatchMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStartNanos);
+            lastBatchSize = batchSent;
+            batchStartNanos = -1;
+            if (lastBatchSize > 1) log.info("[{}] Sent {} subscription frames in {} ms", name, lastBatchSize, lastBatchMillis);
+            else log.debug("[{}] Sent subscription frame in {} ms", name, lastBatchMillis);
+        }
+    }
+
+    /**
+     * 세션 종료 시 대기 중인 프레임과 타이머를 정리합니다.
+     */
+    synchronized void dispose() {
+        disposed = true;
+        urgent.clear();
+        normal.clear();
+        pendingByKey.clear();
+        if (timer != null) timer.dispose();
+        out.tryEmitComplete();
+    }
+
+    synchronized int pending() {
+        return urgent.size() + normal.size();
+    }
+
+    /**
+     * 직전 전송 묶음 소요 시간(ms), 아직 없으면 -1
+     */
+    long lastBatchMillis() { return lastBatchMillis; }
+
+    int lastBatchSize() { return lastBatchSize; }
+
+    private static final class Pending {
+        final Object key;
+        String frame;
+        boolean urgent;
+
+        Pending(Object key, String frame, boolean urgent) {
+            this.key = key;
+            this.frame = frame;
+            this.urgent = urgent;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.stockPlus.service.realtime;
+
+/**
+ * KIS 전일 대비 부호 코드 (1:상한, 2:상승, 3:보합, 4:하한, 5:하락)
+ */
+public enum PriceSign {
+    UNKNOWN(""),
+    UPPER_LIMIT("1"),
+    RISE("2"),
+    FLAT("3"),
+    LOWER_LIMIT("4"),
+    FALL("5");
+
+    private static final PriceSign[] BY_DIGIT = { UNKNOWN, UPPER_LIMIT, RISE, FLAT, LOWER_LIMIT, FALL };
+
+    private final String code;
+
+    PriceSign(String code) { this.code = code; }
+
+    public String code() { return code; }
+
+    public static PriceSign of(char digit) {
+        int i = digit - '0';
+        return i > 0 && i < BY_DIGIT.length ? BY_DIGIT[i] : UNKNOWN;
+    }
+
+    public static PriceSign of(String code) {
+        return code == null || code.isEmpty() ? UNKNOWN : of(code.charAt(0));
+    }
+}
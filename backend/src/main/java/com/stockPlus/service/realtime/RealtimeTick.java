@@ -0,0 +1,168 @@
+package com.stockPlus.service.realtime;
+
+import com.stockPlus.domain.StockPriceDto;
+
+/**
+ * 실시간 파이프라인 내부에서 사용하는 원시 타입 기반 체결/예상체결 틱입니다.
+ *
+ * 가격, 대비, 등락률은 PRICE_SCALE(=100) 배 고정소수점 long, 거래량은 long,
+ * 종목코드는 SymbolTable의 int ID로 보관합니다.
+ * 문자열 기반 StockPriceDto로의 변환은 클라이언트 전송 직전(toDto)에만 수행합니다.
+ */
+public final class RealtimeTick {
+
+    // 가격/대비/등락률 고정소수점 배율 (소수점 2자리: 지수 2650.12, 등락률 -1.23)
+    public static final int PRICE_DECIMALS = 2;
+    public static final long PRICE_SCALE = 100;
+
+    private final int symbolId;
+    private final Exchange exchange;
+    private final int time;        // HHMMSS
+    private final long price;      // 현재가 (x100)
+    private final long change;     // 전일 대비 (x100)
+    private final long changeRate; // 등락률 % (x100)
+    private final long volume;     // 누적 거래량
+    private final PriceSign sign;
+    private final boolean expected; // 예상체결 여부
+    private final long receivedAt;  // 수신 시각 (epoch millis)
+    private final boolean snapshot; // REST 현재가 보정 틱 여부 (KIS 실시간 원본 아님)
+
+    public RealtimeTick(int symbolId, Exchange exchange, int time, long price, long change, long changeRate,
+                        long volume, PriceSign sign, boolean expected, long receivedAt) {
+        this(symbolId, exchange, time, price, change, changeRate, volume, sign, expected, receivedAt, false);
+    }
+
+    public RealtimeTick(int symbolId, Exchange exchange, int time, long price, long change, long changeRate,
+                        long volume, PriceSign sign, boolean expected, long receivedAt, boolean snapshot) {
+        this.symbolId = symbolId;
+        this.exchange = exchange;
+        this.time = time;
+        this.price = price;
+        this.change = change;
+        this.changeRate = changeRate;
+        this.volume = volume;
+        this.sign = sign;
+        this.expected = expected;
+        this.receivedAt = receivedAt;
+        this.snapshot = snapshot;
+    }
+
+    public int getSymbolId() { return symbolId; }
+    public String getStockCode() { return SymbolTable.codeOf(symbolId); }
+    public Exchange getExchange() { return exchange; }
+    public int getTime() { return time; }
+    public long getPrice() { return price; }
+    public long getChange() { return change; }
+    public long getChangeRate() { return changeRate; }
+    public long getVolume() { return volume; }
+    public PriceSign getSign() { return sign; }
+    public boolean isExpected() { return expected; }
+    public long getReceivedAt() { return receivedAt; }
+    public boolean isSnapshot() { return snapshot; }
+
+    /**
+     * 클라이언트 전송용 JSON DTO로 변환합니다. (기존 SSE 페이로드 형식 유지)
+     */
+    public StockPriceDto toDto() {
+        return StockPriceDto.builder()
+                .stockCode(getStockCode())
+                .exchangeCode(exchange.code())
+                .time(formatTime(time))
+                .currentPrice(formatPrice(price))
+                .change(formatPrice(change))
+                .changeRate(formatFixed(changeRate))
+                .volume(Long.toString(volume))
+                .priceSign(sign.code())
+                .isExpected(exchange == Exchange.IDX ? null : expected)
+                .build();
+    }
+
+    /**
+     * REST 현재가 응답을 체결 틱으로 변환합니다. (재연결 후 끊긴 구간 보정용)
+     * REST 응답에는 체결 시각이 없으므로 수신 시각(서울)을 체결 시각으로 사용합니다.
+     * 실제 체결이 아니므로 snapshot으로 표시하며, 저널과 분봉 엔진은 이 틱을 건너뜁니다. (최신값 캐시/SSE만 반영)
+     */
+    public static RealtimeTick fromDto(String stockCode, StockPriceDto dto, Exchange exchange, long receivedAt) {
+        long seconds = Math.floorMod(receivedAt / 1000 + 9 * 3600, 86400);
+        int time = (int) (seconds / 3600 * 10000 + seconds / 60 % 60 * 100 + seconds % 60);
+        long volume;
+        try {
+            volume = dto.getVolume() == null || dto.getVolume().isEmpty() ? 0 : Long.parseLong(dto.getVolume());
+        } catch (NumberFormatException e) {
+            volume = parseFixed(dto.getVolume()) / PRICE_SCALE; // "123.0" 형식
+        }
+        return new RealtimeTick(
+                SymbolTable.intern(stockCode),
+                exchange,
+                time,
+                parseFixed(dto.getCurrentPrice()),
+                parseFixed(dto.getChange()),
+                parseFixed(dto.getChangeRate()),
+                volume,
+                PriceSign.of(dto.getPriceSign()),
+                false,
+                receivedAt,
+                true);
+    }
+
+    /**
+     * 가격 표기: 정수 가격은 소수점 없이("71200"), 지수처럼 소수가 있으면 2자리("2650.12")
+     */
+    public static String formatPrice(long fixed) {
+        return fixed % PRICE_SCALE == 0 ? Long.toString(fixed / PRICE_SCALE) : formatFixed(fixed);
+    }
+
+    /**
+     * 소수점 2자리 고정 표기 ("-1.23", "0.50")
+     */
+    public static String formatFixed(long fixed) {
+        long abs = Math.abs(fixed);
+        long fraction = abs % PRICE_SCALE;
+        StringBuilder sb = new StringBuilder(12);
+        if (fixed < 0) sb.append('-');
+        sb.append(abs / PRICE_SCALE).append('.');
+        if (fraction < 10) sb.append('0');
+        return sb.append(fraction).toString();
+    }
+
+    /**
+     * REST 응답의 가격 문자열("71200", "2650.12", "71200.0")을 고정소수점으로 변환합니다. (형식 오류는 0)
+     */
+    public static long parseFixed(String text) {
+        if (text == null || text.isEmpty()) return 0;
+        long value = 0;
+        int decimals = -1;
+        boolean negative = false;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '-' && i == 0) {
+                negative = true;
+            } else if (ch == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (ch >= '0' && ch <= '9') {
+                if (decimals >= PRICE_DECIMALS) continue; // 소수점 2자리 이하 버림
+                value = value * 10 + (ch - '0');
+                if (decimals >= 0) decimals++;
+            } else if (ch != '+') {
+                return 0;
+            }
+        }
+        for (int d = Math.max(decimals, 0); d < PRICE_DECIMALS; d++) value *= 10;
+        return negative ? -value : value;
+    }
+
+    public static String formatTime(int hhmmss) {
+        char[] buf = new char[6];
+        for (int i = 5; i >= 0; i--) {
+            buf[i] = (char) ('0' + hhmmss % 10);
+            hhmmss /= 10;
+        }
+        return new String(buf);
+    }
+
+    @Override
+    public String toString() {
+        return "RealtimeTick{" + getStockCode() + "/" + exchange + " " + formatTime(time) + " " + formatPrice(price)
+                + (expected ? " (expected)" : "") + (snapshot ? " (snapshot)" : "") + "}";
+    }
+}
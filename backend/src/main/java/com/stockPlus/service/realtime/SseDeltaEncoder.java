@@ -0,0 +1,113 @@
+package com.stockPlus.service.realtime;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SSE 연결 하나를 위한 델타 인코더입니다. (encoding=delta 옵트인)
+ *
+ * (종목, 거래소) 스트림마다 짧은 인덱스를 부여하고, 처음과 주기적으로는 전체 필드(keyframe)를,
+ * 그 사이에는 직전 전송값과 달라진 필드만(delta) 보냅니다.
+ * 페이로드는 고정된 짧은 키의 JSON 문자열로 직접 만들어 Jackson 직렬화도 생략합니다.
+ *
+ * keyframe: {"i":3,"c":"005930","x":"J","t":"093001","p":"71200","d":"800","r":"1.14","v":"12345","s":"2","e":false}
+ * delta:    {"i":3,"t":"093002","p":"71300","v":"12400"}  (이벤트 이름 없음 -> EventSource onmessage)
+ * (i 인덱스, c 종목코드, x 거래소, t 시각, p 현재가, d 대비, r 등락률, v 거래량, s 부호, e 예상체결 여부)
+ *
+ * 한 연결의 전송 경로에서만 호출되므로 동기화하지 않습니다.
+ */
+public final class SseDeltaEncoder {
+
+    public static final String KEYFRAME = "keyframe";
+    // delta는 이벤트 이름 없이(기본 message 이벤트) 보내 프레임당 바이트를 줄임
+    public static final String DELTA = null;
+
+    private final long keyframeIntervalMillis;
+    private final Map<Integer, Stream> streams = new HashMap<>();
+    private int nextIndex = 0;
+
+    public SseDeltaEncoder(long keyframeIntervalMillis) {
+        this.keyframeIntervalMillis = keyframeIntervalMillis;
+    }
+
+    /**
+     * 틱을 keyframe 또는 delta 프레임으로 변환합니다.
+     * 직전 전송값과 바뀐 필드가 없으면 null을 반환합니다.
+     */
+    public Frame encode(RealtimeTick tick) {
+        int key = (tick.getSymbolId() << 2) | tick.getExchange().ordinal();
+        Stream stream = streams.get(key);
+        long now = System.currentTimeMillis();
+
+        if (stream == null || now - stream.keyframeAt >= keyframeIntervalMillis) {
+            if (stream == null) {
+                stream = new Stream(nextIndex++);
+                streams.put(key, stream);
+            }
+            stream.keyframeAt = now;
+            stream.last = tick;
+            return new Frame(KEYFRAME, keyframe(stream.index, tick));
+        }
+
+        RealtimeTick last = stream.last;
+        stream.last = tick;
+        StringBuilder sb = new StringBuilder(64).append("{\"i\":").append(stream.index);
+        int before = sb.length();
+        if (tick.getTime() != last.getTime()) field(sb, "t", RealtimeTick.formatTime(tick.getTime()));
+        if (tick.getPrice() != last.getPrice()) field(sb, "p", RealtimeTick.formatPrice(tick.getPrice()));
+        if (tick.getChange() != last.getChange()) field(sb, "d", RealtimeTick.formatPrice(tick.getChange()));
+        if (tick.getChangeRate() != last.getChangeRate()) field(sb, "r", RealtimeTick.formatFixed(tick.getChangeRate()));
+        if (tick.getVolume() != last.getVolume()) field(sb, "v", Long.toString(tick.getVolume()));
+        if (tick.getSign() != last.getSign()) field(sb, "s", tick.getSign().code());
+        if (tick.isExpected() != last.isExpected() && tick.getExchange() != Exchange.IDX) {
+            sb.append(",\"e\":").append(tick.isExpected());
+        }
+        if (sb.length() == before) return null;
+        return new Frame(DELTA, sb.append('}').toString());
+    }
+
+    private static String keyframe(int index, RealtimeTick tick) {
+        StringBuilder sb = new StringBuilder(128).append("{\"i\":").append(index);
+        field(sb, "c", tick.getStockCode());
+        field(sb, "x", tick.getExchange().code());
+        field(sb, "t", RealtimeTick.formatTime(tick.getTime()));
+        field(sb, "p", RealtimeTick.formatPrice(tick.getPrice()));
+        field(sb, "d", RealtimeTick.formatPrice(tick.getChange()));
+        field(sb, "r", RealtimeTick.formatFixed(tick.getChangeRate()));
+        field(sb, "v", Long.toString(tick.getVolume()));
+        field(sb, "s", tick.getSign().code());
+        if (tick.getExchange() != Exchange.IDX) sb.append(",\"e\":").append(tick.isExpected());
+        return sb.append('}').toString();
+    }
+
+    // 값은 숫자/종목코드/거래소 코드뿐이라 JSON 이스케이프가 필요 없음
+    private static void field(StringBuilder sb, String name, String value) {
+        sb.append(",\"").append(name).append("\":\"").append(value).append('"');
+    }
+
+    private static final class Stream {
+        final int index;
+        RealtimeTick last;
+        long keyframeAt;
+
+        Stream(int index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * SSE 이벤트 이름(delta는 null)과 데이터
+     */
+    public static final class Frame {
+        private final String event;
+        private final String data;
+
+        Frame(String event, String data) {
+            this.event = event;
+            this.data = data;
+        }
+
+        public String getEvent() { return event; }
+        public String getData() { return data; }
+    }
+}
@@ -0,0 +1,56 @@
+package com.stockPlus.service.realtime;
+
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 실시간 시세가 끊겨 최신값을 신뢰할 수 없는 종목 목록입니다.
+ *
+ * KIS 세션이 유실되면 그 세션에 배정됐던 종목을 stale로 표시하고,
+ * 재구독 후 REST 스냅샷으로 최신값을 보정하면 해제합니다.
+ * SSE 연결은 변경을 구독해 클라이언트에 "stale" 이벤트를 보냅니다.
+ */
+@Component
+public class StaleSymbolTracker {
+
+    private final Set<String> stale = new LinkedHashSet<>();
+    // 드물게 바뀌는 상태이므로 최신 목록만 재생하는 Sink로 충분 (방출은 synchronized로 직렬화)
+    private final Sinks.Many<Set<String>> changes = Sinks.many().replay().latest();
+
+    public StaleSymbolTracker() {
+        changes.tryEmitNext(Collections.emptySet());
+    }
+
+    public synchronized void markStale(Collection<String> codes) {
+        if (stale.addAll(codes)) publish();
+    }
+
+    public synchronized void markFresh(Collection<String> codes) {
+        if (stale.removeAll(codes)) publish();
+    }
+
+    public synchronized boolean isStale(String code) {
+        return stale.contains(code);
+    }
+
+    public synchronized Set<String> snapshot() {
+        return Set.copyOf(stale);
+    }
+
+    /**
+     * 현재 stale 목록과 이후 변경될 때마다의 전체 목록
+     */
+    public Flux<Set<String>> changes() {
+        return changes.asFlux();
+    }
+
+    private void publish() {
+        changes.tryEmitNext(Set.copyOf(stale));
+    }
+}
@@ -0,0 +1,115 @@
+package com.stockPlus.service.realtime;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * KIS 웹소켓 실시간 구독을 (TR ID, 종목코드) 단위 참조 카운트로 관리하는 레지스트리입니다.
+ *
+ * 여러 사용자가 같은 종목을 즐겨찾기해도 KIS에는 한 번만 등록하고,
+ * 마지막 사용자가 해제할 때만 해제 요청을 보냅니다. (0 -> 1, 1 -> 0 전이에서만 프레임 전송)
+ * 현재 활성 구독 목록을 보관하므로 재연결 시 DB 조회 없이 그대로 재등록할 수 있습니다.
+ */
+@Component
+public class SubscriptionRegistry {
+
+    // 삽입 순서 유지: 재연결 시 먼저 등록된 구독(지수 등)부터 재전송
+    private final Map<Key, Integer> refCounts = new LinkedHashMap<>();
+
+    /**
+     * 구독 참조를 1 증가시킵니다.
+     * @return 새로 활성화되어 KIS에 등록 요청을 보내야 하는 구독 목록
+     */
+    public synchronized List<Key> acquire(Collection<Key> keys) {
+        List<Key> activated = new ArrayList<>();
+        for (Key key : keys) {
+            if (refCounts.merge(key, 1, Integer::sum) == 1) activated.add(key);
+        }
+        return activated;
+    }
+
+    /**
+     * 구독 참조를 1 감소시킵니다. 참조가 없는 구독은 무시합니다.
+     * @return 참조가 0이 되어 KIS에 해제 요청을 보내야 하는 구독 목록
+     */
+    public synchronized List<Key> release(Collection<Key> keys) {
+        List<Key> deactivated = new ArrayList<>();
+        for (Key key : keys) {
+            Integer count = refCounts.get(key);
+            if (count == null) continue;
+            if (count <= 1) {
+                refCounts.remove(key);
+                deactivated.add(key);
+            } else {
+                refCounts.put(key, count - 1);
+            }
+        }
+        return deactivated;
+    }
+
+    /**
+     * 현재 활성화된 구독 목록 (재연결 시 재등록용)
+     */
+    public synchronized List<Key> activeKeys() {
+        return new ArrayList<>(refCounts.keySet());
+    }
+
+    /**
+     * 특정 종목(tr_key)의 활성 구독 목록
+     */
+    public synchronized List<Key> keysOf(String trKey) {
+        List<Key> keys = new ArrayList<>();
+        for (Key key : refCounts.keySet()) {
+            if (key.trKey.equals(trKey)) keys.add(key);
+        }
+        return keys;
+    }
+
+    public synchronized int refCount(String trId, String trKey) {
+        return refCounts.getOrDefault(new Key(trId, trKey), 0);
+    }
+
+    public synchronized int size() {
+        return refCounts.size();
+    }
+
+    /**
+     * 실시간 구독 단위 (TR ID + tr_key)
+     */
+    public static final class Key {
+        private final String trId;
+        private final String trKey;
+
+        public Key(String trId, String trKey) {
+            this.trId = trId;
+            this.trKey = trKey;
+        }
+
+        public String getTrId() { return trId; }
+        public String getTrKey() { return trKey; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return trId.equals(other.trId) && trKey.equals(other.trKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(trId, trKey);
+        }
+
+        @Override
+        public String toString() {
+            return trKey + "(" + trId + ")";
+        }
+    }
+}
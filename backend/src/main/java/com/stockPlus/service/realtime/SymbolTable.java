@@ -0,0 +1,140 @@
+package com.stockPlus.service.realtime;
+
+import java.util.Arrays;
+
+/**
+ * 종목코드 문자열을 정수 심볼 ID로 변환(intern)하는 전역 테이블입니다.
+ *
+ * 실시간 경로에서는 수신 버퍼의 종목코드 구간을 String 생성 없이 조회하고,
+ * 클라이언트 전송(JSON 변환) 시점에만 codeOf()로 원래 문자열을 돌려받습니다.
+ * 신규 종목 등록은 드물기 때문에 쓰기는 copy-on-write로 처리하고 읽기는 잠금 없이 수행합니다.
+ */
+public final class SymbolTable {
+
+    // 종목코드 최대 길이 (문자당 6비트로 long 하나에 패킹)
+    private static final int MAX_CODE_LENGTH = 9;
+
+    private static volatile Snapshot snapshot = new Snapshot(new long[256], new int[256], new String[0]);
+
+    private SymbolTable() {}
+
+    /**
+     * 종목코드의 심볼 ID를 반환합니다. 처음 보는 코드면 새 ID를 발급합니다.
+     */
+    public static int intern(CharSequence code) {
+        return intern(code, 0, code.length());
+    }
+
+    /**
+     * CharSequence의 [start, end) 구간을 종목코드로 보고 심볼 ID를 반환합니다.
+     */
+    public static int intern(CharSequence src, int start, int end) {
+        long key = pack(src, start, end);
+        int id = snapshot.find(key);
+        if (id >= 0) return id;
+        return register(key, src.subSequence(start, end).toString());
+    }
+
+    /**
+     * 이미 등록된 종목코드의 심볼 ID를 반환합니다. (미등록 시 -1, 신규 발급 없음)
+     */
+    public static int find(String code) {
+        return code == null ? -1 : snapshot.find(pack(code, 0, code.length()));
+    }
+
+    /**
+     * 심볼 ID에 해당하는 종목코드를 반환합니다.
+     */
+    public static String codeOf(int id) {
+        String[] codes = snapshot.codes;
+        return id >= 0 && id < codes.length ? codes[id] : null;
+    }
+
+    public static int size() { return snapshot.codes.length; }
+
+    private static synchronized int register(long key, String code) {
+        Snapshot current = snapshot;
+        int id = current.find(key);
+        if (id >= 0) return id;
+
+        id = current.codes.length;
+        String[] codes = Arrays.copyOf(current.codes, id + 1);
+        codes[id] = code;
+
+        int capacity = current.keys.length;
+        if ((id + 1) * 2 > capacity) capacity <<= 1;
+        long[] keys = new long[capacity];
+        int[] ids = new int[capacity];
+        for (int i = 0; i < id; i++) Snapshot.put(keys, ids, current.keyOf(i, codes), i);
+        Snapshot.put(keys, ids, key, id);
+
+        snapshot = new Snapshot(keys, ids, codes);
+        return id;
+    }
+
+    // 문자당 6비트(0-9, A-Z, a-z)로 패킹, 길이 초과 또는 기타 문자는 해시로 대체
+    private static long pack(CharSequence src, int start, int end) {
+        int len = end - start;
+        if (len == 0 || len > MAX_CODE_LENGTH) return hashKey(src, start, end);
+        long key = 0;
+        for (int i = start; i < end; i++) {
+            char c = src.charAt(i);
+            int v;
+            if (c >= '0' && c <= '9') v = c - '0' + 1;
+            else if (c >= 'A' && c <= 'Z') v = c - 'A' + 11;
+            else if (c >= 'a' && c <= 'z') v = c - 'a' + 37;
+            else return hashKey(src, start, end);
+            key = (key << 6) | v;
+        }
+        // 상위 비트에 길이를 넣어 "01"과 "1" 같은 코드를 구분
+        return key | ((long) len << 56);
+    }
+
+    // 패킹 불가능한 코드는 최상위 비트를 세운 64비트 해시 키로 사용
+    private static long hashKey(CharSequence src, int start, int end) {
+        long h = 1125899906842597L;
+        for (int i = start; i < end; i++) h = 31 * h + src.charAt(i);
+        return h | Long.MIN_VALUE;
+    }
+
+    private static final class Snapshot {
+        final long[] keys;   // 0은 빈 슬롯
+        final int[] ids;
+        final String[] codes;
+
+        Snapshot(long[] keys, int[] ids, String[] codes) {
+            this.keys = keys;
+            this.ids = ids;
+            this.codes = codes;
+        }
+
+        int find(long key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (true) {
+                long k = keys[slot];
+                if (k == key) return ids[slot];
+                if (k == 0) return -1;
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        long keyOf(int id, String[] codes) {
+            String code = codes[id];
+            return pack(code, 0, code.length());
+        }
+
+        static void put(long[] keys, int[] ids, long key, int id) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != 0) slot = (slot + 1) & mask;
+            keys[slot] = key;
+            ids[slot] = id;
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.stockPlus.service.realtime;
+
+import com.stockPlus.service.kis.MarketCalendar;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * KRX(J)와 NXT(NX) 체결 틱을 종목별 통합(UN) 틱 하나로 합치는 단계입니다.
+ *
+ * 종목마다 거래소별 마지막 체결 틱(현재가, 누적거래량)을 보관하고, 어느 거래소에서든 체결이 들어오면
+ * 누적거래량은 두 거래소 합계, 현재가는 시간대 기준 대표 거래소의 가격으로 한 통합 틱을 만듭니다.
+ * (KRX 정규장 시간대에는 KRX 가격, 그 외 시간대에는 NXT 가격 - MarketCalendar.isKrxPriceTime, fetchUnifiedCurrentPrice와 같은 경계)
+ * 팬아웃(SSE)은 이 통합 틱 하나만 받으므로 체결 한 건당 업데이트도 한 건입니다.
+ * (분봉 엔진은 거래소별 분봉도 유지하므로 거래소별 체결과 통합 틱을 모두 받음)
+ */
+@Component
+public class TickConsolidator {
+
+    private static final long DAY_MILLIS = 86_400_000L, SEOUL_OFFSET_MILLIS = 9 * 3_600_000L;
+
+    private final ConcurrentHashMap<Integer, Venues> venues = new ConcurrentHashMap<>();
+
+    /**
+     * 거래소별 체결 틱을 반영하고 통합(UN) 틱을 반환합니다. (수신 스레드에서 호출)
+     */
+    public RealtimeTick consolidate(RealtimeTick tick) {
+        return venues.computeIfAbsent(tick.getSymbolId(), id -> new Venues()).merge(tick);
+    }
+
+    /**
+     * 통합 대상 거래소의 체결 틱인지 여부 (예상체결, 통합, 지수 틱은 제외)
+     * SSE처럼 체결당 한 건만 받아야 하는 소비자는 이 틱을 건너뜁니다.
+     */
+    public static boolean isVenueTrade(RealtimeTick tick) {
+        return !tick.isExpected() && (tick.getExchange() == Exchange.J || tick.getExchange() == Exchange.NX);
+    }
+
+    /**
+     * 이 단계에서 만든 통합 체결 틱인지 여부 (KIS 통합 체결 TR은 구독하지 않으므로 UN 체결은 모두 합성 틱)
+     * 거래소별 원본만 기록하는 저널은 이 틱을 건너뜁니다.
+     */
+    public static boolean isConsolidated(RealtimeTick tick) {
+        return !tick.isExpected() && tick.getExchange() == Exchange.UN;
+    }
+
+    private static final class Venues {
+        private RealtimeTick krx;
+        private RealtimeTick nxt;
+
+        synchronized RealtimeTick merge(RealtimeTick tick) {
+            if (tick.getExchange() == Exchange.NX) nxt = tick;
+            else krx = tick;
+
+            // 다른 거래소의 틱이 전 거래일 것이면 누적거래량/가격에 섞지 않음
+            long day = dayOf(tick);
+            RealtimeTick j = krx != null && dayOf(krx) == day ? krx : null;
+            RealtimeTick nx = nxt != null && dayOf(nxt) == day ? nxt : null;
+
+            boolean krxHours = MarketCalendar.isKrxPriceTime(tick.getTime());
+            RealtimeTick primary = krxHours ? (j != null ? j : nx) : (nx != null ? nx : j);
+
+            // 대비/등락률/부호는 전일 종가 기준이라 거래소와 무관하므로 대표 틱 값을 그대로 사용
+            long volume = (j != null ? j.getVolume() : 0) + (nx != null ? nx.getVolume() : 0);
+            return new RealtimeTick(
+                    tick.getSymbolId(),
+                    Exchange.UN,
+                    tick.getTime(),
+                    primary.getPrice(),
+                    primary.getChange(),
+                    primary.getChangeRate(),
+                    volume,
+                    primary.getSign(),
+                    false,
+                    tick.getReceivedAt(),
+                    tick.isSnapshot()); // REST 보정 틱으로 만든 통합 틱도 보정 틱
+        }
+
+        private static long dayOf(RealtimeTick tick) {
+            return Math.floorDiv(tick.getReceivedAt() + SEOUL_OFFSET_MILLIS, DAY_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.stockPlus.service.realtime;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 수신한 모든 실시간 틱(CNT0/ANC0/UPANC0)을 일자별 메모리 매핑 파일에 순차 기록하는 저널입니다.
+ *
+ * 전역 링 버퍼의 소비자 하나로 동작하며, 전용 소비자 스레드가 고정 길이(64바이트) 레코드로 기록합니다.
+ * 수신 루프는 링 버퍼에 공개만 하므로 기록이 느려도 막히지 않고, 뒤처져 유실된 틱은 링 버퍼가 집계합니다.
+ * KIS에서 받은 거래소별 원본 틱만 기록하고 TickConsolidator가 만든 통합(UN) 체결은 기록하지 않습니다. (재생 시 다시 만들어짐)
+ * 재연결 보정용 REST 현재가 틱(snapshot)도 실제 체결이 아니므로 기록하지 않습니다.
+ * 기록된 데이터는 당일 차트, 사후 분석, 재생(replay)에 사용하며 이미 받은 데이터를 KIS에 다시 요청하지 않기 위한 용도입니다.
+ *
+ * 파일 구성: {dir}/ticks-yyyyMMdd.bin
+ *   헤더 64바이트: magic(int) version(int) recordSize(int) reserved(int) recordCount(long) createdAt(long)
+ *   레코드 64바이트: receivedAt(long) time(int) exchange(byte) sign(byte) flags(byte) reserved(byte)
+ *                   stockCode(ASCII 12바이트) price(long) change(long) changeRate(long) volume(long) reserved(4바이트)
+ */
+@Component
+@Slf4j
+public class TickJournal {
+
+    public enum FsyncPolicy {
+        NONE,     // OS에 맡김 (가장 빠름)
+        BATCH,    // writer가 모은 묶음을 기록할 때마다 force
+        INTERVAL  // 설정 주기마다 force
+    }
+
+    static final int MAGIC = 0x4B544A31; // "KTJ1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 64;
+    static final int CODE_LENGTH = 12;
+    private static final int HEADER_COUNT = 16, HEADER_CREATED = 24;
+    private static final int OFF_RECEIVED = 0, OFF_TIME = 8, OFF_EXCHANGE = 12, OFF_SIGN = 13, OFF_FLAGS = 14,
+            OFF_CODE = 16, OFF_PRICE = 28, OFF_CHANGE = 36, OFF_RATE = 44, OFF_VOLUME = 52;
+    private static final int FLAG_EXPECTED = 1;
+    private static final int COMMIT_EVERY = 1024;
+
+    private static final ZoneId SEOUL = ZoneId.of("Asia/Seoul");
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final Exchange[] EXCHANGES = Exchange.values();
+    private static final PriceSign[] SIGNS = PriceSign.values();
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long chunkSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final TickRingBuffer tickRing;
+
+    private final AtomicLong written = new AtomicLong();
+    private TickRingBuffer.Processor writer;
+
+    // --- 소비자 스레드 전용 상태 ---
+    private Segment segment;
+    private long lastForce = System.nanoTime();
+
+    public TickJournal(@Value("${realtime.journal.enabled:true}") boolean enabled,
+                       @Value("${realtime.journal.dir:./data/ticks}") String directory,
+                       @Value("${realtime.journal.chunk-mb:64}") int chunkMb,
+                       @Value("${realtime.journal.fsync:NONE}") FsyncPolicy fsyncPolicy,
+                       @Value("${realtime.journal.fsync-interval-ms:1000}") long fsyncIntervalMs,
+                       TickRingBuffer tickRing) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.chunkSize = (long) chunkMb * 1024 * 1024;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMs);
+        this.tickRing = tickRing;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Tick journal disabled.");
+            return;
+        }
+        writer = tickRing.addConsumer("journal", tick -> !tick.isSnapshot() && !TickConsolidator.isConsolidated(tick), new TickRingBuffer.Handler() {
+            @Override
+            public void onTick(RealtimeTick tick) throws IOException {
+                write(tick);
+                // 묶음이 길어져도 읽기 가능한 레코드 수를 주기적으로 반영
+                if (segment.count % COMMIT_EVERY == 0) segment.commit();
+            }
+
+            @Override
+            public void onEndOfBatch() {
+                if (segment == null) return;
+                segment.commit();
+                maybeForce(true);
+            }
+
+            @Override
+            public void onIdle() {
+                maybeForce(false);
+            }
+
+            @Override
+            public void onShutdown() {
+                closeSegment();
+            }
+        });
+        log.info("Tick journal started: dir={}, fsync={}", directory.toAbsolutePath(), fsyncPolicy);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writer == null) return;
+        // 남은 틱을 마저 기록하고 세그먼트를 닫은 뒤 종료
+        writer.close(5000);
+        log.info("Tick journal stopped. written={}, dropped={}", written.get(), writer.dropped());
+    }
+
+    public long writtenCount() { return written.get(); }
+
+    public long droppedCount() { return writer == null ? 0 : writer.dropped(); }
+
+    private void write(RealtimeTick tick) throws IOException {
+        if (segment == null || tick.getReceivedAt() >= segment.endsAt) roll(tick.getReceivedAt());
+        segment.append(tick);
+        written.incrementAndGet();
+    }
+
+    private void maybeForce(boolean wroteBatch) {
+        if (segment == null) return;
+        if (fsyncPolicy == FsyncPolicy.BATCH && wroteBatch) {
+            segment.force();
+        } else if (fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - lastForce >= fsyncIntervalNanos) {
+            segment.force();
+            lastForce = System.nanoTime();
+        }
+    }
+
+    // 수신 시각 기준 일자 세그먼트로 전환
+    private void roll(long receivedAt) throws IOException {
+        closeSegment();
+        LocalDate day = java.time.Instant.ofEpochMilli(receivedAt).atZone(SEOUL).toLocalDate();
+        Files.createDirectories(directory);
+        segment = new Segment(segmentPath(day), chunkSize, day.plusDays(1).atStartOfDay(SEOUL).toInstant().toEpochMilli());
+        log.info("Tick journal segment opened: {} ({} records)", segment.path.getFileName(), segment.count);
+    }
+
+    private void closeSegment() {
+        if (segment == null) return;
+        try {
+            segment.commit();
+            if (fsyncPolicy != FsyncPolicy.NONE) segment.force();
+            segment.close();
+        } catch (Exception e) {
+            log.warn("Failed to close tick journal segment: {}", e.getMessage());
+        }
+        segment = null;
+    }
+
+    private Path segmentPath(LocalDate day) {
+        return directory.resolve("ticks-" + day.format(FILE_DATE) + ".bin");
+    }
+
+    // --- 읽기 ---
+
+    /**
+     * 해당 일자 세그먼트에 기록된 틱을 순서대로 전달합니다. (기록 중인 세그먼트도 커밋된 레코드까지 읽을 수 있음)
+     * @return 읽은 레코드 수 (세그먼트가 없으면 0)
+     */
+    public long read(LocalDate day, Consumer<RealtimeTick> consumer) throws IOException {
+        return read(segmentPath(day), consumer);
+    }
+
+    public static long read(Path path, Consumer<RealtimeTick> consumer) throws IOException {
+        if (!Files.exists(path)) return 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC || header.getInt(8) != RECORD_SIZE) {
+                throw new IOException("Not a tick journal segment: " + path);
+            }
+            long count = header.getLong(HEADER_COUNT);
+            long position = HEADER_SIZE;
+            long remaining = count;
+            char[] code = new char[CODE_LENGTH];
+            while (remaining > 0) {
+                int n = (int) Math.min(remaining, (Integer.MAX_VALUE / RECORD_SIZE));
+                MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) n * RECORD_SIZE);
+                for (int i = 0; i < n; i++) consumer.accept(decode(buf, i * RECORD_SIZE, code));
+                position += (long) n * RECORD_SIZE;
+                remaining -= n;
+            }
+            return count;
+        }
+    }
+
+    private static RealtimeTick decode(MappedByteBuffer buf, int base, char[] code) {
+        int len = 0;
+        while (len < CODE_LENGTH) {
+            byte b = buf.get(base + OFF_CODE + len);
+            if (b == 0) break;
+            code[len++] = (char) b;
+        }
+        return new RealtimeTick(
+                SymbolTable.intern(java.nio.CharBuffer.wrap(code, 0, len)),
+                EXCHANGES[buf.get(base + OFF_EXCHANGE)],
+                buf.getInt(base + OFF_TIME),
+                buf.getLong(base + OFF_PRICE),
+                buf.getLong(base + OFF_CHANGE),
+                buf.getLong(base + OFF_RATE),
+                buf.getLong(base + OFF_VOLUME),
+                SIGNS[buf.get(base + OFF_SIGN)],
+                (buf.get(base + OFF_FLAGS) & FLAG_EXPECTED) != 0,
+                buf.getLong(base + OFF_RECEIVED));
+    }
+
+    /**
+     * 일자별 세그먼트 파일. 고정 크기 청크 단위로 매핑을 늘려가며 레코드를 기록합니다.
+     * 청크 크기가 레코드 크기의 배수이므로 레코드가 청크 경계에 걸치지 않습니다.
+     */
+    private static final class Segment {
+        final Path path;
+        final long endsAt; // 다음 날 0시 (epoch millis)
+        final FileChannel channel;
+        final long chunkSize;
+        final List<MappedByteBuffer> chunks = new ArrayList<>();
+        long count;
+
+        Segment(Path path, long chunkSize, long endsAt) throws IOException {
+            this.path = path;
+            this.endsAt = endsAt;
+            this.chunkSize = chunkSize;
+            boolean existing = Files.exists(path) && Files.size(path) >= HEADER_SIZE;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer head = chunk(0);
+            if (existing && head.getInt(0) == MAGIC) {
+                // 재시작: 커밋된 레코드 뒤부터 이어서 기록
+                count = head.getLong(HEADER_COUNT);
+            } else {
+                head.putInt(0, MAGIC);
+                head.putInt(4, VERSION);
+                head.putInt(8, RECORD_SIZE);
+                head.putLong(HEADER_COUNT, 0);
+                head.putLong(HEADER_CREATED, System.currentTimeMillis());
+            }
+        }
+
+        private MappedByteBuffer chunk(int index) throws IOException {
+            while (chunks.size() <= index) {
+                chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, chunks.size() * chunkSize, chunkSize));
+            }
+            return chunks.get(index);
+        }
+
+        void append(RealtimeTick tick) throws IOException {
+            long position = HEADER_SIZE + count * RECORD_SIZE;
+            MappedByteBuffer buf = chunk((int) (position / chunkSize));
+            int base = (int) (position % chunkSize);
+
+            buf.putLong(base + OFF_RECEIVED, tick.getReceivedAt());
+            buf.putInt(base + OFF_TIME, tick.getTime());
+            buf.put(base + OFF_EXCHANGE, (byte) tick.getExchange().ordinal());
+            buf.put(base + OFF_SIGN, (byte) tick.getSign().ordinal());
+            buf.put(base + OFF_FLAGS, (byte) (tick.isExpected() ? FLAG_EXPECTED : 0));
+            String code = tick.getStockCode();
+            for (int i = 0; i < CODE_LENGTH; i++) {
+                buf.put(base + OFF_CODE + i, i < code.length() ? (byte) code.charAt(i) : 0);
+            }
+            buf.putLong(base + OFF_PRICE, tick.getPrice());
+            buf.putLong(base + OFF_CHANGE, tick.getChange());
+            buf.putLong(base + OFF_RATE, tick.getChangeRate());
+            buf.putLong(base + OFF_VOLUME, tick.getVolume());
+            count++;
+        }
+
+        // 헤더의 레코드 수 갱신 (이 값까지가 읽기 가능한 레코드)
+        void commit() {
+            if (!chunks.isEmpty()) chunks.get(0).putLong(HEADER_COUNT, count);
+        }
+
+        void force() {
+            for (MappedByteBuffer chunk : chunks) chunk.force();
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.stockPlus.service.realtime;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * 실시간 틱 분배용 고정 크기 링 버퍼입니다. (LMAX Disruptor 방식)
+ *
+ * 슬롯 배열을 미리 할당해 두고, 생산자는 시퀀스를 하나 할당받아 슬롯에 기록한 뒤 스탬프로 공개합니다.
+ * 소비자(SSE 라우터, 저널, 분봉 등)는 각자 전용 스레드와 자기 시퀀스를 가지고 자기 속도로 읽으므로
+ * 한 소비자가 느려도 다른 소비자나 생산자(KIS 수신 스레드)를 지연시키지 않습니다.
+ *
+ * 느린 소비자 정책: 생산자는 절대 기다리지 않습니다. 소비자가 버퍼 한 바퀴 이상 뒤처져 읽을 슬롯이 덮어써지면
+ * 버퍼 절반 뒤 지점으로 건너뛰고, 건너뛴 틱 수를 소비자별 drop 수로 집계하고 경고 로그를 남깁니다.
+ * (Sinks.Many처럼 조용히 버려지는 일이 없도록 모든 유실이 집계됩니다)
+ *
+ * 슬롯 스탬프: 0 = 비어 있음, seq+1 = 공개됨, -(seq+1) = 기록 중 (seqlock 방식으로 덮어쓰기 중인 슬롯을 읽지 않음)
+ *
+ * 단일 생산자가 아닌 다중 생산자 구성입니다. KIS 세션이 여러 샤드로 나뉘어 각 샤드의 IO 스레드가 직접 공개하므로,
+ * 생산자 스레드 하나로 모으는 단계(추가 큐와 스레드 전환)를 두지 않고 시퀀스를 원자적으로 할당합니다.
+ * 그래서 시퀀스를 할당받고 아직 스탬프를 쓰지 않은 슬롯이 있을 수 있으며, 소비자는 그 슬롯이 공개될 때까지 기다렸다가 순서대로 읽습니다.
+ */
+@Slf4j
+public class TickRingBuffer {
+
+    // 읽을 틱이 없을 때 park 전 대기 회전 수, 최대 park 시간 (onIdle 호출 주기)
+    private static final int SPIN_TRIES = 200;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<RealtimeTick> slots;
+    private final AtomicLongArray stamps;
+    private final AtomicLong cursor = new AtomicLong(); // 다음에 할당할 시퀀스
+
+    private volatile Worker[] workers = new Worker[0];
+
+    /**
+     * @param capacity 슬롯 수 (2의 거듭제곱으로 올림)
+     */
+    public TickRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.stamps = new AtomicLongArray(size);
+    }
+
+    /**
+     * 소비자가 처리할 틱 핸들러
+     */
+    public interface Handler {
+        void onTick(RealtimeTick tick) throws Exception;
+
+        /** 현재 공개된 틱을 모두 처리했을 때 (묶음 단위 커밋/flush 시점, 처리한 틱이 있을 때만) */
+        default void onEndOfBatch() throws Exception {}
+
+        /** 읽을 틱 없이 대기 시간이 지났을 때 (주기 작업용) */
+        default void onIdle() throws Exception {}
+
+        /** 소비자 종료 직전, 남은 틱을 모두 처리한 뒤 소비자 스레드에서 호출 */
+        default void onShutdown() throws Exception {}
+    }
+
+    /**
+     * 틱을 공개합니다. 여러 수신 스레드에서 동시에 호출할 수 있으며 블로킹하지 않습니다.
+     * @return 할당된 시퀀스
+     */
+    public long publish(RealtimeTick tick) {
+        long seq = cursor.getAndIncrement();
+        int idx = (int) seq & mask;
+        stamps.set(idx, -(seq + 1));
+        slots.set(idx, tick);
+        stamps.set(idx, seq + 1);
+        for (Worker worker : workers) {
+            if (worker.parked) LockSupport.unpark(worker.thread);
+        }
+        return seq;
+    }
+
+    /**
+     * 전용 스레드에서 실행되는 소비자를 등록합니다. 등록 이후 공개되는 틱부터 받습니다.
+     * @param filter 처리할 틱 조건 (해당하지 않는 틱은 시퀀스만 넘김)
+     */
+    public Processor addConsumer(String name, Predicate<RealtimeTick> filter, Handler handler) {
+        Worker worker = new Worker(name, filter, handler, cursor.get());
+        synchronized (this) {
+            Worker[] next = Arrays.copyOf(workers, workers.length + 1);
+            next[workers.length] = worker;
+            workers = next;
+        }
+        worker.thread.start();
+        log.info("Tick ring consumer started: {} (capacity={})", name, capacity);
+        return worker;
+    }
+
+    private synchronized void removeWorker(Worker worker) {
+        List<Worker> next = new ArrayList<>(Arrays.asList(workers));
+        next.remove(worker);
+        workers = next.toArray(new Worker[0]);
+    }
+
+    public int capacity() { return capacity; }
+
+    /** 지금까지 공개된 틱 수 */
+    public long published() { return cursor.get(); }
+
+    /**
+     * 소비자별 상태 (모니터링용)
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("capacity", capacity);
+        status.put("published", cursor.get());
+        List<Map<String, Object>> consumers = new ArrayList<>();
+        for (Worker worker : workers) {
+            Map<String, Object> c = new LinkedHashMap<>();
+            c.put("name", worker.name);
+            c.put("sequence", worker.next - 1);
+            c.put("lag", worker.lag());
+            c.put("dropped", worker.dropped());
+            consumers.add(c);
+        }
+        status.put("consumers", consumers);
+        return status;
+    }
+
+    /**
+     * 등록된 소비자 핸들
+     */
+    public interface Processor {
+        /** 공개되었지만 아직 처리하지 않은 틱 수 */
+        long lag();
+
+        /** 뒤처져 덮어써진 틱 수 */
+        long dropped();
+
+        /** 남은 틱을 처리한 뒤 소비자 스레드를 종료합니다. (최대 timeoutMillis 대기) */
+        void close(long timeoutMillis);
+    }
+
+    private final class Worker implements Processor, Runnable {
+        final String name;
+        final Predicate<RealtimeTick> filter;
+        final Handler handler;
+        final Thread thread;
+        final AtomicLong droppedCount = new AtomicLong();
+        volatile long next;          // 다음에 읽을 시퀀스
+        volatile boolean parked;
+        volatile boolean running = true;
+
+        Worker(String name, Predicate<RealtimeTick> filter, Handler handler, long start) {
+            this.name = name;
+            this.filter = filter;
+            this.handler = handler;
+            this.next = start;
+            this.thread = new Thread(this, "tick-ring-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            boolean inBatch = false; // 마지막 onEndOfBatch 이후 처리한 틱이 있는지
+            while (true) {
+                long seq = next;
+                long stamp = stamps.get((int) seq & mask);
+                if (stamp == seq + 1) {
+                    RealtimeTick tick = slots.get((int) seq & mask);
+                    if (stamps.get((int) seq & mask) != seq + 1) {
+                        skipLapped(seq);
+                        continue;
+                    }
+                    next = seq + 1;
+                    idle = 0;
+                    if (filter.test(tick)) {
+                        inBatch = true;
+                        try {
+                            handler.onTick(tick);
+                        } catch (Exception e) {
+                            log.warn("Tick ring consumer {} failed: {}", name, e.getMessage());
+                        }
+                    }
+                    if (inBatch && stamps.get((int) (seq + 1) & mask) != seq + 2) {
+                        inBatch = false;
+                        endOfBatch();
+                    }
+                } else if (Math.abs(stamp) > seq + 1) {
+                    skipLapped(seq);
+                } else if (!running && seq >= cursor.get()) {
+                    break;
+                } else if (++idle < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    parked = true;
+                    // park 직전 다시 확인하여 공개 알림을 놓치지 않음
+                    if (stamps.get((int) seq & mask) != seq + 1 && running) {
+                        long parkedAt = System.nanoTime();
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                        if (System.nanoTime() - parkedAt >= IDLE_PARK_NANOS) idle();
+                    }
+                    parked = false;
+                    idle = 0;
+                }
+            }
+            try {
+                handler.onShutdown();
+            } catch (Exception e) {
+                log.warn("Tick ring consumer {} shutdown failed: {}", name, e.getMessage());
+            }
+        }
+
+        private void endOfBatch() {
+            try {
+                handler.onEndOfBatch();
+            } catch (Exception e) {
+                log.warn("Tick ring consumer {} batch end failed: {}", name, e.getMessage());
+            }
+        }
+
+        private void idle() {
+            try {
+                handler.onIdle();
+            } catch (Exception e) {
+                log.warn("Tick ring consumer {} idle task failed: {}", name, e.getMessage());
+            }
+        }
+
+        // 읽기 전에 덮어써진 경우: 버퍼 절반 뒤로 건너뛰고 건너뛴 수를 집계
+        private void skipLapped(long seq) {
+            long resume = Math.max(seq + 1, cursor.get() - capacity / 2);
+            long skipped = resume - seq;
+            next = resume;
+            // 첫 유실만 경고, 이후는 debug (누적 수는 getStatus로 확인)
+            if (droppedCount.getAndAdd(skipped) == 0) {
+                log.warn("Tick ring consumer {} fell behind; skipped {} ticks", name, skipped);
+            } else {
+                log.debug("Tick ring consumer {} fell behind; skipped {} ticks (total {})", name, skipped, droppedCount.get());
+            }
+        }
+
+        @Override
+        public long lag() {
+            return Math.max(0, cursor.get() - next);
+        }
+
+        @Override
+        public long dropped() {
+            return droppedCount.get();
+        }
+
+        @Override
+        public void close(long timeoutMillis) {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join(timeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            removeWorker(this);
+            log.info("Tick ring consumer stopped: {} (dropped={})", name, droppedCount.get());
+        }
+    }
+}
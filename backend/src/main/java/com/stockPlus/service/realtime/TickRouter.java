@@ -0,0 +1,150 @@
+package com.stockPlus.service.realtime;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 실시간 틱을 종목(심볼 ID) 기준으로 관심 있는 구독자에게만 전달하는 라우터입니다.
+ *
+ * 전역 링 버퍼의 소비자 하나로 동작하며(전용 스레드), 심볼 ID -> 구독자 배열 인덱스로 틱을 분배합니다.
+ * KRX/NXT 개별 체결은 건너뛰고 통합(UN) 틱만 분배하므로 체결 한 건당 한 번만 분배합니다.
+ * 따라서 틱 직렬화/전송 비용은 전체 클라이언트 수가 아니라 해당 종목을 보는 클라이언트 수에 비례합니다.
+ * 구독 등록/해제는 드물기 때문에 copy-on-write로 처리하고, 분배 경로는 잠금 없이 동작합니다.
+ */
+@Component
+@Slf4j
+public class TickRouter {
+
+    private static final Listener[] EMPTY = new Listener[0];
+
+    private final TickRingBuffer tickRing;
+
+    // 심볼 ID -> 구독자 배열 (불변 배열을 통째로 교체)
+    private final AtomicReference<Listener[][]> index = new AtomicReference<>(new Listener[0][]);
+    private TickRingBuffer.Processor upstream;
+
+    public TickRouter(TickRingBuffer tickRing) {
+        this.tickRing = tickRing;
+    }
+
+    @PostConstruct
+    public void start() {
+        upstream = tickRing.addConsumer("router", tick -> !TickConsolidator.isVenueTrade(tick), this::dispatch);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (upstream != null) upstream.close(1000);
+    }
+
+    /**
+     * 지정한 종목코드들의 틱을 받을 구독자를 등록합니다.
+     * @return 구독 해제용 Disposable
+     */
+    public Disposable register(Collection<String> stockCodes, Consumer<RealtimeTick> consumer) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (String code : stockCodes) {
+            if (code != null && !code.isBlank()) ids.add(SymbolTable.intern(code.trim()));
+        }
+        Listener listener = new Listener(ids.stream().mapToInt(Integer::intValue).toArray(), consumer);
+        update(listener, true);
+        return () -> update(listener, false);
+    }
+
+    /**
+     * 지정한 종목의 틱을 클라이언트별 최신값 버퍼(conflation)를 거쳐 전달하는 스트림을 만듭니다.
+     * 다운스트림 요청이 없을 때는 종목별 최신 틱만 보관하므로 버퍼가 구독 종목 수 이상으로 커지지 않습니다.
+     * @param initial 구독 직후 먼저 전달할 틱 (최신값 스냅샷)
+     */
+    public Flux<RealtimeTick> stream(Collection<String> stockCodes, Collection<RealtimeTick> initial) {
+        return Flux.create(sink -> {
+            ConflatingTickBuffer buffer = new ConflatingTickBuffer(sink);
+            initial.forEach(buffer::offer);
+            Disposable registration = register(stockCodes, buffer::offer);
+            sink.onRequest(n -> buffer.drain());
+            sink.onDispose(() -> {
+                registration.dispose();
+                if (buffer.conflatedCount() > 0) {
+                    log.debug("Client stream closed. Conflated ticks: {}", buffer.conflatedCount());
+                }
+            });
+        }, FluxSink.OverflowStrategy.ERROR);
+    }
+
+    private synchronized void update(Listener listener, boolean add) {
+        Listener[][] current = index.get();
+        int maxId = current.length - 1;
+        for (int id : listener.symbolIds) maxId = Math.max(maxId, id);
+
+        Listener[][] next = Arrays.copyOf(current, maxId + 1);
+        for (int id : listener.symbolIds) {
+            Listener[] row = next[id] == null ? EMPTY : next[id];
+            next[id] = add ? append(row, listener) : remove(row, listener);
+        }
+        index.set(next);
+    }
+
+    private static Listener[] append(Listener[] row, Listener listener) {
+        Listener[] grown = Arrays.copyOf(row, row.length + 1);
+        grown[row.length] = listener;
+        return grown;
+    }
+
+    private static Listener[] remove(Listener[] row, Listener listener) {
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] == listener) {
+                Listener[] shrunk = new Listener[row.length - 1];
+                System.arraycopy(row, 0, shrunk, 0, i);
+                System.arraycopy(row, i + 1, shrunk, i, row.length - i - 1);
+                return shrunk;
+            }
+        }
+        return row;
+    }
+
+    private void dispatch(RealtimeTick tick) {
+        Listener[][] current = index.get();
+        int id = tick.getSymbolId();
+        if (id >= current.length) return;
+        Listener[] row = current[id];
+        if (row == null) return;
+        for (Listener listener : row) {
+            try {
+                listener.consumer.accept(tick);
+            } catch (Exception e) {
+                log.warn("Tick listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 종목별 구독자 수 (모니터링용)
+     */
+    public int subscriberCount(String stockCode) {
+        int id = SymbolTable.find(stockCode);
+        Listener[][] current = index.get();
+        return id < 0 || id >= current.length || current[id] == null ? 0 : current[id].length;
+    }
+
+    private static final class Listener {
+        final int[] symbolIds;
+        final Consumer<RealtimeTick> consumer;
+
+        Listener(int[] symbolIds, Consumer<RealtimeTick> consumer) {
+            this.symbolIds = symbolIds;
+            this.consumer = consumer;
+        }
+    }
+}
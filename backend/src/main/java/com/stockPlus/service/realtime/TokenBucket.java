@@ -0,0 +1,57 @@
+package com.stockPlus.service.realtime;
+
+/**
+ * 초당 허용량(rate)과 순간 최대 허용량(burst)을 갖는 토큰 버킷입니다.
+ *
+ * 토큰이 있으면 즉시 소비하고, 없으면 다음 토큰이 생기기까지 남은 시간을 알려줍니다.
+ * 호출자는 그 시간만큼 한 번만 대기하면 되므로 요소마다 타이머를 만들 필요가 없습니다.
+ */
+public final class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double burst;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000d;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * 토큰 1개 소비를 시도합니다.
+     * @return 0이면 소비 성공, 양수면 다음 토큰까지 남은 시간(ns)
+     */
+    public synchronized long tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    synchronized long tryAcquire(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1d) {
+            tokens -= 1d;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1d - tokens) / permitsPerNano));
+    }
+
+    /**
+     * 현재 남은 토큰 수 (모니터링용)
+     */
+    public synchronized double available() {
+        refill(System.nanoTime());
+        return tokens;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefill;
+        if (elapsed <= 0) return;
+        tokens = Math.min(burst, tokens + elapsed * permitsPerNano);
+        lastRefill = nowNanos;
+    }
+}
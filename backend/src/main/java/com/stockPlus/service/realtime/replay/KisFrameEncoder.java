@@ -0,0 +1,93 @@
+package com.stockPlus.service.realtime.replay;
+
+import com.stockPlus.service.realtime.Exchange;
+import com.stockPlus.service.realtime.RealtimeTick;
+
+import java.util.List;
+
+/**
+ * RealtimeTick을 KIS 실시간 데이터 프레임(0|TR_ID|건수|필드^필드...) 형식으로 인코딩합니다.
+ * KisFrameParser / KisRealtimeService가 읽는 필드 위치에 맞춰 값을 채우고 나머지 필드는 0으로 채웁니다.
+ */
+public final class KisFrameEncoder {
+
+    // 체결(CNT0) 46개, 예상체결(ANC0)은 51번 필드까지 필요, 업종지수(UPANC0)는 8번 필드까지 사용
+    private static final int CNT_FIELDS = 46, ANC_FIELDS = 52, IDX_FIELDS = 30;
+
+    private KisFrameEncoder() {}
+
+    /**
+     * 틱이 실제 KIS에서 전달될 때의 TR ID
+     */
+    public static String trIdOf(RealtimeTick tick) {
+        Exchange exchange = tick.getExchange();
+        if (exchange == Exchange.IDX) return "H0UPANC0";
+        String prefix = exchange == Exchange.NX ? "H0NX" : exchange == Exchange.UN ? "H0UN" : "H0ST";
+        return prefix + (tick.isExpected() ? "ANC0" : "CNT0");
+    }
+
+    /**
+     * 같은 TR의 틱 여러 건을 다건 프레임 하나로 인코딩합니다.
+     */
+    public static String encode(String trId, List<RealtimeTick> ticks) {
+        StringBuilder sb = new StringBuilder(ticks.size() * 256);
+        sb.append("0|").append(trId).append('|');
+        int count = ticks.size();
+        if (count < 100) sb.append('0');
+        if (count < 10) sb.append('0');
+        sb.append(count).append('|');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append('^');
+            appendRecord(sb, ticks.get(i));
+        }
+        return sb.toString();
+    }
+
+    static void appendRecord(StringBuilder sb, RealtimeTick tick) {
+        String time = RealtimeTick.formatTime(tick.getTime());
+        String price = RealtimeTick.formatPrice(tick.getPrice());
+        String change = RealtimeTick.formatPrice(tick.getChange());
+        String rate = RealtimeTick.formatFixed(tick.getChangeRate());
+        String sign = tick.getSign().code().isEmpty() ? "3" : tick.getSign().code();
+        String volume = Long.toString(tick.getVolume());
+
+        String[] fields;
+        if (tick.getExchange() == Exchange.IDX) {
+            fields = filled(IDX_FIELDS);
+            fillCommon(fields, tick, time, price, sign, change, rate);
+            fields[8] = volume;
+        } else if (tick.isExpected()) {
+            fields = filled(ANC_FIELDS);
+            fields[0] = tick.getStockCode();
+            fields[1] = time;
+            fields[47] = price;
+            fields[48] = change;
+            fields[49] = sign;
+            fields[50] = rate;
+            fields[51] = volume;
+        } else {
+            fields = filled(CNT_FIELDS);
+            fillCommon(fields, tick, time, price, sign, change, rate);
+            fields[13] = volume;
+        }
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) sb.append('^');
+            sb.append(fields[i]);
+        }
+    }
+
+    private static void fillCommon(String[] fields, RealtimeTick tick, String time, String price, String sign, String change, String rate) {
+        fields[0] = tick.getStockCode();
+        fields[1] = time;
+        fields[2] = price;
+        fields[3] = sign;
+        fields[4] = change;
+        fields[5] = rate;
+    }
+
+    private static String[] filled(int size) {
+        String[] fields = new String[size];
+        java.util.Arrays.fill(fields, "0");
+        return fields;
+    }
+}
@@ -0,0 +1,261 @@
+package com.stockPlus.service.realtime.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockPlus.service.realtime.Exchange;
+import com.stockPlus.service.realtime.RealtimeTick;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.websocket.WebsocketInbound;
+import reactor.netty.http.websocket.WebsocketOutbound;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * KIS 실시간 웹소켓 서버를 흉내 내는 로컬 서버입니다. (부하 테스트/주말·CI 검증용)
+ *
+ * 구독 등록/해제 JSON 요청에 KIS와 같은 형식의 제어 응답을 돌려주고, 주기적으로 PINGPONG을 보내며,
+ * 재생 중인 틱을 구독한 세션에만 0|TR_ID|건수|... 데이터 프레임으로 전달합니다.
+ * 같은 시점에 몰린 틱은 TR별 다건 프레임으로 묶어 장 시작 동시호가 같은 burst를 재현합니다.
+ */
+@Slf4j
+public class KisStandInServer {
+
+    private static final DateTimeFormatter PING_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final int MAX_RECORDS_PER_FRAME = 16;
+
+    private final int port;
+    private final int maxSubscriptionsPerSession;
+    private final Duration pingInterval;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<ClientSession> sessions = new CopyOnWriteArrayList<>();
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong ticksPublished = new AtomicLong();
+
+    private DisposableServer server;
+    private Thread player;
+
+    public KisStandInServer(int port, int maxSubscriptionsPerSession, Duration pingInterval) {
+        this.port = port;
+        this.maxSubscriptionsPerSession = maxSubscriptionsPerSession;
+        this.pingInterval = pingInterval;
+    }
+
+    public synchronized void start() {
+        if (server != null) return;
+        server = HttpServer.create()
+                .host("localhost")
+                .port(port)
+                .route(routes -> routes.ws("/", this::handle))
+                .bindNow();
+        log.info("KIS stand-in server listening on {}", getUri());
+    }
+
+    public synchronized void stop() {
+        if (player != null) player.interrupt();
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+            log.info("KIS stand-in server stopped. ticks={}, frames={}", ticksPublished.get(), framesSent.get());
+        }
+    }
+
+    public URI getUri() {
+        return URI.create("ws://localhost:" + (server != null ? server.port() : port));
+    }
+
+    /**
+     * 틱 공급원을 별도 스레드에서 재생합니다.
+     * @param speed 재생 배속 (1 = 기록된 간격 그대로, 10 = 10배속, 0 이하 = 대기 없이 최대 속도)
+     * @param loop 끝나면 처음부터 반복 여부
+     */
+    public synchronized void replay(TickSource source, double speed, boolean loop) {
+        if (player != null) player.interrupt();
+        player = new Thread(() -> {
+            do {
+                try {
+                    playOnce(source, speed);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    if (!Thread.currentThread().isInterrupted()) log.error("Tick replay failed: {}", e.getMessage(), e);
+                    return;
+                }
+            } while (loop && !Thread.currentThread().isInterrupted());
+            log.info("Tick replay finished. ticks={}, frames={}", ticksPublished.get(), framesSent.get());
+        }, "kis-stand-in-replay");
+        player.setDaemon(true);
+        player.start();
+    }
+
+    private void playOnce(TickSource source, double speed) throws Exception {
+        List<RealtimeTick> pending = new ArrayList<>(MAX_RECORDS_PER_FRAME);
+        long[] origin = {-1, 0}; // {첫 틱 receivedAt, 재생 시작 nanoTime}
+        source.play(tick -> {
+            if (Thread.currentThread().isInterrupted()) throw new IllegalStateException("replay interrupted");
+            if (speed > 0) {
+                if (origin[0] < 0) {
+                    origin[0] = tick.getReceivedAt();
+                    origin[1] = System.nanoTime();
+                }
+                long due = origin[1] + (long) ((tick.getReceivedAt() - origin[0]) * 1_000_000d / speed);
+                long wait = due - System.nanoTime();
+                if (wait > TimeUnit.MILLISECONDS.toNanos(1)) {
+                    // 다음 시점으로 넘어가기 전에 지금까지 몰린 틱을 전송
+                    flush(pending);
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            pending.add(tick);
+            if (pending.size() >= MAX_RECORDS_PER_FRAME) flush(pending);
+        });
+        flush(pending);
+    }
+
+    /**
+     * 틱 한 건을 즉시 전송합니다. (벤치마크에서 직접 밀어넣을 때 사용)
+     */
+    public void publish(RealtimeTick tick) {
+        List<RealtimeTick> single = new ArrayList<>(1);
+        single.add(tick);
+        flush(single);
+    }
+
+    // 구독 세션별로 TR 단위 다건 프레임을 만들어 전송
+    private void flush(List<RealtimeTick> ticks) {
+        if (ticks.isEmpty()) return;
+        ticksPublished.addAndGet(ticks.size());
+        for (ClientSession session : sessions) {
+            Map<String, List<RealtimeTick>> byTr = new LinkedHashMap<>();
+            for (RealtimeTick tick : ticks) {
+                String trId = KisFrameEncoder.trIdOf(tick);
+                if (session.wants(trId, tick)) byTr.computeIfAbsent(trId, k -> new ArrayList<>()).add(tick);
+            }
+            for (Map.Entry<String, List<RealtimeTick>> entry : byTr.entrySet()) {
+                session.send(KisFrameEncoder.encode(entry.getKey(), entry.getValue()));
+                framesSent.incrementAndGet();
+            }
+        }
+        ticks.clear();
+    }
+
+    /**
+     * 현재 어느 세션이든 구독 중인 종목코드 (합성 틱 생성 대상)
+     */
+    public Collection<String> subscribedCodes() {
+        Set<String> codes = new TreeSet<>();
+        for (ClientSession session : sessions) {
+            for (String key : session.subscriptions.keySet()) codes.add(key.substring(key.indexOf('|') + 1));
+        }
+        return codes;
+    }
+
+    public int sessionCount() { return sessions.size(); }
+
+    public long framesSent() { return framesSent.get(); }
+
+    private Mono<Void> handle(WebsocketInbound in, WebsocketOutbound out) {
+        ClientSession session = new ClientSession();
+        sessions.add(session);
+        log.info("Stand-in client connected. sessions={}", sessions.size());
+
+        Flux<String> ping = Flux.interval(pingInterval)
+                .map(i -> "{\"header\":{\"tr_id\":\"PINGPONG\",\"datetime\":\"" + LocalDateTime.now().format(PING_TIME) + "\"}}");
+        Mono<Void> inbound = in.receive().asString().doOnNext(session::onMessage).then();
+        Mono<Void> outbound = out.sendString(Flux.merge(session.out.asFlux(), ping)).then();
+
+        return Mono.firstWithSignal(inbound, outbound)
+                .doFinally(signal -> {
+                    sessions.remove(session);
+                    log.info("Stand-in client disconnected. sessions={}", sessions.size());
+                });
+    }
+
+    /**
+     * 접속한 클라이언트 세션 하나의 구독 상태
+     */
+    private final class ClientSession {
+        final Map<String, Boolean> subscriptions = new ConcurrentHashMap<>(); // "TR_ID|tr_key"
+        final Sinks.Many<String> out = Sinks.many().unicast().onBackpressureBuffer();
+
+        // 재생 스레드와 IO 스레드(제어 응답)가 함께 쓰므로 직렬화
+        synchronized void send(String frame) {
+            out.tryEmitNext(frame);
+        }
+
+        boolean wants(String trId, RealtimeTick tick) {
+            String code = tick.getStockCode();
+            if (subscriptions.containsKey(trId + "|" + code)) return true;
+            // 지수는 TR 구분 없이 해당 코드를 구독했으면 전달 (KisRealtimeService는 지수를 체결 TR로 구독)
+            return tick.getExchange() == Exchange.IDX && subscriptions.containsKey("H0STCNT0|" + code);
+        }
+
+        void onMessage(String message) {
+            try {
+                JsonNode root = objectMapper.readTree(message);
+                String trType = root.path("header").path("tr_type").asText();
+                JsonNode input = root.path("body").path("input");
+                String trId = input.path("tr_id").asText();
+                String trKey = input.path("tr_key").asText();
+                String key = trId + "|" + trKey;
+
+                if ("1".equals(trType)) {
+                    if (subscriptions.containsKey(key)) {
+                        reply(trId, trKey, "1", "OPSP0002", "ALREADY IN SUBSCRIBE");
+                    } else if (subscriptions.size() >= maxSubscriptionsPerSession) {
+                        reply(trId, trKey, "1", "OPSP0008", "MAX SUBSCRIBE OVER");
+                    } else {
+                        subscriptions.put(key, Boolean.TRUE);
+                        reply(trId, trKey, "0", "OPSP0000", "SUBSCRIBE SUCCESS");
+                    }
+                } else if ("2".equals(trType)) {
+                    if (subscriptions.remove(key) != null) {
+                        reply(trId, trKey, "0", "OPSP0001", "UNSUBSCRIBE SUCCESS");
+                    } else {
+                        reply(trId, trKey, "1", "OPSP0003", "UNSUBSCRIBE ERROR(not found!)");
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Stand-in received invalid message: {}", message);
+            }
+        }
+
+        private void reply(String trId, String trKey, String rtCd, String msgCd, String msg) {
+            Map<String, Object> header = new LinkedHashMap<>();
+            header.put("tr_id", trId);
+            header.put("tr_key", trKey);
+            header.put("encrypt", "N");
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("rt_cd", rtCd);
+            body.put("msg_cd", msgCd);
+            body.put("msg1", msg);
+            Map<String, Object> reply = new LinkedHashMap<>();
+            reply.put("header", header);
+            reply.put("body", body);
+            try {
+                send(objectMapper.writeValueAsString(reply));
+            } catch (Exception e) {
+                log.warn("Failed to build stand-in reply: {}", e.getMessage());
+            }
+        }
+    }
+}
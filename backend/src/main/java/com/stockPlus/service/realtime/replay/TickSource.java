@@ -0,0 +1,88 @@
+package com.stockPlus.service.realtime.replay;
+
+import com.stockPlus.service.realtime.Exchange;
+import com.stockPlus.service.realtime.PriceSign;
+import com.stockPlus.service.realtime.RealtimeTick;
+import com.stockPlus.service.realtime.SymbolTable;
+import com.stockPlus.service.realtime.TickJournal;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 재생용 틱 공급원입니다. 틱의 receivedAt 간격이 재생 속도 계산 기준이 됩니다.
+ */
+@FunctionalInterface
+public interface TickSource {
+
+    /**
+     * 틱을 시간 순서대로 전달합니다. (호출 스레드에서 블로킹으로 실행)
+     */
+    void play(Consumer<RealtimeTick> sink) throws Exception;
+
+    /**
+     * TickJournal 세그먼트 파일을 그대로 재생합니다.
+     */
+    static TickSource journal(Path segment) {
+        return sink -> TickJournal.read(segment, sink);
+    }
+
+    /**
+     * 종목별 랜덤 워크로 합성 체결 틱을 생성합니다.
+     * @param codes 대상 종목코드 공급자 (호출 시점마다 다시 조회하므로 현재 구독 종목을 넘길 수 있음)
+     * @param ticksPerSecond 가상 시간 기준 초당 틱 수 (재생 속도 1배일 때 실제 초당 전송 수)
+     * @param durationSeconds 가상 시간 기준 생성 기간
+     */
+    static TickSource synthetic(Supplier<Collection<String>> codes, int ticksPerSecond, int durationSeconds) {
+        return sink -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Map<String, long[]> state = new HashMap<>(); // code -> {기준가, 현재가, 누적거래량}
+            long start = System.currentTimeMillis();
+            long total = (long) ticksPerSecond * durationSeconds;
+            List<String> current = new ArrayList<>();
+            for (long i = 0; i < total; i++) {
+                if (i % ticksPerSecond == 0 || current.isEmpty()) {
+                    current.clear();
+                    current.addAll(codes.get());
+                }
+                if (current.isEmpty()) {
+                    // 아직 구독 종목이 없으면 잠시 대기 후 다시 조회
+                    Thread.sleep(100);
+                    i--;
+                    continue;
+                }
+                String code = current.get(random.nextInt(current.size()));
+                boolean index = code.length() == 4;
+                long[] s = state.computeIfAbsent(code, c -> {
+                    long base = (index ? 2500_00 : 50_000_00) + random.nextLong(1_000_00);
+                    return new long[]{base, base, 0};
+                });
+                long step = index ? random.nextLong(-50, 51) : random.nextLong(-5, 6) * 100;
+                s[1] = Math.max(100, s[1] + step);
+                s[2] += random.nextInt(1, 500);
+                long change = s[1] - s[0];
+                long receivedAt = start + i * 1000 / ticksPerSecond;
+                long elapsedSec = (receivedAt - start) / 1000;
+                int time = (int) (90000 + (elapsedSec / 3600) * 10000 + (elapsedSec / 60 % 60) * 100 + elapsedSec % 60);
+                sink.accept(new RealtimeTick(
+                        SymbolTable.intern(code),
+                        index ? Exchange.IDX : Exchange.J,
+                        time,
+                        s[1],
+                        change,
+                        change * 100 * 100 / s[0],
+                        s[2],
+                        change > 0 ? PriceSign.RISE : change < 0 ? PriceSign.FALL : PriceSign.FLAT,
+                        false,
+                        receivedAt));
+            }
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package com.stockPlus.service.chart;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BarCodec 인코딩/디코딩 왕복 테스트입니다.
+ * BarStore와 같은 방식으로 BLOCK_BARS개 단위로 나눠 인코딩하고, 디코딩 결과가 원본과 같은지 컬럼별로 비교합니다.
+ */
+class BarCodecTest {
+
+    private static final long DAY = 86400;
+    private static final long START = 1_767_225_600L; // 2026-01-01 00:00 UTC
+
+    @Test
+    void singleBar() {
+        BarColumns bars = new BarColumns();
+        bars.add(START, 7_120_000, 7_150_000, 7_100_000, 7_140_000, 12_345_678);
+        assertRoundTrip(bars);
+    }
+
+    @Test
+    void exactlyOneBlock() {
+        assertRoundTrip(dailyBars(BarStore.BLOCK_BARS, new Random(1)));
+    }
+
+    @Test
+    void oneBarIntoSecondBlock() {
+        assertRoundTrip(dailyBars(BarStore.BLOCK_BARS + 1, new Random(2)));
+    }
+
+    @Test
+    void negativeAndZeroDeltas() {
+        BarColumns bars = new BarColumns();
+        // 시각: 같은 시각(delta 0), 역행(음수 delta), 간격이 갑자기 커지는 구간(큰 delta-of-delta)
+        long[] time = {START, START, START + 60, START - 120, START + 60, START + 60 + 10 * DAY, START + 61, Long.MIN_VALUE / 4};
+        // 가격: 하락(음수 차이), 0, 음수 값 (대비처럼 부호가 있는 값도 그대로 보관되어야 함)
+        long[] price = {7_120_000, 7_000_000, 0, -80_000, -80_000, 7_120_000, 1, Long.MIN_VALUE};
+        for (int i = 0; i < time.length; i++) {
+            bars.add(time[i], price[i], price[i] + 100, price[i] - 100, -price[i], Math.abs(price[i] / 2));
+        }
+        assertRoundTrip(bars);
+    }
+
+    @Test
+    void repeatedValues() {
+        BarColumns bars = new BarColumns();
+        for (int i = 0; i < 300; i++) {
+            bars.add(START + i * 60L, 7_120_000, 7_120_000, 7_120_000, 7_120_000, 0);
+        }
+        assertRoundTrip(bars);
+
+        // 변하지 않은 컬럼과 일정 간격 시각은 값당 1비트이므로 봉당 1바이트 미만 (원본은 봉당 48바이트)
+        byte[] block = BarCodec.encode(bars, 0, BarStore.BLOCK_BARS);
+        assertTrue(block.length < BarStore.BLOCK_BARS, "encoded " + block.length + " bytes");
+    }
+
+    @Test
+    void largeVolumes() {
+        BarColumns bars = new BarColumns();
+        long[] volume = {Long.MAX_VALUE, 0, Long.MAX_VALUE - 1, 1L << 62, 1, -1, 9_999_999_999_999L, Long.MAX_VALUE};
+        for (int i = 0; i < volume.length; i++) {
+            bars.add(START + i * DAY, 100, 200, 50, 150, volume[i]);
+        }
+        assertRoundTrip(bars);
+
+        Random random = new Random(3);
+        BarColumns noisy = new BarColumns();
+        for (int i = 0; i < 600; i++) {
+            noisy.add(START + i * DAY, random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong());
+        }
+        assertRoundTrip(noisy);
+    }
+
+    @Test
+    void decodesAtOffsetAndAppends() {
+        BarColumns bars = dailyBars(10, new Random(4));
+        byte[] block = BarCodec.encode(bars, 3, 10);
+        ByteBuffer buffer = ByteBuffer.allocate(block.length + 21);
+        buffer.position(13);
+        buffer.put(block);
+
+        BarColumns decoded = new BarColumns();
+        decoded.add(1, 2, 3, 4, 5, 6);
+        BarCodec.decode(buffer, 13, 7, decoded);
+        assertEquals(8, decoded.size());
+        assertEquals(1, decoded.time(0));
+        for (int i = 0; i < 7; i++) assertEquals(bars.time(i + 3), decoded.time(i + 1));
+        assertEquals(bars.volume(9), decoded.volume(7));
+    }
+
+    // 평일 일봉처럼 대부분 하루 간격이고 주말마다 간격이 벌어지는 시각, 소폭 움직이는 가격
+    private static BarColumns dailyBars(int count, Random random) {
+        BarColumns bars = new BarColumns();
+        long time = START;
+        long close = 7_120_000;
+        for (int i = 0; i < count; i++) {
+            long open = close;
+            close = Math.max(100, close + (random.nextInt(201) - 100) * 100);
+            long high = Math.max(open, close) + random.nextInt(50) * 100;
+            long low = Math.min(open, close) - random.nextInt(50) * 100;
+            bars.add(time, open, high, low, close, random.nextInt(50_000_000));
+            time += (i % 5 == 4) ? 3 * DAY : DAY;
+        }
+        return bars;
+    }
+
+    private static void assertRoundTrip(BarColumns bars) {
+        BarColumns decoded = new BarColumns();
+        for (int from = 0; from < bars.size(); from += BarStore.BLOCK_BARS) {
+            int to = Math.min(from + BarStore.BLOCK_BARS, bars.size());
+            byte[] block = BarCodec.encode(bars, from, to);
+            BarCodec.decode(ByteBuffer.wrap(block), 0, to - from, decoded);
+        }
+        assertEquals(bars.size(), decoded.size());
+        assertArrayEquals(column(bars, 0), column(decoded, 0), "time");
+        assertArrayEquals(column(bars, 1), column(decoded, 1), "open");
+        assertArrayEquals(column(bars, 2), column(decoded, 2), "high");
+        assertArrayEquals(column(bars, 3), column(decoded, 3), "low");
+        assertArrayEquals(column(bars, 4), column(decoded, 4), "close");
+        assertArrayEquals(column(bars, 5), column(decoded, 5), "volume");
+    }
+
+    private static long[] column(BarColumns bars, int column) {
+        long[] values = new long[bars.size()];
+        for (int i = 0; i < values.length; i++) {
+            switch (column) {
+                case 0: values[i] = bars.time(i); break;
+                case 1: values[i] = bars.open(i); break;
+                case 2: values[i] = bars.high(i); break;
+                case 3: values[i] = bars.low(i); break;
+                case 4: values[i] = bars.close(i); break;
+                default: values[i] = bars.volume(i);
+            }
+        }
+        return values;
+    }
+}
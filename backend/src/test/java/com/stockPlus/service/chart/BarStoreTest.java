@@ -0,0 +1,154 @@
+package com.stockPlus.service.chart;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BarStore 파일 저장소 테스트입니다. (임시 디렉터리 사용)
+ * 덮어쓰기/추가, 압축, 블록 경계를 걸친 구간 조회, 두 파일의 세대 불일치 복구를 확인합니다.
+ */
+class BarStoreTest {
+
+    private static final String MARKET = "J";
+    private static final String CODE = "005930";
+    private static final long START = 1_767_225_600L; // 2026-01-01 00:00 UTC
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void upsertReplacesOverlappingTailAndAppends() {
+        BarStore store = new BarStore(dir.toString());
+        store.write(BarStore.MINUTE, MARKET, CODE, minuteBars(0, 300, 0));
+
+        // 마지막 10개 봉은 종가가 바뀌어 덮어쓰고, 5개는 새로 추가
+        store.write(BarStore.MINUTE, MARKET, CODE, minuteBars(290, 305, 7));
+        assertBars(minuteBars(0, 290, 0), minuteBars(290, 305, 7), read(store, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(minuteTime(304), store.lastTime(BarStore.MINUTE, MARKET, CODE));
+
+        // 이미 가득 찬 첫 블록 안의 봉을 고쳐도 그 블록부터 다시 기록
+        store.write(BarStore.MINUTE, MARKET, CODE, minuteBars(100, 101, 3));
+        BarColumns all = read(store, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(305, all.size());
+        assertEquals(closeOf(100, 3), all.close(100));
+        assertEquals(closeOf(99, 0), all.close(99));
+        assertEquals(closeOf(300, 7), all.close(300));
+
+        // 다시 열어도 같은 내용
+        BarColumns reopened = read(new BarStore(dir.toString()), Long.MIN_VALUE, Long.MAX_VALUE);
+        assertBars(all, new BarColumns(), reopened);
+    }
+
+    @Test
+    void compactsWhenAbandonedBlocksOutgrowLiveData() throws IOException {
+        BarStore store = new BarStore(dir.toString());
+        store.write(BarStore.MINUTE, MARKET, CODE, minuteBars(0, 200, 0));
+        Path data = dir.resolve(BarStore.MINUTE).resolve(MARKET).resolve(CODE + ".bars");
+
+        // 덜 찬 마지막 블록을 봉 하나씩 덮어쓰면 매번 그 블록이 파일 끝에 새로 붙음 -> 어느 시점에 압축되어 파일이 줄어듦
+        long previous = Files.size(data);
+        boolean shrank = false;
+        for (int i = 200; i < 250; i++) {
+            store.write(BarStore.MINUTE, MARKET, CODE, minuteBars(i, i + 1, 0));
+            long size = Files.size(data);
+            shrank |= size < previous;
+            previous = size;
+        }
+        assertTrue(shrank, "data file never compacted");
+
+        Object fileBytes = store.getStatus().get("fileBytes");
+        Object liveBytes = store.getStatus().get("liveBytes");
+        assertTrue((long) fileBytes <= 2 * (long) liveBytes + 4096, "fileBytes=" + fileBytes + " liveBytes=" + liveBytes);
+        assertBars(minuteBars(0, 250, 0), new BarColumns(), read(store, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertBars(minuteBars(0, 250, 0), new BarColumns(), read(new BarStore(dir.toString()), Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void readsRangesAcrossBlockEdges() {
+        BarStore store = new BarStore(dir.toString());
+        int total = 2 * BarStore.BLOCK_BARS + 88;
+        store.replace(BarStore.MINUTE, MARKET, CODE, minuteBars(0, total, 0));
+
+        // 블록 중간에서 시작해 다음 블록 중간에서 끝나는 구간
+        assertBars(minuteBars(250, 261, 0), new BarColumns(), read(store, minuteTime(250), minuteTime(260)));
+        // 블록 경계의 두 봉 (첫 블록 마지막 봉 + 둘째 블록 첫 봉)
+        int edge = BarStore.BLOCK_BARS;
+        assertBars(minuteBars(edge - 1, edge + 1, 0), new BarColumns(), read(store, minuteTime(edge - 1), minuteTime(edge)));
+        // 세 블록 전체를 덮는 구간, 봉 사이 시각으로 지정한 구간
+        assertBars(minuteBars(0, total, 0), new BarColumns(), read(store, minuteTime(-5), minuteTime(total + 5)));
+        assertBars(minuteBars(11, 2 * edge + 1, 0), new BarColumns(), read(store, minuteTime(10) + 1, minuteTime(2 * edge) + 59));
+        // 봉이 없는 구간
+        assertEquals(0, read(store, minuteTime(total), Long.MAX_VALUE).size());
+        assertEquals(0, read(store, minuteTime(20), minuteTime(10)).size());
+    }
+
+    @Test
+    void discardsSeriesWhenIndexAndDataGenerationsDiffer() throws IOException {
+        BarStore store = new BarStore(dir.toString());
+        store.replace(BarStore.DAY, MARKET, CODE, minuteBars(0, 10, 0));
+        Path series = dir.resolve(BarStore.DAY).resolve(MARKET);
+        Path index = series.resolve(CODE + ".idx");
+        Path staleIndex = series.resolve("stale.idx");
+        Files.copy(index, staleIndex);
+
+        // 재기록(세대 증가) 후 이전 세대의 인덱스로 되돌림 = 데이터 파일 교체 직후 중단된 상태
+        store.replace(BarStore.DAY, MARKET, CODE, minuteBars(0, 20, 1));
+        Files.move(staleIndex, index, StandardCopyOption.REPLACE_EXISTING);
+
+        BarStore reopened = new BarStore(dir.toString());
+        assertEquals(0, read(reopened, BarStore.DAY, Long.MIN_VALUE, Long.MAX_VALUE).size());
+        assertEquals(Long.MIN_VALUE, reopened.lastTime(BarStore.DAY, MARKET, CODE));
+
+        // 비운 시리즈에 다시 기록하면 두 파일 모두 새 세대가 되어 다음 실행에서도 읽힘
+        reopened.write(BarStore.DAY, MARKET, CODE, minuteBars(0, 5, 2));
+        assertBars(minuteBars(0, 5, 2), new BarColumns(), read(new BarStore(dir.toString()), BarStore.DAY, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    private static BarColumns read(BarStore store, long from, long to) {
+        return read(store, BarStore.MINUTE, from, to);
+    }
+
+    private static BarColumns read(BarStore store, String timeframe, long from, long to) {
+        return store.read(timeframe, MARKET, CODE, from, to);
+    }
+
+    private static long minuteTime(int i) {
+        return START + i * 60L;
+    }
+
+    private static long closeOf(int i, int revision) {
+        return 7_000_000 + (i % 37) * 100 + revision * 1_000;
+    }
+
+    // [from, to) 번째 1분봉 (revision이 다르면 같은 시각이어도 값이 다름)
+    private static BarColumns minuteBars(int from, int to, int revision) {
+        BarColumns bars = new BarColumns();
+        for (int i = from; i < to; i++) {
+            long close = closeOf(i, revision);
+            bars.add(minuteTime(i), close - 100, close + 200, close - 300, close, 1_000L * i + revision);
+        }
+        return bars;
+    }
+
+    private static void assertBars(BarColumns head, BarColumns tail, BarColumns actual) {
+        assertEquals(head.size() + tail.size(), actual.size(), "bar count");
+        for (int i = 0; i < actual.size(); i++) {
+            BarColumns expected = i < head.size() ? head : tail;
+            int j = i < head.size() ? i : i - head.size();
+            assertEquals(expected.time(j), actual.time(i), "time[" + i + "]");
+            assertEquals(expected.open(j), actual.open(i), "open[" + i + "]");
+            assertEquals(expected.high(j), actual.high(i), "high[" + i + "]");
+            assertEquals(expected.low(j), actual.low(i), "low[" + i + "]");
+            assertEquals(expected.close(j), actual.close(i), "close[" + i + "]");
+            assertEquals(expected.volume(j), actual.volume(i), "volume[" + i + "]");
+        }
+    }
+}
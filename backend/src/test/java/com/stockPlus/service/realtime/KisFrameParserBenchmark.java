@@ -0,0 +1,123 @@
+package com.stockPlus.service.realtime;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 기존 split 기반 실시간 프레임 파싱과 KisFrameParser(커서 기반)의 처리량/할당량 비교 벤치마크입니다.
+ * 세 벤치마크 모두 레코드마다 같은 RealtimeTick을 만들므로 처리량/할당량 차이는 파싱 방식 차이만 반영합니다.
+ *
+ * 실행: mvn test-compile 후 IDE에서 main 실행 (GC 할당량은 -prof gc 옵션으로 확인)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KisFrameParserBenchmark {
+
+    @Param({"1", "4"})
+    public int records;
+
+    private String frame;
+    private DataBuffer buffer;
+    private final KisFrameParser parser = new KisFrameParser();
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder("0|H0STCNT0|").append(String.format("%03d", records)).append('|');
+        for (int r = 0; r < records; r++) {
+            if (r > 0) sb.append('^');
+            sb.append(cntRecord(r));
+        }
+        frame = sb.toString();
+        buffer = DefaultDataBufferFactory.sharedInstance.wrap(frame.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // 실제 H0STCNT0 레코드와 동일한 46개 필드 구성
+    private static String cntRecord(int seq) {
+        String[] f = new String[46];
+        for (int i = 0; i < f.length; i++) f[i] = String.valueOf(1000 + i);
+        f[0] = "005930";
+        f[1] = "0930" + String.format("%02d", seq);
+        f[2] = "71200";
+        f[3] = "2";
+        f[4] = "800";
+        f[5] = "1.14";
+        f[13] = "12345678";
+        return String.join("^", f);
+    }
+
+    // 기존 방식(문자열 split)으로 나눈 필드를 커서 파서와 같은 RealtimeTick으로 변환 (같은 결과물 기준 비교)
+    @Benchmark
+    public void legacySplit(Blackhole bh) {
+        String[] segments = frame.split("\\|");
+        String trId = segments[1];
+        int recordCount = Integer.parseInt(segments[2]);
+        String[] allParts = segments[3].split("\\^");
+        int fieldsPerRecord = allParts.length / recordCount;
+        bh.consume(trId.endsWith("ANC0"));
+        for (int i = 0; i < recordCount; i++) {
+            int offset = i * fieldsPerRecord;
+            if (offset + 13 >= allParts.length) break;
+            bh.consume(new RealtimeTick(
+                    SymbolTable.intern(allParts[offset]),
+                    Exchange.J,
+                    Integer.parseInt(allParts[offset + 1]),
+                    RealtimeTick.parseFixed(allParts[offset + 2]),
+                    RealtimeTick.parseFixed(allParts[offset + 4]),
+                    RealtimeTick.parseFixed(allParts[offset + 5]),
+                    Long.parseLong(allParts[offset + 13]),
+                    PriceSign.of(allParts[offset + 3]),
+                    false,
+                    0L));
+        }
+    }
+
+    @Benchmark
+    public void cursorFromString(Blackhole bh) {
+        parser.reset(frame);
+        consumeRecords(bh);
+    }
+
+    @Benchmark
+    public void cursorFromDataBuffer(Blackhole bh) {
+        parser.reset(buffer);
+        consumeRecords(bh);
+    }
+
+    private void consumeRecords(Blackhole bh) {
+        bh.consume(parser.trIdEndsWith("ANC0"));
+        while (parser.nextRecord(13)) {
+            bh.consume(new RealtimeTick(
+                    parser.symbolId(0),
+                    Exchange.J,
+                    parser.intField(1),
+                    parser.fixedField(2, RealtimeTick.PRICE_DECIMALS),
+                    parser.fixedField(4, RealtimeTick.PRICE_DECIMALS),
+                    parser.fixedField(5, RealtimeTick.PRICE_DECIMALS),
+                    parser.longField(13),
+                    PriceSign.of(parser.firstChar(3)),
+                    false,
+                    0L));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(KisFrameParserBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
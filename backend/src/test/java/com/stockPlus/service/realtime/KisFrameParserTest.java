@@ -0,0 +1,180 @@
+package com.stockPlus.service.realtime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * KisFrameParser 파싱 결과 테스트입니다. (처리량 비교는 KisFrameParserBenchmark)
+ */
+class KisFrameParserTest {
+
+    // H0STCNT0 필드 위치 (KisRealtimeService와 동일)
+    private static final int CODE = 0, TIME = 1, PRICE = 2, SIGN = 3, CHANGE = 4, RATE = 5, VOLUME = 13;
+    private static final int CNT_FIELDS = 46;
+
+    @Test
+    void splitsMultiRecordFrameIntoRecords() {
+        String frame = "0|H0STCNT0|004|" + String.join("^",
+                cntRecord("005930", "093001", "71200", "2", "800", "1.14", "12345678"),
+                cntRecord("000660", "093001", "182500", "5", "-1500", "-0.81", "2345678"),
+                cntRecord("005930", "093002", "71300", "2", "900", "1.28", "12345900"),
+                cntRecord("035420", "093002", "215000", "3", "0", "0.00", "98765"));
+        KisFrameParser parser = new KisFrameParser();
+
+        assertTrue(parser.reset(frame));
+        assertFalse(parser.isEncrypted());
+        assertEquals(4, parser.recordCount());
+        assertTrue(parser.trIdEquals("H0STCNT0"));
+        assertTrue(parser.trIdEndsWith("CNT0"));
+        assertTrue(parser.trIdStartsWith("H0ST"));
+        assertFalse(parser.trIdStartsWith("H0NX"));
+
+        String[][] expected = {
+                {"005930", "93001", "7120000", "2", "80000", "114", "12345678"},
+                {"000660", "93001", "18250000", "5", "-150000", "-81", "2345678"},
+                {"005930", "93002", "7130000", "2", "90000", "128", "12345900"},
+                {"035420", "93002", "21500000", "3", "0", "0", "98765"},
+        };
+        for (String[] record : expected) {
+            assertTrue(parser.nextRecord(VOLUME));
+            assertEquals(VOLUME + 1, parser.fieldCount());
+            assertEquals(record[0], parser.text(CODE));
+            assertEquals(Integer.parseInt(record[1]), parser.intField(TIME));
+            assertEquals(Long.parseLong(record[2]), parser.fixedField(PRICE, RealtimeTick.PRICE_DECIMALS));
+            assertEquals(record[3].charAt(0), parser.firstChar(SIGN));
+            assertEquals(Long.parseLong(record[4]), parser.fixedField(CHANGE, RealtimeTick.PRICE_DECIMALS));
+            assertEquals(Long.parseLong(record[5]), parser.fixedField(RATE, RealtimeTick.PRICE_DECIMALS));
+            assertEquals(Long.parseLong(record[6]), parser.longField(VOLUME));
+            assertFalse(parser.hasField(VOLUME + 1)); // maxIndex 이후 필드는 기록하지 않음
+        }
+        assertFalse(parser.nextRecord(VOLUME));
+    }
+
+    @Test
+    void stopsAtShortAndTruncatedRecords() {
+        KisFrameParser parser = new KisFrameParser();
+
+        // 필드가 참조 위치보다 적은 레코드: 있는 필드만 기록
+        assertTrue(parser.reset("0|H0STCNT0|002|005930^093001^71200^2^800^1.14^000660^093001^182500^5^-1500^-0.81"));
+        assertTrue(parser.nextRecord(VOLUME));
+        assertEquals(6, parser.fieldCount());
+        assertTrue(parser.hasField(RATE));
+        assertFalse(parser.hasField(VOLUME));
+        assertEquals("005930", parser.text(CODE));
+        assertTrue(parser.nextRecord(VOLUME));
+        assertEquals("000660", parser.text(CODE));
+        assertEquals(-81, parser.fixedField(RATE, RealtimeTick.PRICE_DECIMALS));
+        assertFalse(parser.nextRecord(VOLUME));
+
+        // 중간에서 잘린 단건 프레임: 잘린 위치까지만 읽고 빈 마지막 필드도 필드로 셈
+        assertTrue(parser.reset("0|H0STCNT0|001|005930^093001^71200^"));
+        assertTrue(parser.nextRecord(VOLUME));
+        assertEquals(4, parser.fieldCount());
+        assertTrue(parser.hasField(SIGN));
+        assertTrue(parser.isEmpty(SIGN));
+        assertEquals(0, parser.firstChar(SIGN));
+        assertFalse(parser.hasField(CHANGE));
+        assertFalse(parser.nextRecord(VOLUME));
+
+        // 건수가 0으로 와도 데이터가 있으면 1건
+        assertTrue(parser.reset("0|H0STCNT0|000|005930^093001^71200"));
+        assertEquals(1, parser.recordCount());
+        assertTrue(parser.nextRecord(VOLUME));
+        assertEquals(3, parser.fieldCount());
+        assertFalse(parser.nextRecord(VOLUME));
+
+        // 데이터 없이 헤더만 온 프레임
+        assertTrue(parser.reset("0|H0STCNT0|000|"));
+        assertFalse(parser.nextRecord(VOLUME));
+    }
+
+    @Test
+    void rejectsNonDataFrames() {
+        KisFrameParser parser = new KisFrameParser();
+        assertFalse(parser.reset("{\"header\":{\"tr_id\":\"PINGPONG\",\"datetime\":\"20260105093000\"}}"));
+        assertFalse(parser.reset("{\"header\":{\"tr_id\":\"H0STCNT0\",\"tr_key\":\"005930\",\"encrypt\":\"N\"},"
+                + "\"body\":{\"rt_cd\":\"0\",\"msg_cd\":\"OPSP0000\",\"msg1\":\"SUBSCRIBE SUCCESS\"}}"));
+        assertFalse(parser.reset(buffer("{\"header\":{\"tr_id\":\"PINGPONG\"}}")));
+        assertFalse(parser.reset(""));
+        assertFalse(parser.reset("0"));
+        assertFalse(parser.reset("2|H0STCNT0|001|005930"));
+        assertFalse(parser.reset("0|H0STCNT0"));
+        assertFalse(parser.reset("0|H0STCNT0|001"));
+    }
+
+    @Test
+    void stringAndDataBufferInputsParseIdentically() {
+        // 주식 체결(음수 대비/등락률)과 업종 지수(소수점 가격) 프레임
+        String stock = "0|H0NXCNT0|002|" + String.join("^",
+                cntRecord("005930", "153000", "71200", "5", "-800", "-1.11", "12345678"),
+                cntRecord("000660", "153000", "182500", "2", "+1500", "+0.83", "2345678"));
+        String index = "0|H0UPANC0|001|0001^093000^2650.12^5^-12.34^-0.46^0^0^345678901";
+
+        for (String frame : new String[]{stock, index}) {
+            KisFrameParser fromString = new KisFrameParser();
+            KisFrameParser fromBuffer = new KisFrameParser();
+            assertTrue(fromString.reset(frame));
+            assertTrue(fromBuffer.reset(buffer(frame)));
+            assertTrue(fromBuffer.trIdEquals(fromString.trId()));
+            assertEquals(fromString.recordCount(), fromBuffer.recordCount());
+            while (fromString.nextRecord(VOLUME)) {
+                assertTrue(fromBuffer.nextRecord(VOLUME));
+                assertEquals(fromString.fieldCount(), fromBuffer.fieldCount());
+                assertEquals(fromString.symbolId(CODE), fromBuffer.symbolId(CODE));
+                assertEquals(fromString.intField(TIME), fromBuffer.intField(TIME));
+                for (int field = PRICE; field <= RATE; field++) {
+                    assertEquals(fromString.fixedField(field, RealtimeTick.PRICE_DECIMALS), fromBuffer.fixedField(field, RealtimeTick.PRICE_DECIMALS));
+                }
+                for (int field = 6; field < fromString.fieldCount(); field++) {
+                    assertEquals(fromString.longField(field), fromBuffer.longField(field));
+                }
+            }
+            assertFalse(fromBuffer.nextRecord(VOLUME));
+        }
+
+        KisFrameParser parser = new KisFrameParser();
+        assertTrue(parser.reset(buffer(stock)));
+        assertTrue(parser.trIdStartsWith("H0NX"));
+        assertTrue(parser.nextRecord(VOLUME));
+        assertEquals(SymbolTable.intern("005930"), parser.symbolId(CODE));
+        assertEquals(-80000, parser.fixedField(CHANGE, RealtimeTick.PRICE_DECIMALS));
+        assertEquals(-111, parser.fixedField(RATE, RealtimeTick.PRICE_DECIMALS));
+        assertTrue(parser.nextRecord(VOLUME));
+        assertEquals(150000, parser.fixedField(CHANGE, RealtimeTick.PRICE_DECIMALS));
+        assertEquals(83, parser.fixedField(RATE, RealtimeTick.PRICE_DECIMALS));
+
+        assertTrue(parser.reset(buffer(index)));
+        assertTrue(parser.trIdEquals("H0UPANC0"));
+        assertTrue(parser.nextRecord(8));
+        assertEquals(SymbolTable.intern("0001"), parser.symbolId(CODE));
+        assertEquals(265012, parser.fixedField(PRICE, RealtimeTick.PRICE_DECIMALS));
+        assertEquals(-1234, parser.fixedField(CHANGE, RealtimeTick.PRICE_DECIMALS));
+        assertEquals(-46, parser.fixedField(RATE, RealtimeTick.PRICE_DECIMALS));
+        assertEquals(345678901L, parser.longField(8));
+    }
+
+    // 실제 H0STCNT0 레코드와 같은 46개 필드 (참조하지 않는 필드는 임의 숫자)
+    private static String cntRecord(String code, String time, String price, String sign, String change, String rate, String volume) {
+        String[] f = new String[CNT_FIELDS];
+        for (int i = 0; i < f.length; i++) f[i] = String.valueOf(1000 + i);
+        f[CODE] = code;
+        f[TIME] = time;
+        f[PRICE] = price;
+        f[SIGN] = sign;
+        f[CHANGE] = change;
+        f[RATE] = rate;
+        f[VOLUME] = volume;
+        return String.join("^", f);
+    }
+
+    private static DataBuffer buffer(String frame) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(frame.getBytes(StandardCharsets.US_ASCII));
+    }
+}
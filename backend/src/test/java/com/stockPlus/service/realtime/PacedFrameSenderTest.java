@@ -0,0 +1,61 @@
+package com.stockPlus.service.realtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * PacedFrameSender 대기열 순서 테스트입니다.
+ * 같은 구독 키의 등록/해제는 우선순위가 달라도 나중 요청이 앞지르지 않아야 합니다.
+ */
+class PacedFrameSenderTest {
+
+    private static final SubscriptionRegistry.Key SAMSUNG = new SubscriptionRegistry.Key("H0STCNT0", "005930");
+    private static final SubscriptionRegistry.Key HYNIX = new SubscriptionRegistry.Key("H0STCNT0", "000660");
+
+    @Test
+    void urgentUnsubscribeReplacesQueuedNormalSubscribe() {
+        // 접속 직후 대기 시간 동안 쌓인 프레임이 대기 시간이 끝난 뒤 한꺼번에 나감
+        PacedFrameSender sender = new PacedFrameSender("test", 100, 10, 200);
+        sender.enqueue(SAMSUNG, "1:005930", false);
+        sender.enqueue(HYNIX, "1:000660", false);
+        sender.enqueue(SAMSUNG, "2:005930", true);
+        assertEquals(2, sender.pending());
+
+        List<String> sent = sender.frames().take(2).collectList().block(Duration.ofSeconds(5));
+        // 대기 중이던 등록은 보내지 않고 해제만 (우선 대기열로 옮겨져 먼저 전송)
+        assertEquals(List.of("2:005930", "1:000660"), sent);
+        assertEquals(0, sender.pending());
+        sender.dispose();
+    }
+
+    @Test
+    void urgentSubscribeReplacesQueuedNormalUnsubscribe() {
+        PacedFrameSender sender = new PacedFrameSender("test", 100, 10, 200);
+        sender.enqueue(SAMSUNG, "2:005930", false);
+        sender.enqueue(SAMSUNG, "1:005930", true);
+        sender.enqueue(SAMSUNG, "2:005930", false); // 우선 대기열에 있는 프레임은 내용만 바뀌고 그대로 우선
+        sender.enqueue(SAMSUNG, "1:005930", false);
+        sender.enqueue(HYNIX, "1:000660", true);
+        assertEquals(2, sender.pending());
+
+        List<String> sent = sender.frames().take(2).collectList().block(Duration.ofSeconds(5));
+        assertEquals(List.of("1:005930", "1:000660"), sent);
+        sender.dispose();
+    }
+
+    @Test
+    void sentFrameDoesNotAbsorbLaterFrameForSameKey() {
+        // 대기 시간 없이 바로 나가는 경우: 이미 보낸 프레임은 대체 대상이 아니므로 두 프레임 모두 순서대로 전송
+        PacedFrameSender sender = new PacedFrameSender("test", 100, 10, 0);
+        sender.enqueue(SAMSUNG, "1:005930", false);
+        sender.enqueue(SAMSUNG, "2:005930", true);
+
+        List<String> sent = sender.frames().take(2).collectList().block(Duration.ofSeconds(5));
+        assertEquals(List.of("1:005930", "2:005930"), sent);
+        sender.dispose();
+    }
+}
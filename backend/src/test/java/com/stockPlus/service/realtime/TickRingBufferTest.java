@@ -0,0 +1,172 @@
+package com.stockPlus.service.realtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TickRingBuffer 테스트입니다.
+ * 여러 생산자 스레드의 공개 순서, 뒤처진 소비자의 유실 집계, 종료 시 남은 틱 처리 순서를 확인합니다.
+ */
+class TickRingBufferTest {
+
+    private static final long WAIT_MILLIS = 10_000;
+
+    @Test
+    void everyConsumerSeesEverySequenceOnceInOrder() throws Exception {
+        int producers = 4, perProducer = 20_000, total = producers * perProducer;
+        TickRingBuffer ring = new TickRingBuffer(total);
+        AtomicReferenceArray<RealtimeTick> bySequence = new AtomicReferenceArray<>(total);
+        List<List<RealtimeTick>> received = new ArrayList<>();
+        List<TickRingBuffer.Processor> consumers = new ArrayList<>();
+        for (int c = 0; c < 3; c++) {
+            List<RealtimeTick> seen = Collections.synchronizedList(new ArrayList<>(total));
+            received.add(seen);
+            consumers.add(ring.addConsumer("order-" + c, tick -> true, seen::add));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < perProducer; i++) {
+                    RealtimeTick tick = tick(producer, i);
+                    bySequence.set((int) ring.publish(tick), tick);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) thread.join(WAIT_MILLIS);
+        assertEquals(total, ring.published());
+
+        for (int c = 0; c < consumers.size(); c++) {
+            TickRingBuffer.Processor consumer = consumers.get(c);
+            consumer.close(WAIT_MILLIS);
+            List<RealtimeTick> seen = received.get(c);
+            assertEquals(0, consumer.dropped(), "consumer " + c + " dropped");
+            assertEquals(total, seen.size(), "consumer " + c + " count");
+            // 시퀀스 순서 그대로 한 번씩 (같은 생산자의 틱은 공개 순서대로)
+            for (int seq = 0; seq < total; seq++) {
+                assertSame(bySequence.get(seq), seen.get(seq), "consumer " + c + " sequence " + seq);
+            }
+        }
+    }
+
+    @Test
+    void lappedConsumerCountsSkippedTicksWithoutAffectingOthers() throws Exception {
+        TickRingBuffer ring = new TickRingBuffer(16);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<RealtimeTick> slow = Collections.synchronizedList(new ArrayList<>());
+        List<RealtimeTick> fast = Collections.synchronizedList(new ArrayList<>());
+        TickRingBuffer.Processor slowConsumer = ring.addConsumer("slow", tick -> true, tick -> {
+            if (slow.isEmpty()) {
+                blocked.countDown();
+                release.await();
+            }
+            slow.add(tick);
+        });
+        TickRingBuffer.Processor fastConsumer = ring.addConsumer("fast", tick -> true, fast::add);
+
+        ring.publish(tick(0, 0));
+        assertTrue(blocked.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        // 느린 소비자가 첫 틱에서 멈춘 동안 버퍼를 여러 바퀴 채움 (빠른 소비자는 따라잡을 때까지 기다리며 공개)
+        int total = 100;
+        for (int i = 1; i < total; i++) {
+            ring.publish(tick(0, i));
+            long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+            while (fastConsumer.lag() > 0 && System.currentTimeMillis() < deadline) Thread.onSpinWait();
+        }
+        release.countDown();
+        slowConsumer.close(WAIT_MILLIS);
+        fastConsumer.close(WAIT_MILLIS);
+
+        // 처리한 틱 + 건너뛴 틱 = 공개된 틱, 처리한 틱은 순서대로이고 끝까지 따라잡음
+        assertTrue(slowConsumer.dropped() > 0);
+        assertEquals(total, slow.size() + slowConsumer.dropped());
+        assertEquals(0, slow.get(0).getPrice());
+        for (int i = 1; i < slow.size(); i++) {
+            assertEquals(slow.get(i - 1).getPrice() + 1 + (i == 1 ? slowConsumer.dropped() : 0), slow.get(i).getPrice());
+        }
+        assertEquals(total - 1, slow.get(slow.size() - 1).getPrice());
+
+        assertEquals(0, fastConsumer.dropped());
+        assertEquals(total, fast.size());
+        for (int i = 0; i < total; i++) assertEquals(i, fast.get(i).getPrice());
+    }
+
+    @Test
+    void closeDrainsPublishedTicksBeforeShutdown() throws Exception {
+        TickRingBuffer ring = new TickRingBuffer(64);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        TickRingBuffer.Processor consumer = ring.addConsumer("drain", tick -> tick.getPrice() % 2 == 0, new TickRingBuffer.Handler() {
+            @Override
+            public void onTick(RealtimeTick tick) throws Exception {
+                if (events.isEmpty()) {
+                    blocked.countDown();
+                    release.await();
+                }
+                events.add("tick " + tick.getPrice());
+            }
+
+            @Override
+            public void onShutdown() {
+                events.add("shutdown");
+            }
+        });
+
+        int total = 50;
+        for (int i = 0; i < total; i++) ring.publish(tick(0, i));
+        assertTrue(blocked.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        // 소비자가 처리 중인 동안 종료를 요청하고, 잠시 뒤 처리를 재개
+        Thread releaser = new Thread(() -> {
+            sleepQuietly(50);
+            release.countDown();
+        });
+        releaser.start();
+        consumer.close(WAIT_MILLIS);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < total; i += 2) expected.add("tick " + i);
+        expected.add("shutdown");
+        assertEquals(expected, new ArrayList<>(events));
+        assertEquals(0, consumer.dropped());
+        assertEquals(0, consumer.lag());
+    }
+
+    // 생산자 번호는 심볼 ID, 생산자 안의 순번은 가격 필드에 담음
+    private static RealtimeTick tick(int producer, int index) {
+        return new RealtimeTick(producer, Exchange.J, 90000, index, 0, 0, index, PriceSign.FLAT, false, 0);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -54,9 +54,13 @@ export async function searchStocks(keyword) {
     }));
 }
 
-// 차트 데이터 조회 API
-export async function fetchStockChart(stockCode, exchangeCode = 'J', period = '1D') {
-    const data = await safeFetch(`api/dashboard/stocks/${stockCode}/chart?exchangeCode=${exchangeCode}&period=${period}`);
+// 차트 데이터 조회 API (width: 화면에 그릴 최대 봉 수, from/to: 구간 epoch seconds - 모두 선택)
+export async function fetchStockChart(stockCode, exchangeCode = 'J', period = '1D', { width, from, to } = {}) {
+    let query = `exchangeCode=${exchangeCode}&period=${period}`;
+    if (width) query += `&width=${width}`;
+    if (from) query += `&from=${from}`;
+    if (to) query += `&to=${to}`;
+    const data = await safeFetch(`api/dashboard/stocks/${stockCode}/chart?${query}`);
     return Array.isArray(data) ? data : [];
 }
 
@@ -66,6 +70,13 @@ export async function fetchStockPrice(stockCode, exchangeCode = 'J') {
     return data || {};
 }
 
+// 다중 종목 현재가 조회 API (종목별 { stockCode, status, source, price } 배열)
+export async function fetchStockPrices(stockCodes, exchangeCode = 'J') {
+    if (!stockCodes || stockCodes.length === 0) return [];
+    const data = await safeFetch(`api/dashboard/stocks/prices?codes=${stockCodes.join(',')}&exchangeCode=${exchangeCode}`);
+    return Array.isArray(data) ? data : [];
+}
+
 // 투자자별 매매동향 조회 API
 export async function fetchStockInvestors(stockCode, exchangeCode = 'J') {
     const data = await safeFetch(`api/dashboard/stocks/${stockCode}/investors?exchangeCode=${exchangeCode}`);
@@ -1,9 +1,9 @@
-import React, { useState, useEffect, useRef, useCallback } from 'react';
+import React, { useState, useEffect, useRef, useCallback, useMemo } from 'react';
 import StockListItem from './StockListItem';
 import ChartWidget from './ChartWidget';
 import NewsFeed from './NewsFeed';
 import MobileNav from './MobileNav';
-import { fetchWatchlist, addToWatchlist, deleteFromWatchlist, deleteAllFromWatchlist, searchStocks, fetchStockChart, fetchStockPrice, fetchRecentNews, fetchMarketInsight, fetchSpecialReport, toggleFavorite } from '../api/stockApi';
+import { fetchWatchlist, addToWatchlist, deleteFromWatchlist, deleteAllFromWatchlist, searchStocks, fetchStockChart, fetchStockPrices, fetchRecentNews, fetchMarketInsight, fetchSpecialReport, toggleFavorite } from '../api/stockApi';
 import { getSignSymbol, getColorClass, getMarketDisplay } from '../utils/stockUtils';
 import classNames from 'classnames';
 import { useNavigate, useParams } from 'react-router-dom';
@@ -61,7 +61,9 @@ function Dashboard() {
   const loadChartForPeriod = useCallback(async (stockCode, market, period) => {
     if (!stockCode) return;
     try {
-        const newChartData = await fetchStockChart(stockCode, market, period);
+        // 모바일 차트는 화면 폭 2px당 봉 하나 정도만 그릴 수 있으므로 서버에서 줄여서 받음
+        const width = window.innerWidth < 1024 ? Math.round(window.innerWidth / 2) : undefined;
+        const newChartData = await fetchStockChart(stockCode, market, period, { width });
         setSelectedStock(prev => {
             if (prev && prev.code === stockCode) {
                 return { ...prev, chartData: newChartData || [], lastLoadedPeriod: period, exchangeCode: market };
@@ -81,10 +83,11 @@ function Dashboard() {
     try {
         const dbWatchlist = await fetchWatchlist(groupId);
         if (dbWatchlist && dbWatchlist.length > 0) {
-          const stocksWithInitialData = await Promise.all(
-            dbWatchlist.map(async (w) => {
-              const priceData = await fetchStockPrice(w.stockCode, market);
-              console.log(`[Initial Load] ${w.stockName} (${w.stockCode}) - Market: ${market}`, priceData);
+          // 관심종목 현재가는 한 번의 요청으로 조회 (실패한 종목은 0으로 표시되고 실시간 수신 시 갱신)
+          const priceResults = await fetchStockPrices(dbWatchlist.map(w => w.stockCode), market);
+          const priceByCode = new Map(priceResults.filter(r => r.status === 'OK').map(r => [r.stockCode, r.price]));
+          const stocksWithInitialData = dbWatchlist.map((w) => {
+              const priceData = priceByCode.get(w.stockCode);
               const existing = displayStocks.find(s => s.code === w.stockCode);
               return {
                 id: w.stockCode, name: w.stockName, code: w.stockCode,
@@ -102,8 +105,7 @@ function Dashboard() {
                 chartData: existing?.chartData || [],
                 lastLoadedPeriod: existing?.lastLoadedPeriod
               };
-            })
-          );
+          });
           setDisplayStocks(stocksWithInitialData);
           if (stockCodeFromUrl) {
               const target = stocksWithInitialData.find(s => s.code === stockCodeFromUrl);
@@ -152,9 +154,22 @@ function Dashboard() {
     return () => clearInterval(interval);
   }, []);
 
+  // SSE 구독 종목: 화면에 표시 중인 관심 종목 + 선택 종목 (목록이 바뀔 때만 재연결)
+  const sseCodes = useMemo(() => {
+    const codes = new Set(displayStocks.map(s => s.code));
+    if (selectedStock?.code) codes.add(selectedStock.code);
+    return [...codes].sort().join(',');
+  }, [displayStocks, selectedStock?.code]);
+
   useEffect(() => {
-    const eventSource = new EventSource('/stockPlus/api/sse/stocks');
-    console.log("SSE Connecting to: /stockPlus/api/sse/stocks");
+    // 종목을 명시하고 토큰도 함께 전달 (codes가 비어 있으면 서버가 로그인 사용자의 관심 종목으로 대체)
+    // exchange: 표시 중인 시장의 체결만 수신 (체결당 한 건)
+    const params = new URLSearchParams({ exchange: globalMarketMode });
+    if (sseCodes) params.set('codes', sseCodes);
+    const token = localStorage.getItem('token');
+    if (token && token !== 'null') params.set('token', token);
+    const eventSource = new EventSource(`/stockPlus/api/sse/stocks?${params.toString()}`);
+    console.log("SSE Connecting to: /stockPlus/api/sse/stocks", sseCodes);
 
     eventSource.addEventListener('priceUpdate', (e) => {
         try {
@@ -183,7 +198,7 @@ function Dashboard() {
         });
     }, 200);
     return () => { eventSource.close(); clearInterval(flushInterval); };
-  }, []);
+  }, [sseCodes, globalMarketMode]);
 
   const handleSearch = (keyword) => {
     setSearchKeyword(keyword);
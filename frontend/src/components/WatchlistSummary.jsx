@@ -11,6 +11,7 @@ const WatchlistSummary = () => {
     const [isLoading, setIsLoading] = useState(true);
     const [globalMarketMode, setGlobalMarketMode] = useState('UN'); 
     const [activeSubTab, setActiveSubTab] = useState('list'); 
+    const [staleCodes, setStaleCodes] = useState([]); // KIS 세션 재연결 중이라 시세가 지연된 종목
     
     const [selectedStock, setSelectedStock] = useState(null); 
     const [tradeHistory, setTradeHistory] = useState([]); 
@@ -84,17 +85,32 @@ const WatchlistSummary = () => {
     useEffect(() => { loadFavoriteStocks(globalMarketMode); }, [globalMarketMode, loadFavoriteStocks]);
 
     useEffect(() => {
-        const eventSource = new EventSource('/stockPlus/api/sse/stocks');
-        eventSource.addEventListener('priceUpdate', (e) => {
-            try {
-                let updates = JSON.parse(e.data);
-                if (!Array.isArray(updates)) updates = [updates];
-                updates.forEach(u => {
-                    const key = `${u.stockCode}-${u.exchangeCode || 'J'}`;
-                    stockUpdatesBuffer.current.set(key, u);
-                });
-            } catch (err) {}
-        });
+        // 토큰을 전달하면 서버가 사용자의 관심 종목 틱만 골라서 전송
+        // encoding=delta: 종목별 keyframe(전체 필드) 이후에는 변경된 필드만 수신
+        // exchange: 표시 중인 시장의 체결만 수신 (체결당 한 건)
+        const token = localStorage.getItem('token');
+        const params = new URLSearchParams({ encoding: 'delta', exchange: globalMarketMode });
+        if (token && token !== 'null') params.set('token', token);
+        const eventSource = new EventSource(`/stockPlus/api/sse/stocks?${params.toString()}`);
+        const streams = new Map(); // 인덱스 -> 최신 시세 (delta 병합 기준)
+        const applyFrame = (f) => {
+            const base = streams.get(f.i);
+            if (!base && f.c === undefined) return; // keyframe 전 delta는 무시 (다음 keyframe에서 재동기화)
+            const u = { ...base };
+            if (f.c !== undefined) { u.stockCode = f.c; u.exchangeCode = f.x; }
+            if (f.t !== undefined) u.time = f.t;
+            if (f.p !== undefined) u.currentPrice = f.p;
+            if (f.d !== undefined) u.change = f.d;
+            if (f.r !== undefined) u.changeRate = f.r;
+            if (f.v !== undefined) u.volume = f.v;
+            if (f.s !== undefined) u.priceSign = f.s;
+            if (f.e !== undefined) u.isExpected = f.e;
+            streams.set(f.i, u);
+            stockUpdatesBuffer.current.set(`${u.stockCode}-${u.exchangeCode || 'J'}`, u);
+        };
+        eventSource.addEventListener('keyframe', (e) => { try { applyFrame(JSON.parse(e.data)); } catch (err) {} });
+        eventSource.onmessage = (e) => { try { applyFrame(JSON.parse(e.data)); } catch (err) {} };
+        eventSource.addEventListener('stale', (e) => { try { setStaleCodes(JSON.parse(e.data)); } catch (err) {} });
         
         const interval = setInterval(() => {
             if (stockUpdatesBuffer.current.size === 0) return;
@@ -115,7 +131,7 @@ const WatchlistSummary = () => {
             }));
         }, 300);
         return () => { eventSource.close(); clearInterval(interval); };
-    }, [selectedStock]);
+    }, [selectedStock, globalMarketMode]);
 
     const summary = (() => {
         let totalInvested = 0, totalEvaluation = 0; 
@@ -304,7 +320,7 @@ const WatchlistSummary = () => {
                     {selectedStock ? renderDetailView() : (
                         <>
                             <div className="p-5 border-b border-slate-800 flex justify-between items-center bg-slate-850 shrink-0">
-                                <div><h1 className="text-xl font-black text-white mb-1 flex items-center gap-2"><TrendingUp className="text-indigo-500" size={24} /> 관심종목 시세</h1><p className="text-slate-500 text-xs font-medium">매매내역 관리: 종목 클릭</p></div>
+                                <div><h1 className="text-xl font-black text-white mb-1 flex items-center gap-2"><TrendingUp className="text-indigo-500" size={24} /> 관심종목 시세</h1><p className="text-slate-500 text-xs font-medium">매매내역 관리: 종목 클릭{staleCodes.length > 0 && <span className="ml-2 text-amber-400 font-bold">실시간 지연 ({staleCodes.length})</span>}</p></div>
                                 <button onClick={() => setGlobalMarketMode(m => m === 'J' ? 'NX' : (m === 'NX' ? 'UN' : 'J'))} className={classNames("flex items-center gap-1.5 text-xs font-bold px-3 py-2 rounded-lg border transition-all", marketInfo.colorClass)}><Repeat size={14} />{marketInfo.name}</button>
                             </div>
                             <div className="flex-1 overflow-y-auto p-4 custom-scrollbar pb-40"> 